@@ -0,0 +1,33 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int methods;
+
+    private JmmParserResult parserResult;
+
+    @Setup
+    public void setup() {
+        // The analysis does not change the AST, the same one can be analyzed in every call
+        parserResult = BenchmarkInputs.parse(BenchmarkInputs.program(methods));
+    }
+
+    @Benchmark
+    public JmmSemanticsResult semanticAnalysis() {
+        return new JmmAnalysisImpl().semanticAnalysis(parserResult);
+    }
+}
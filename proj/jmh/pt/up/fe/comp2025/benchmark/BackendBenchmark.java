@@ -0,0 +1,44 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.backend.ClassFileBackendImpl;
+import pt.up.fe.comp2025.backend.JasminBackendImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * From OLLIR to a class file on disk, through Jasmin code and the Jasmin assembler, or written directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackendBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int methods;
+
+    private OllirResult ollirResult;
+    private File outputDir;
+
+    @Setup
+    public void setup() {
+        ollirResult = BenchmarkInputs.toOllir(BenchmarkInputs.program(methods));
+        outputDir = SpecsIo.getTempFolder("backend-benchmark");
+    }
+
+    @Benchmark
+    public File jasmin() {
+        return new JasminBackendImpl().toJasmin(ollirResult).compile(outputDir);
+    }
+
+    @Benchmark
+    public File classFile() {
+        return new ClassFileBackendImpl().toJasmin(ollirResult).compile(outputDir);
+    }
+}
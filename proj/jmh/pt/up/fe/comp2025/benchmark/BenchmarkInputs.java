@@ -0,0 +1,89 @@
+package pt.up.fe.comp2025.benchmark;
+
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+
+import java.util.Map;
+
+/**
+ * Inputs of the benchmarks, a Java-- class whose size grows with the number of methods, and helpers to run the
+ * pipeline up to the stage being measured.
+ */
+public class BenchmarkInputs {
+
+    private static final String METHOD = """
+                public int method%1$d(int n) {
+                    int i;
+                    int sum;
+                    int[] values;
+                    boolean flag;
+                    i = 0;
+                    sum = 0;
+                    values = new int[n + 1];
+                    flag = true;
+                    while (i < n) {
+                        values[i] = i * 2 + 1;
+                        if (flag && i < 10) {
+                            sum = sum + values[i];
+                        } else {
+                            sum = sum - 3 * 4;
+                        }
+                        flag = !flag;
+                        i = i + 1;
+                    }
+                    counter = counter + sum;
+                    return sum + this.method%2$d(values.length);
+                }
+
+            """;
+
+    /**
+     * @param methods
+     * @return a valid Java-- class with the given number of methods (plus main)
+     */
+    public static String program(int methods) {
+        var code = new StringBuilder();
+
+        code.append("import io;\n\nclass Bench {\n\n    int counter;\n\n");
+        for (int i = 0; i < methods; i++) {
+            // Each method calls the previous one, the first calls itself
+            code.append(METHOD.formatted(i, Math.max(0, i - 1)));
+        }
+        code.append("""
+                    public static void main(String[] args) {
+                        Bench bench;
+                        bench = new Bench();
+                        io.println(bench.method0(10));
+                    }
+                }
+                """);
+
+        return code.toString();
+    }
+
+    public static Map<String, String> config() {
+        return Map.of("optimize", "true", "registerAllocation", "0");
+    }
+
+    public static JmmParserResult parse(String code) {
+        return new JmmParserImpl().parse(code, config());
+    }
+
+    public static JmmSemanticsResult analyze(String code) {
+        return new JmmAnalysisImpl().semanticAnalysis(parse(code));
+    }
+
+    /**
+     * @return the OLLIR of the code, without register allocation
+     */
+    public static OllirResult toOllir(String code) {
+        var semantics = analyze(code);
+        var optimization = new JmmOptimizationImpl(new CompilationContext(config()));
+        return optimization.toOllir(semantics);
+    }
+}
@@ -0,0 +1,33 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.backend.JasminGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JasminBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int methods;
+
+    private OllirResult ollirResult;
+
+    @Setup
+    public void setup() {
+        // The generator only reads the OLLIR class, the same one can be used in every call
+        ollirResult = BenchmarkInputs.toOllir(BenchmarkInputs.program(methods));
+    }
+
+    @Benchmark
+    public String build() {
+        return new JasminGenerator(ollirResult, new CompilationContext(BenchmarkInputs.config())).build();
+    }
+}
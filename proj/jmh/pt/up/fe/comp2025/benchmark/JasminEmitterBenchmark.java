@@ -0,0 +1,51 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.backend.JasminGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the Jasmin generator for each OLLIR instruction it emits. Run it with the GC profiler, where
+ * gc.alloc.rate.norm is then the number of bytes allocated per instruction:
+ * <p>
+ * gradle jmh -PjmhArgs="JasminEmitterBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JasminEmitterBenchmark {
+
+    private static final int METHODS = 10;
+
+    // OLLIR instructions in the methods of the benchmark class with METHODS methods
+    static final int INSTRUCTIONS = 356;
+
+    private OllirResult ollirResult;
+
+    @Setup
+    public void setup() {
+        ollirResult = BenchmarkInputs.toOllir(BenchmarkInputs.program(METHODS));
+
+        var instructions = ollirResult.getOllirClass().getMethods().stream()
+                .filter(method -> !method.isConstructMethod())
+                .mapToInt(method -> method.getInstructions().size())
+                .sum();
+
+        // The results are per instruction, they are only valid if the count is right
+        if (instructions != INSTRUCTIONS) {
+            throw new IllegalStateException("Expected " + INSTRUCTIONS + " instructions, found " + instructions);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTRUCTIONS)
+    public String build() {
+        return new JasminGenerator(ollirResult, new CompilationContext(BenchmarkInputs.config())).build();
+    }
+}
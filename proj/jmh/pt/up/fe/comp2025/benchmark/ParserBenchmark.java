@@ -0,0 +1,47 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int methods;
+
+    // The parser ANTLR generates, or the hand-written one, which ignores the prediction
+    @Param({"antlr", "handwritten"})
+    public String parser;
+
+    // Two-stage SLL/LL parsing, or always LL
+    @Param({"sll", "ll"})
+    public String prediction;
+
+    private String code;
+
+    private Map<String, String> config;
+
+    @Setup
+    public void setup() {
+        code = BenchmarkInputs.program(methods);
+
+        config = new HashMap<>(BenchmarkInputs.config());
+        config.put("prediction", prediction);
+        config.put("parser", parser);
+    }
+
+    @Benchmark
+    public JmmParserResult parse() {
+        return new JmmParserImpl().parse(code, config);
+    }
+}
@@ -0,0 +1,47 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.trace.CompilerTrace;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole compilations with every stage enabled, with the default trace (warnings only) and with the debug output of
+ * every stage. The output is discarded, so the difference is the cost of building it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceBenchmark {
+
+    private static final Map<String, String> CONFIG = Map.of("optimize", "true", "registerAllocation", "0");
+
+    @Param({"10", "100"})
+    public int methods;
+
+    @Param({"warn", "debug", "trace"})
+    public String trace;
+
+    private String code;
+    private CompilerTrace compilerTrace;
+
+    @Setup
+    public void setup() {
+        code = BenchmarkInputs.program(methods);
+        compilerTrace = CompilerTrace.parse(trace, new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Benchmark
+    public JasminResult compile() {
+        return Launcher.compile(code, new CompilationContext(CONFIG, compilerTrace));
+    }
+}
@@ -0,0 +1,62 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.benchmark.BenchmarkInputs;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the optimization stage. These passes change what they work on, so each call gets a fresh input,
+ * prepared outside of the measured time.
+ * <p>
+ * In this package because ConstantPropOpt and RegisterAllocationOpt are package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimizationBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int methods;
+
+    private String code;
+    private String ollirCode;
+
+    private JmmSemanticsResult semanticsResult;
+    private OllirResult ollirResult;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        code = BenchmarkInputs.program(methods);
+        ollirCode = BenchmarkInputs.toOllir(code).getOllirCode();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        semanticsResult = BenchmarkInputs.analyze(code);
+        ollirResult = new OllirResult(ollirCode, BenchmarkInputs.config());
+    }
+
+    @Benchmark
+    public JmmSemanticsResult constantPropagation() {
+        new ConstantPropOpt(semanticsResult).optimize();
+        return semanticsResult;
+    }
+
+    @Benchmark
+    public OllirResult toOllir() {
+        return new JmmOptimizationImpl(new CompilationContext(BenchmarkInputs.config())).toOllir(semanticsResult);
+    }
+
+    @Benchmark
+    public OllirResult registerAllocation() {
+        new RegisterAllocationOpt(ollirResult.getOllirClass()).allocateReg(0);
+        return ollirResult;
+    }
+}
@@ -0,0 +1,131 @@
+package pt.up.fe.comp2025;
+
+import pt.up.fe.comp2025.metrics.CompilerMetrics;
+import pt.up.fe.comp2025.parser.SourceReader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compiles several Java-- files inside a single JVM, using a bounded pool of worker threads.
+ * <p>
+ * Each file goes through the full pipeline (parse, semantic analysis, optimization and Jasmin generation) with its own
+ * stage instances, so the only thing shared between files is the warmed-up JVM.
+ */
+public class BatchCompiler {
+
+    private final List<File> inputs;
+    private final int workers;
+    private final Map<String, String> config;
+
+    public BatchCompiler(List<File> inputs, int workers, Map<String, String> config) {
+        this.inputs = inputs;
+        this.workers = workers;
+        this.config = config;
+    }
+
+    public BatchResult run() {
+        var pool = Executors.newFixedThreadPool(workers);
+
+        var start = System.nanoTime();
+        try {
+            var futures = new ArrayList<Future<FileResult>>();
+            for (var input : inputs) {
+                futures.add(pool.submit(() -> compile(input)));
+            }
+
+            // Collect in submission order, so that the report does not depend on scheduling
+            var results = new ArrayList<FileResult>();
+            for (var future : futures) {
+                results.add(future.get());
+            }
+
+            return new BatchResult(results, System.nanoTime() - start, workers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for batch compilation", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unexpected failure in batch compilation", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private FileResult compile(File input) {
+        var start = System.nanoTime();
+        var context = new CompilationContext(CompilerConfig.forInputFile(config, input));
+
+        try {
+            var code = SourceReader.read(input);
+            Launcher.compile(code, context);
+            return new FileResult(input, true, System.nanoTime() - start, null, getMetricsReport(context, input));
+        } catch (Exception e) {
+            var message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return new FileResult(input, false, System.nanoTime() - start, message, getMetricsReport(context, input));
+        }
+    }
+
+    private static CompilerMetrics.Report getMetricsReport(CompilationContext context, File input) {
+        return context.getMetrics().isEnabled() ? context.getMetrics().getReport(input.getPath()) : null;
+    }
+
+    /**
+     * Outcome of compiling a single file of the batch.
+     *
+     * @param metrics time and allocations of each stage, or null if metrics are disabled
+     */
+    public record FileResult(File file, boolean success, long elapsedNanos, String error,
+                             CompilerMetrics.Report metrics) {
+
+        @Override
+        public String toString() {
+            var status = success ? "[OK]   " : "[FAIL] ";
+            var line = status + file.getPath() + " (" + elapsedNanos / 1_000_000 + " ms)";
+            return success ? line : line + ": " + error.lines().findFirst().orElse("");
+        }
+    }
+
+    /**
+     * Outcome of the whole batch.
+     */
+    public record BatchResult(List<FileResult> files, long elapsedNanos, int workers) {
+
+        public long getNumFailed() {
+            return files.stream().filter(file -> !file.success()).count();
+        }
+
+        public List<CompilerMetrics.Report> getMetricsReports() {
+            return files.stream()
+                    .map(FileResult::metrics)
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+
+        public double getFilesPerSecond() {
+            if (elapsedNanos == 0) {
+                return 0;
+            }
+
+            return files.size() / (elapsedNanos / 1e9);
+        }
+
+        public String getSummary() {
+            var summary = new StringBuilder();
+
+            for (var file : files) {
+                summary.append(file).append("\n");
+            }
+
+            summary.append("Compiled %d files (%d failed) in %.3f s with %d workers: %.2f files/s".formatted(
+                    files.size(), getNumFailed(), elapsedNanos / 1e9, workers, getFilesPerSecond()));
+
+            return summary.toString();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package pt.up.fe.comp2025;
+
+import pt.up.fe.comp2025.metrics.CompilerMetrics;
+import pt.up.fe.comp2025.trace.CompilerTrace;
+import pt.up.fe.specs.util.collections.AccumulatorMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Owns all the mutable state of a single compilation.
+ * <p>
+ * One CompilationContext per input. The stages of the compiler receive the context of the compilation they are part
+ * of, instead of keeping counters of their own, so that several compilations can run concurrently in the same JVM as
+ * long as each one uses its own context. A context itself is not thread-safe and must not be shared between
+ * compilations.
+ */
+public class CompilationContext {
+
+    private final Map<String, String> config;
+
+    private final CompilerMetrics metrics;
+    private final CompilerTrace trace;
+
+    // OLLIR generation, names of temporaries and labels
+    private AccumulatorMap<String> temporaries;
+    private AccumulatorMap<String> labels;
+
+    // Incremental compilation, fingerprints in source order and code of the methods reused from earlier compilations
+    private final Map<String, String> methodFingerprints;
+    private final Map<String, String> reusedMethods;
+
+    public CompilationContext(Map<String, String> config) {
+        this(config, CompilerConfig.getTrace(config));
+    }
+
+    /**
+     * @param config
+     * @param trace  where the debug output of this compilation goes, instead of the one configured by the options
+     */
+    public CompilationContext(Map<String, String> config, CompilerTrace trace) {
+        this.config = Collections.unmodifiableMap(new HashMap<>(config));
+        this.metrics = CompilerConfig.getMetrics(config) ? CompilerMetrics.enabled() : CompilerMetrics.disabled();
+        this.trace = trace;
+        this.temporaries = new AccumulatorMap<>();
+        this.labels = new AccumulatorMap<>();
+        this.methodFingerprints = new LinkedHashMap<>();
+        this.reusedMethods = new HashMap<>();
+    }
+
+    public CompilationContext() {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * @return the (read-only) configuration this compilation was started with
+     */
+    public Map<String, String> getConfig() {
+        return config;
+    }
+
+    public CompilerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public CompilerTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Resets the counters that only need to be unique inside a method (names of temporaries and labels). The code of
+     * each method then only depends on the method itself, not on the methods generated before it.
+     */
+    public void startMethod() {
+        temporaries = new AccumulatorMap<>();
+        labels = new AccumulatorMap<>();
+    }
+
+    public AccumulatorMap<String> getTemporaries() {
+        return temporaries;
+    }
+
+    public AccumulatorMap<String> getLabels() {
+        return labels;
+    }
+
+    public boolean isIncremental() {
+        // Reused methods are Jasmin code, which the class file backend cannot use
+        return CompilerConfig.getIncremental(config)
+                && CompilerConfig.getBackend(config).equals(CompilerConfig.JASMIN_BACKEND);
+    }
+
+    public void putMethodFingerprint(String method, String fingerprint) {
+        methodFingerprints.put(method, fingerprint);
+    }
+
+    public Optional<String> getMethodFingerprint(String method) {
+        return Optional.ofNullable(methodFingerprints.get(method));
+    }
+
+    /**
+     * @return the names of the fingerprinted methods, in the order they appear in the source
+     */
+    public List<String> getFingerprintedMethods() {
+        return new ArrayList<>(methodFingerprints.keySet());
+    }
+
+    /**
+     * Marks a method as reused, the stages skip it and the backend emits the given code instead.
+     *
+     * @param method
+     * @param jasminCode
+     */
+    public void reuseMethod(String method, String jasminCode) {
+        reusedMethods.put(method, jasminCode);
+    }
+
+    public boolean isReused(String method) {
+        return reusedMethods.containsKey(method);
+    }
+
+    public Optional<String> getReusedMethod(String method) {
+        return Optional.ofNullable(reusedMethods.get(method));
+    }
+}
@@ -1,24 +1,99 @@
 package pt.up.fe.comp2025;
 
+import pt.up.fe.comp2025.backend.peephole.PeepholeOptimizer;
+import pt.up.fe.comp2025.parser.ParserProfile;
+import pt.up.fe.comp2025.trace.CompilerTrace;
+import pt.up.fe.specs.util.SpecsIo;
+
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 public class CompilerConfig {
 
     private static final String INPUT_FILE = "inputFile";
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
-
-
-    static Map<String, String> shortToLong = new HashMap<>();
-
-    static {
-        shortToLong.put("i", CompilerConfig.INPUT_FILE);
-        shortToLong.put("o", CompilerConfig.OPTIMIZE);
-        shortToLong.put("r", CompilerConfig.REGISTER);
-    }
+    private static final String BATCH = "batch";
+    private static final String WORKERS = "workers";
+    private static final String DAEMON = "daemon";
+    private static final String CONNECT = "connect";
+    private static final String DAEMON_STATS = "daemonStats";
+    private static final String CACHE = "cache";
+    private static final String CACHE_SIZE = "cacheSize";
+    private static final String INCREMENTAL = "incremental";
+    private static final String METRICS = "metrics";
+    private static final String TRACE = "trace";
+    private static final String BACKEND = "backend";
+    private static final String PEEPHOLE = "peephole";
+    private static final String HOT_SLOTS = "hotSlots";
+    private static final String PREDICTION = "prediction";
+    private static final String PARSER = "parser";
+    private static final String PROFILE_PARSER = "profileParser";
+
+    public static final int DEFAULT_DAEMON_PORT = 4242;
+    public static final long DEFAULT_CACHE_SIZE_MB = 64;
+
+    public static final String JASMIN_BACKEND = "jasmin";
+    public static final String CLASS_FILE_BACKEND = "classfile";
+
+    public static final String SLL_PREDICTION = "sll";
+    public static final String LL_PREDICTION = "ll";
+
+    public static final String ANTLR_PARSER = "antlr";
+    public static final String HANDWRITTEN_PARSER = "handwritten";
+
+
+    // Read-only after class initialization, can be safely shared between compilations
+    private static final Map<String, String> shortToLong = Map.of(
+            "i", CompilerConfig.INPUT_FILE,
+            "o", CompilerConfig.OPTIMIZE,
+            "r", CompilerConfig.REGISTER,
+            "b", CompilerConfig.BATCH,
+            "w", CompilerConfig.WORKERS,
+            "d", CompilerConfig.DAEMON,
+            "c", CompilerConfig.CONNECT,
+            "s", CompilerConfig.DAEMON_STATS,
+            "k", CompilerConfig.CACHE,
+            "m", CompilerConfig.METRICS
+    );
+
+    // Options that can only be given in the long form, '--<name>[=<value>]'
+    private static final Set<String> longOnly = Set.of(
+            CompilerConfig.CACHE_SIZE,
+            CompilerConfig.INCREMENTAL,
+            CompilerConfig.TRACE,
+            CompilerConfig.BACKEND,
+            CompilerConfig.PEEPHOLE,
+            CompilerConfig.HOT_SLOTS,
+            CompilerConfig.PREDICTION,
+            CompilerConfig.PARSER,
+            CompilerConfig.PROFILE_PARSER
+    );
+
+    // Options that change how the compiler runs, but not the code it generates
+    private static final Set<String> nonCodegenOptions = Set.of(
+            CompilerConfig.INPUT_FILE,
+            CompilerConfig.BATCH,
+            CompilerConfig.WORKERS,
+            CompilerConfig.DAEMON,
+            CompilerConfig.CONNECT,
+            CompilerConfig.DAEMON_STATS,
+            CompilerConfig.CACHE,
+            CompilerConfig.CACHE_SIZE,
+            CompilerConfig.INCREMENTAL,
+            CompilerConfig.METRICS,
+            CompilerConfig.TRACE,
+            CompilerConfig.PREDICTION,
+            CompilerConfig.PARSER,
+            CompilerConfig.PROFILE_PARSER
+    );
 
 
     public static Optional<File> getInputFile(Map<String, String> config) {
@@ -40,6 +115,293 @@ public class CompilerConfig {
         return Integer.parseInt(config.getOrDefault(REGISTER, "-1"));
     }
 
+    /**
+     * @param config
+     * @return true if the most accessed local variables get the lowest slots, with or without register allocation
+     */
+    public static boolean getHotSlots(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(HOT_SLOTS, "false"));
+    }
+
+
+    /**
+     * Returns the input files of a batch compilation. The batch option either points to a folder, in which case every
+     * .jmm file inside it (recursively) is compiled, or to a list file with one path per line.
+     *
+     * @param config
+     * @return the files to compile, or empty if the batch option is not set
+     */
+    public static Optional<List<File>> getBatchInputs(Map<String, String> config) {
+        var batch = config.get(BATCH);
+
+        if (batch == null) {
+            return Optional.empty();
+        }
+
+        var batchFile = new File(batch);
+
+        if (batchFile.isDirectory()) {
+            var files = new ArrayList<>(SpecsIo.getFilesRecursive(batchFile, "jmm"));
+            files.sort(null);
+            return Optional.of(files);
+        }
+
+        // List file, paths are relative to the folder of the list
+        var files = new ArrayList<File>();
+        for (var line : SpecsIo.read(batchFile).lines().toList()) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            var file = new File(line);
+            if (!file.isAbsolute()) {
+                file = new File(batchFile.getAbsoluteFile().getParentFile(), line);
+            }
+            files.add(file);
+        }
+
+        return Optional.of(files);
+    }
+
+    public static int getWorkers(Map<String, String> config) {
+        var workers = config.get(WORKERS);
+
+        if (workers == null) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+
+        return Integer.parseInt(workers);
+    }
+
+    /**
+     * @param config
+     * @return the loopback port the compiler daemon should listen on, or empty if not running as a daemon
+     */
+    public static Optional<Integer> getDaemonPort(Map<String, String> config) {
+        return getPort(config, DAEMON);
+    }
+
+    /**
+     * @param config
+     * @return the loopback port of the daemon the compilation should be sent to, or empty if compiling in-process
+     */
+    public static Optional<Integer> getConnectPort(Map<String, String> config) {
+        return getPort(config, CONNECT);
+    }
+
+    /**
+     * @param config
+     * @return the loopback port of the daemon whose statistics should be printed, or empty if not requested
+     */
+    public static Optional<Integer> getDaemonStatsPort(Map<String, String> config) {
+        return getPort(config, DAEMON_STATS);
+    }
+
+    private static Optional<Integer> getPort(Map<String, String> config, String option) {
+        var value = config.get(option);
+
+        if (value == null) {
+            return Optional.empty();
+        }
+
+        // Option given without a value
+        if (value.equals("true")) {
+            return Optional.of(DEFAULT_DAEMON_PORT);
+        }
+
+        return Optional.of(Integer.parseInt(value));
+    }
+
+    /**
+     * @param config
+     * @return the folder of the compilation cache, or empty if compilations should not be cached
+     */
+    public static Optional<File> getCacheDir(Map<String, String> config) {
+        var cache = config.get(CACHE);
+
+        if (cache == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(cache));
+    }
+
+    /**
+     * @param config
+     * @return the maximum size of the compilation cache, in bytes
+     */
+    public static long getCacheSize(Map<String, String> config) {
+        var megabytes = Long.parseLong(config.getOrDefault(CACHE_SIZE, Long.toString(DEFAULT_CACHE_SIZE_MB)));
+        return megabytes * 1024 * 1024;
+    }
+
+    /**
+     * @param config
+     * @return true if the code generated for unchanged methods should be reused from earlier compilations
+     */
+    public static boolean getIncremental(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(INCREMENTAL, "false"));
+    }
+
+    /**
+     * @param config
+     * @return true if the time and allocations of each stage and pass should be recorded, '--metrics=false' turns
+     * them off
+     */
+    public static boolean getMetrics(Map<String, String> config) {
+        var metrics = config.get(METRICS);
+        return metrics != null && !metrics.equals("false");
+    }
+
+    /**
+     * @param config
+     * @return the file the metrics report should be written to, or empty to print it
+     */
+    public static Optional<File> getMetricsFile(Map<String, String> config) {
+        var metrics = config.get(METRICS);
+
+        if (!getMetrics(config) || metrics.equals("true")) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(metrics));
+    }
+
+    /**
+     * @param config
+     * @return the debug output that should be printed, by default only warnings
+     */
+    public static CompilerTrace getTrace(Map<String, String> config) {
+        return CompilerTrace.parse(config.get(TRACE));
+    }
+
+    /**
+     * @param config
+     * @return the backend that generates the class file, either {@link #JASMIN_BACKEND} or {@link #CLASS_FILE_BACKEND}
+     */
+    public static String getBackend(Map<String, String> config) {
+        var backend = config.getOrDefault(BACKEND, JASMIN_BACKEND);
+
+        if (!backend.equals(JASMIN_BACKEND) && !backend.equals(CLASS_FILE_BACKEND)) {
+            throw new RuntimeException("Option '--backend' expects '" + JASMIN_BACKEND + "' or '" + CLASS_FILE_BACKEND
+                    + "', got '" + backend + "'");
+        }
+
+        return backend;
+    }
+
+    /**
+     * The peephole optimizer is off by default. '--peephole' applies all of its rules, '--peephole=<rule>,...' only the
+     * given ones.
+     *
+     * @param config
+     * @return the names of the peephole rules to apply, empty if the optimizer is off
+     */
+    public static List<String> getPeephole(Map<String, String> config) {
+        var peephole = config.getOrDefault(PEEPHOLE, "false");
+
+        if (peephole.equals("false")) {
+            return List.of();
+        }
+
+        if (peephole.equals("true")) {
+            return PeepholeOptimizer.getRuleNames();
+        }
+
+        var rules = List.of(peephole.split(","));
+        for (var rule : rules) {
+            if (!PeepholeOptimizer.getRuleNames().contains(rule)) {
+                throw new RuntimeException("Option '--peephole' expects rules from " + PeepholeOptimizer.getRuleNames()
+                        + ", got '" + rule + "'");
+            }
+        }
+
+        return rules;
+    }
+
+    /**
+     * With {@link #SLL_PREDICTION}, the default, the parser first tries the faster SLL prediction and only parses again
+     * with full LL prediction if it fails. {@link #LL_PREDICTION} always uses LL prediction.
+     *
+     * @param config
+     * @return the prediction mode of the parser
+     */
+    public static String getPrediction(Map<String, String> config) {
+        var prediction = config.getOrDefault(PREDICTION, SLL_PREDICTION);
+
+        if (!prediction.equals(SLL_PREDICTION) && !prediction.equals(LL_PREDICTION)) {
+            throw new RuntimeException("Option '--prediction' expects '" + SLL_PREDICTION + "' or '" + LL_PREDICTION
+                    + "', got '" + prediction + "'");
+        }
+
+        return prediction;
+    }
+
+    /**
+     * @param config
+     * @return true if the ANTLR parser should record the statistics of its decisions, see {@link ParserProfile}
+     */
+    public static boolean getProfileParser(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(PROFILE_PARSER, "false"));
+    }
+
+    /**
+     * With {@link #ANTLR_PARSER}, the default, the code is parsed by the parser ANTLR generates from Javamm.g4.
+     * {@link #HANDWRITTEN_PARSER} uses a hand-written parser of the same grammar that builds the same AST directly.
+     *
+     * @param config
+     * @return the parser of the code
+     */
+    public static String getParser(Map<String, String> config) {
+        var parser = config.getOrDefault(PARSER, ANTLR_PARSER);
+
+        if (!parser.equals(ANTLR_PARSER) && !parser.equals(HANDWRITTEN_PARSER)) {
+            throw new RuntimeException("Option '--parser' expects '" + ANTLR_PARSER + "' or '" + HANDWRITTEN_PARSER
+                    + "', got '" + parser + "'");
+        }
+
+        return parser;
+    }
+
+    /**
+     * Returns the options that can change the generated code, in a stable order. Two compilations of the same source
+     * with equal codegen options generate the same code.
+     *
+     * @param config
+     * @return
+     */
+    public static SortedMap<String, String> getCodegenOptions(Map<String, String> config) {
+        var options = new TreeMap<String, String>();
+
+        for (var entry : config.entrySet()) {
+            if (!nonCodegenOptions.contains(entry.getKey())) {
+                options.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // Normalize the options with defaults, so that an absent option and its default value are the same
+        options.put(OPTIMIZE, Boolean.toString(getOptimize(config)));
+        options.put(REGISTER, Integer.toString(getRegisterAllocation(config)));
+        options.put(PEEPHOLE, String.join(",", getPeephole(config)));
+        options.put(HOT_SLOTS, Boolean.toString(getHotSlots(config)));
+
+        return options;
+    }
+
+    /**
+     * Creates the configuration used to compile a single file of a batch.
+     *
+     * @param config
+     * @param inputFile
+     * @return
+     */
+    public static Map<String, String> forInputFile(Map<String, String> config, File inputFile) {
+        var fileConfig = new HashMap<>(config);
+        fileConfig.remove(BATCH);
+        fileConfig.put(INPUT_FILE, inputFile.getAbsolutePath());
+        return fileConfig;
+    }
 
     public static Map<String, String> getDefault() {
 
@@ -61,6 +423,23 @@ public class CompilerConfig {
         return shortToLong.containsKey(shortOpt);
     }
 
+    private static void parseLongOpt(String arg, Map<String, String> config) {
+        var option = arg.substring(2);
+
+        String value = "true";
+        var equalSign = option.indexOf('=');
+        if (equalSign != -1) {
+            value = option.substring(equalSign + 1);
+            option = option.substring(0, equalSign);
+        }
+
+        if (!shortToLong.containsValue(option) && !longOnly.contains(option)) {
+            throw new RuntimeException("Unrecognized option '--" + option + "'");
+        }
+
+        config.put(option, value);
+    }
+
     public static Map<String, String> parseArgs(String[] args) {
 
         // default options for config
@@ -68,6 +447,11 @@ public class CompilerConfig {
 
         for (String arg : args) {
 
+            if (arg.startsWith("--")) {
+                parseLongOpt(arg, config);
+                continue;
+            }
+
             if (!arg.startsWith("-")) {
                 throw new RuntimeException("Arguments should start with '-'");
             }
@@ -89,9 +473,47 @@ public class CompilerConfig {
             config.put(getLongOpt(shortOption), value);
         }
 
+        // Fails early on unknown trace levels and categories
+        getTrace(config);
+        getBackend(config);
+        getPeephole(config);
+        getPrediction(config);
+        getParser(config);
+
+        if (config.containsKey(CACHE)) {
+            config.put(CACHE, new File(config.get(CACHE)).getAbsolutePath());
+
+            if (getCacheSize(config) < 1) {
+                throw new RuntimeException("Option '--cacheSize' expects a positive size in megabytes");
+            }
+        }
+
+        // Daemon related modes do not compile a local input file
+        if (config.containsKey(DAEMON) || config.containsKey(DAEMON_STATS)) {
+            getDaemonPort(config);
+            getDaemonStatsPort(config);
+            getWorkers(config);
+            return config;
+        }
+
+        if (config.containsKey(BATCH)) {
+            var batchFile = new File(config.get(BATCH));
+            if (!batchFile.exists()) {
+                throw new RuntimeException("Could not find batch folder or list file '" + batchFile + "'");
+            }
+
+            config.put(BATCH, batchFile.getAbsolutePath());
+
+            if (getWorkers(config) < 1) {
+                throw new RuntimeException("Option '-w' expects a positive number of workers");
+            }
+
+            return config;
+        }
+
         if (!config.containsKey(INPUT_FILE)) {
 
-            throw new RuntimeException("Expected an input file, use '-i=<PATH_TO_FILE>'");
+            throw new RuntimeException("Expected an input file, use '-i=<PATH_TO_FILE>' or '-b=<FOLDER_OR_LIST>'");
         }
 
         // make sure we save the absolute path of the input file
@@ -106,6 +528,7 @@ public class CompilerConfig {
         // Verify if values are valid
         getOptimize(config);
         getRegisterAllocation(config);
+        getConnectPort(config);
 
         return config;
     }
@@ -2,16 +2,30 @@ package pt.up.fe.comp2025;
 
 import pt.up.fe.comp.TestUtils;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.jasmin.JasminBackend;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.backend.ClassFileBackendImpl;
 import pt.up.fe.comp2025.backend.JasminBackendImpl;
+import pt.up.fe.comp2025.cache.CompilationCache;
+import pt.up.fe.comp2025.cache.MethodCache;
+import pt.up.fe.comp2025.daemon.CompilerClient;
+import pt.up.fe.comp2025.daemon.CompilerDaemon;
+import pt.up.fe.comp2025.daemon.DaemonResponse;
+import pt.up.fe.comp2025.metrics.CompilerMetrics;
 import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
 import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.comp2025.parser.SourceReader;
 import pt.up.fe.specs.util.SpecsIo;
 import pt.up.fe.specs.util.SpecsSystem;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.Map;
 
 public class Launcher {
@@ -21,15 +35,148 @@ public class Launcher {
 
         Map<String, String> config = CompilerConfig.parseArgs(args);
 
+        // Daemon mode, serves compile requests until shutdown
+        var daemonPort = CompilerConfig.getDaemonPort(config);
+        if (daemonPort.isPresent()) {
+            new CompilerDaemon(daemonPort.get(), CompilerConfig.getWorkers(config)).run();
+            return;
+        }
+
+        var statsPort = CompilerConfig.getDaemonStatsPort(config);
+        if (statsPort.isPresent()) {
+            var stats = new CompilerClient(statsPort.get()).stats();
+            System.out.println(stats.map(response -> "Compiler daemon: " + response.stats())
+                    .orElse("No compiler daemon running on port " + statsPort.get()));
+            return;
+        }
+
+        // Batch mode, compiles several files in this JVM
+        var batchInputs = CompilerConfig.getBatchInputs(config);
+        if (batchInputs.isPresent()) {
+            var batch = new BatchCompiler(batchInputs.get(), CompilerConfig.getWorkers(config), config);
+            var result = batch.run();
+            System.out.println(result.getSummary());
+            System.out.println(JmmParserImpl.getStats());
+            printParserProfile(config);
+            printCacheStats(config);
+
+            if (CompilerConfig.getMetrics(config)) {
+                writeMetrics(config, result.getMetricsReports());
+            }
+            return;
+        }
+
         var inputFile = CompilerConfig.getInputFile(config).orElseThrow();
         if (!inputFile.isFile()) {
             throw new RuntimeException("Option '-i' expects a path to an existing input file, got '" + args[0] + "'.");
         }
-        String code = SpecsIo.read(inputFile);
+
+        // Send the compilation to a running daemon, if there is one
+        var connectPort = CompilerConfig.getConnectPort(config);
+        if (connectPort.isPresent()) {
+            var response = new CompilerClient(connectPort.get()).compile(inputFile.getAbsolutePath(), config);
+
+            if (response.isPresent()) {
+                if (!response.get().success()) {
+                    throw new RuntimeException(response.get().error());
+                }
+
+                response.get().reports().forEach(System.out::println);
+                printDaemonOutput(response.get());
+                return;
+            }
+
+            System.out.println("No compiler daemon running on port " + connectPort.get() + ", compiling in-process");
+        }
+
+        var code = SourceReader.read(inputFile);
+
+        var context = new CompilationContext(config);
+        compile(code, context);
+        printParserProfile(config);
+        printCacheStats(config);
+
+        if (CompilerConfig.getMetrics(config)) {
+            writeMetrics(config, List.of(context.getMetrics().getReport(inputFile.getPath())));
+        }
+    }
+
+    /**
+     * Prints the Jasmin code compiled by the daemon, or writes the class file it compiled to the working directory.
+     */
+    private static void printDaemonOutput(DaemonResponse response) {
+        var classFile = response.getClassFileBytes();
+        if (classFile == null) {
+            System.out.println("Generated Jasmin:\n" + response.jasminCode());
+            return;
+        }
+
+        var file = new File(response.className() + ".class");
+        try {
+            Files.write(file.toPath(), classFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("Generated class file: " + file + " (" + classFile.length + " bytes)");
+    }
+
+    private static void printParserProfile(Map<String, String> config) {
+        if (CompilerConfig.getProfileParser(config)) {
+            System.out.print(JmmParserImpl.getProfile());
+        }
+    }
+
+    private static void printCacheStats(Map<String, String> config) {
+        CompilationCache.fromConfig(config).ifPresent(cache -> System.out.println(cache.getStats()));
+
+        if (CompilerConfig.getIncremental(config)) {
+            System.out.println(MethodCache.shared().getStats());
+        }
+    }
+
+    /**
+     * Runs every stage of the compiler over the given code, or reuses the result of an earlier compilation if the
+     * configuration enables the compilation cache.
+     *
+     * @param code
+     * @param config
+     * @return the result of the backend
+     * @throws RuntimeException if any of the stages reports an error
+     */
+    public static JasminResult compile(CharSequence code, Map<String, String> config) {
+        return compile(code, new CompilationContext(config));
+    }
+
+    /**
+     * Same as {@link #compile(CharSequence, Map)}, using the given context, which can be inspected afterwards (e.g. for its
+     * metrics).
+     *
+     * @param code
+     * @param context
+     * @return the result of the backend
+     */
+    public static JasminResult compile(CharSequence code, CompilationContext context) {
+        var config = context.getConfig();
+        var cache = CompilationCache.fromConfig(config);
+
+        // The cache stores Jasmin code, the class file backend does not generate any
+        var isJasminBackend = CompilerConfig.getBackend(config).equals(CompilerConfig.JASMIN_BACKEND);
+
+        if (cache.isPresent() && isJasminBackend) {
+            return context.getMetrics().stage("cache",
+                    () -> cache.get().getOrCompile(code, config, () -> compilePipeline(code, context)));
+        }
+
+        return compilePipeline(code, context);
+    }
+
+    private static JasminResult compilePipeline(CharSequence code, CompilationContext context) {
+        var config = context.getConfig();
+        var metrics = context.getMetrics();
 
         // Parsing stage
-        JmmParserImpl parser = new JmmParserImpl();
-        JmmParserResult parserResult = parser.parse(code, config);
+        JmmParserImpl parser = new JmmParserImpl(context);
+        JmmParserResult parserResult = metrics.stage("parse", () -> parser.parse(code, config));
         TestUtils.noErrors(parserResult.getReports());
 
         // Print AST
@@ -38,28 +185,46 @@ public class Launcher {
 
 
         // Semantic Analysis stage
-        JmmAnalysisImpl sema = new JmmAnalysisImpl();
-        JmmSemanticsResult semanticsResult = sema.semanticAnalysis(parserResult);
+        JmmAnalysisImpl sema = new JmmAnalysisImpl(context);
+        JmmSemanticsResult semanticsResult = metrics.stage("semanticAnalysis",
+                () -> sema.semanticAnalysis(parserResult));
         TestUtils.noErrors(semanticsResult.getReports());
 
 
         // Optimization stage
-        JmmOptimizationImpl ollirGen = new JmmOptimizationImpl();
-        semanticsResult = ollirGen.optimize(semanticsResult);
-        OllirResult ollirResult = ollirGen.toOllir(semanticsResult);
-        ollirResult = ollirGen.optimize(ollirResult);
+        JmmOptimizationImpl ollirGen = new JmmOptimizationImpl(context);
+        var optimizedSemantics = metrics.stage("optimizeAst", () -> ollirGen.optimize(semanticsResult));
+        OllirResult ollirCode = metrics.stage("toOllir", () -> ollirGen.toOllir(optimizedSemantics));
+        OllirResult ollirResult = metrics.stage("optimizeOllir", () -> ollirGen.optimize(ollirCode));
         TestUtils.noErrors(ollirResult.getReports());
 
         // Print OLLIR code
         //System.out.println(ollirResult.getOllirCode());
 
         // Code generation stage
-        JasminBackendImpl jasminGen = new JasminBackendImpl();
-        JasminResult jasminResult = jasminGen.toJasmin(ollirResult);
+        JasminBackend jasminGen = CompilerConfig.getBackend(config).equals(CompilerConfig.CLASS_FILE_BACKEND) ?
+                new ClassFileBackendImpl(context) : new JasminBackendImpl(context);
+        JasminResult jasminResult = metrics.stage("toJasmin", () -> jasminGen.toJasmin(ollirResult));
         TestUtils.noErrors(jasminResult.getReports());
 
         // Print Jasmin code
         //System.out.println(jasminResult.getJasminCode());
+
+        return jasminResult;
+    }
+
+    /**
+     * Prints the metrics reports, or writes them to the file given in the configuration.
+     */
+    static void writeMetrics(Map<String, String> config, List<CompilerMetrics.Report> reports) {
+        var json = CompilerMetrics.toJson(reports);
+        var metricsFile = CompilerConfig.getMetricsFile(config);
+
+        if (metricsFile.isPresent()) {
+            SpecsIo.write(metricsFile.get(), json);
+        } else {
+            System.out.println(json);
+        }
     }
 
 }
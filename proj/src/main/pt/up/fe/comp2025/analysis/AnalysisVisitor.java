@@ -5,22 +5,51 @@ import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.ast.KindDispatch;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
 
 /**
  * Implementation of AnalysisPass that automatically visits nodes using preorder traversal.
  */
 public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Void> implements AnalysisPass {
 
+    private final KindDispatch<SymbolTable, Void> dispatch = new KindDispatch<>();
+
     private List<Report> reports;
 
+    // The passes do not override setDefaultValue, so it cannot see them uninitialized
+    @SuppressWarnings("this-escape")
     public AnalysisVisitor() {
         reports = new ArrayList<>();
         setDefaultValue(() -> null);
     }
 
+    @Override
+    protected BiFunction<JmmNode, SymbolTable, Void> getVisit(JmmNode node) {
+        return dispatch.getVisit(node, super::getVisit);
+    }
+
+    // The passes can add visit methods after a visit, which replace those already found
+    @Override
+    public void addVisit(String kind, BiFunction<JmmNode, SymbolTable, Void> method) {
+        super.addVisit(kind, method);
+        // Called by the constructor of AJmmVisitor, before the dispatch is created
+        if (dispatch != null) {
+            dispatch.clear();
+        }
+    }
+
+    @Override
+    public void setDefaultVisit(BiFunction<JmmNode, SymbolTable, Void> method) {
+        super.setDefaultVisit(method);
+        if (dispatch != null) {
+            dispatch.clear();
+        }
+    }
+
     protected void addReport(Report report) {
         reports.add(report);
     }
@@ -8,17 +8,43 @@ import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.ReportType;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.CompilerConfig;
 import pt.up.fe.comp2025.analysis.passes.*;
+import pt.up.fe.comp2025.metrics.CompilerMetrics;
 import pt.up.fe.comp2025.symboltable.JmmSymbolTableBuilder;
+import pt.up.fe.comp2025.trace.CompilerTrace;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.ANALYSIS;
+
 /**
  * Implementation of the semantic analysis stage.
  */
 public class JmmAnalysisImpl implements JmmAnalysis {
 
+    private final CompilationContext context;
+
+    public JmmAnalysisImpl() {
+        this(null);
+    }
+
+    /**
+     * @param context the context of the compilation, or null if the analysis is not part of a larger compilation
+     */
+    public JmmAnalysisImpl(CompilationContext context) {
+        this.context = context;
+    }
+
+    private CompilerMetrics getMetrics() {
+        return context != null ? context.getMetrics() : CompilerMetrics.disabled();
+    }
+
+    private CompilerTrace getTrace(JmmSemanticsResult semanticsResult) {
+        return context != null ? context.getTrace() : CompilerConfig.getTrace(semanticsResult.getConfig());
+    }
 
     /**
      * Analysis passes that will be applied to the AST.
@@ -42,7 +68,7 @@ public class JmmAnalysisImpl implements JmmAnalysis {
         JmmNode rootNode = parserResult.getRootNode();
 
         var symbolTableBuilder = new JmmSymbolTableBuilder();
-        SymbolTable table = symbolTableBuilder.build(rootNode);
+        SymbolTable table = getMetrics().pass("SymbolTable", () -> symbolTableBuilder.build(rootNode));
 
         List<Report> reports = symbolTableBuilder.getReports();
 
@@ -59,12 +85,14 @@ public class JmmAnalysisImpl implements JmmAnalysis {
         var rootNode = semanticsResult.getRootNode();
 
         var reports = new ArrayList<Report>();
+        var trace = getTrace(semanticsResult);
 
         // This is a simple implementation that assumes all passes are implemented as visitors, each one making a full visit of the AST.
         // There are other implementations that reduce the number of full AST visits, this is not required for the work, but a nice challenge if you want to try.
         for (var analysisVisitor : analysisVisitors) {
             try {
-                var passReports = analysisVisitor.analyze(rootNode, table);
+                var passReports = getMetrics().pass(analysisVisitor.getClass().getSimpleName(),
+                        () -> analysisVisitor.analyze(rootNode, table));
 
                 var hasSymbolTableErrors = passReports.stream()
                         .anyMatch(report -> report.getType() == ReportType.ERROR);
@@ -74,7 +102,7 @@ public class JmmAnalysisImpl implements JmmAnalysis {
 
                 // Return early in case of error report
                 if (hasSymbolTableErrors) {
-                    System.out.println("Found errors: " + reports);
+                    trace.info(ANALYSIS, () -> "Found errors: " + reports);
                     return new JmmSemanticsResult(semanticsResult, reports);
                 }
 
@@ -85,7 +113,8 @@ public class JmmAnalysisImpl implements JmmAnalysis {
                         "Problem while executing analysis pass '" + analysisVisitor.getClass() + "'",
                         e)
                 );
-                System.out.println("Exception: " + reports);
+                trace.warn(ANALYSIS, () -> "Exception in analysis pass '" + analysisVisitor.getClass().getSimpleName()
+                        + "': " + e);
             }
 
         }
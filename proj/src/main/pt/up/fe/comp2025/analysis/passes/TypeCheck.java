@@ -9,6 +9,7 @@ import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.Operator;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
 public class TypeCheck extends AnalysisVisitor {
@@ -39,7 +40,7 @@ public class TypeCheck extends AnalysisVisitor {
     private Void visitBinaryExpr(JmmNode binaryExpr, SymbolTable table) {
 
         TypeUtils typeUtils = new TypeUtils(table);
-        var operator = binaryExpr.get("op");
+        var operator = Operator.of(binaryExpr);
         var leftExpr = binaryExpr.getChild(0);
         var rightExpr = binaryExpr.getChild(1);
         Type leftType;
@@ -56,16 +57,16 @@ public class TypeCheck extends AnalysisVisitor {
             return null;
         }
 
-        if(operator.equals("+") || operator.equals("-") || operator.equals("/") || operator.equals("*") || operator.equals("<") || operator.equals(">"))
+        if(operator != Operator.AND)
         {
-            if(leftExpr.getKind().equals("MethodCall") && typeUtils.isImportedOrSuper(typeUtils.getExprType(leftExpr.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(leftExpr,currentMethod)){
+            if(Kind.METHOD_CALL.check(leftExpr) && typeUtils.isImportedOrSuper(typeUtils.getExprType(leftExpr.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(leftExpr,currentMethod)){
                 leftType = TypeUtils.newIntType();
             }
             else{
                 leftType = typeUtils.getExprType(leftExpr,currentMethod);
 
             }
-            if(rightExpr.getKind().equals("MethodCall") && typeUtils.isImportedOrSuper(typeUtils.getExprType(rightExpr.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(rightExpr,currentMethod)){
+            if(Kind.METHOD_CALL.check(rightExpr) && typeUtils.isImportedOrSuper(typeUtils.getExprType(rightExpr.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(rightExpr,currentMethod)){
                 rightType = TypeUtils.newIntType();
             }
             else{
@@ -85,14 +86,14 @@ public class TypeCheck extends AnalysisVisitor {
             }
         }
         else{
-            if(leftExpr.getKind().equals("MethodCall") && typeUtils.isImportedOrSuper(typeUtils.getExprType(leftExpr.getChild(0),currentMethod))){
+            if(Kind.METHOD_CALL.check(leftExpr) && typeUtils.isImportedOrSuper(typeUtils.getExprType(leftExpr.getChild(0),currentMethod))){
                 leftType = TypeUtils.newBooleanType();
             }
             else{
                 leftType = typeUtils.getExprType(leftExpr,currentMethod);
 
             }
-            if(leftExpr.getKind().equals("MethodCall") && typeUtils.isImportedOrSuper(typeUtils.getExprType(rightExpr.getChild(0),currentMethod))){
+            if(Kind.METHOD_CALL.check(leftExpr) && typeUtils.isImportedOrSuper(typeUtils.getExprType(rightExpr.getChild(0),currentMethod))){
                 rightType = TypeUtils.newBooleanType();
             }
             else{
@@ -120,8 +121,8 @@ public class TypeCheck extends AnalysisVisitor {
         var rightSide = arrayAccess.getChild(1);
         var leftType = typeUtils.getExprType(leftSide,currentMethod);
         var rightType = typeUtils.getExprType(rightSide,currentMethod);
-        var leftSizeImported = leftSide.getKind().equals(Kind.METHOD_CALL.toString()) && typeUtils.isImportedOrSuper(typeUtils.getExprType(leftSide.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(leftSide,currentMethod);
-        var rightSizeImported = rightSide.getKind().equals(Kind.METHOD_CALL.toString()) && typeUtils.isImportedOrSuper(typeUtils.getExprType(rightSide.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(rightSide,currentMethod);
+        var leftSizeImported = Kind.METHOD_CALL.check(leftSide) && typeUtils.isImportedOrSuper(typeUtils.getExprType(leftSide.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(leftSide,currentMethod);
+        var rightSizeImported = Kind.METHOD_CALL.check(rightSide) && typeUtils.isImportedOrSuper(typeUtils.getExprType(rightSide.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(rightSide,currentMethod);
 
         if(typeUtils.acessFieldInStaticMethod(leftSide,currentMethod)){
             addReport(Report.newError(
@@ -165,7 +166,7 @@ public class TypeCheck extends AnalysisVisitor {
         TypeUtils typeUtils = new TypeUtils(table);
         var condition = cond.getChild(0);
         var condType = typeUtils.getExprType(condition, currentMethod);
-        var condTypeImported = condition.getKind().equals(Kind.METHOD_CALL.toString()) && typeUtils.isImportedOrSuper(typeUtils.getExprType(condition.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(condition,currentMethod);
+        var condTypeImported = Kind.METHOD_CALL.check(condition) && typeUtils.isImportedOrSuper(typeUtils.getExprType(condition.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(condition,currentMethod);
 
         if(typeUtils.acessFieldInStaticMethod(cond,currentMethod)){
             addReport(Report.newError(
@@ -210,7 +211,7 @@ public class TypeCheck extends AnalysisVisitor {
             return null;
         }
 
-        if (leftSide.getKind().equals("VarRefExpr")){
+        if (Kind.VAR_REF_EXPR.check(leftSide)){
             if(Kind.METHOD_CALL.check(rightSide)){
                 var type = typeUtils.getExprType(rightSide.getChild(0), currentMethod);
                 if (typeUtils.isImportedOrSuper(type)){
@@ -281,7 +282,7 @@ public class TypeCheck extends AnalysisVisitor {
                 }
                 var paramType = params.get(idx).getType();
 
-                if(callArg.getKind().equals("MethodCall")){
+                if(Kind.METHOD_CALL.check(callArg)){
                     var objType = typeUtils.getExprType(callArg.getChild(0),currentMethod);
                     if(typeUtils.isImportedOrSuper(objType) && !typeUtils.belongsToMainClass(callArg,currentMethod)){
                         if(!TypeUtils.isVararg(paramType)){
@@ -380,7 +381,7 @@ public class TypeCheck extends AnalysisVisitor {
         TypeUtils typeUtils = new TypeUtils(table);
         var expr = not.getChild(0);
         var exprType = typeUtils.getExprType(expr,currentMethod);
-        var condTypeImported =  expr.getKind().equals(Kind.METHOD_CALL.toString()) && typeUtils.isImportedOrSuper(typeUtils.getExprType(expr.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(expr,currentMethod);
+        var condTypeImported =  Kind.METHOD_CALL.check(expr) && typeUtils.isImportedOrSuper(typeUtils.getExprType(expr.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(expr,currentMethod);
 
         if(typeUtils.acessFieldInStaticMethod(expr,currentMethod)){
             addReport(Report.newError(
@@ -409,7 +410,7 @@ public class TypeCheck extends AnalysisVisitor {
         TypeUtils typeUtils = new TypeUtils(table);
         var expr = ret.getChild(0);
         var retType = typeUtils.getExprType(expr,currentMethod);
-        if(expr.getKind().equals(Kind.METHOD_CALL.toString())) {
+        if(Kind.METHOD_CALL.check(expr)) {
             var objType = typeUtils.getExprType(expr.getChild(0), currentMethod);
             if (typeUtils.isImportedOrSuper(objType) && !typeUtils.belongsToMainClass(expr,currentMethod)) {
                 return null;
@@ -489,7 +490,7 @@ public class TypeCheck extends AnalysisVisitor {
         TypeUtils typeUtils = new TypeUtils(table);
         var object = jmmNode.getChild(0);
         var objectType = typeUtils.getExprType(object,currentMethod);
-        var leftSizeImported = object.getKind().equals(Kind.METHOD_CALL.toString()) && typeUtils.isImportedOrSuper(typeUtils.getExprType(object.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(object,currentMethod);
+        var leftSizeImported = Kind.METHOD_CALL.check(object) && typeUtils.isImportedOrSuper(typeUtils.getExprType(object.getChild(0),currentMethod)) && !typeUtils.belongsToMainClass(object,currentMethod);
 
         if(typeUtils.acessFieldInStaticMethod(object,currentMethod)){
             addReport(Report.newError(
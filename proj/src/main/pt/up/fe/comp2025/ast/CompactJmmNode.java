@@ -0,0 +1,279 @@
+package pt.up.fe.comp2025.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.specs.util.SpecsCheck;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A JmmNode that keeps its kind and its most common attributes in typed fields, the node the parsers build.
+ * <p>
+ * The kind is resolved to a {@link Kind} once, when the node is created, and nodes with the same hierarchy share the
+ * list. The position (lineStart, colStart, lineEnd and colEnd) is kept as ints, the "op" attribute as an
+ * {@link Operator}, and "name" and "value" as interned strings, with the value of integer literals also parsed to an
+ * int. The other attributes, and values of other types, go to the map of JmmNodeImpl, which stays empty in most nodes.
+ * <p>
+ * Through the JmmNode interface the node behaves like a JmmNodeImpl, the typed attributes are read and written as
+ * strings. {@link Kind#of(JmmNode)}, {@link Operator#of(JmmNode)} and {@link #intValueOf(JmmNode)} read the typed
+ * fields directly, and also accept other nodes.
+ */
+public class CompactJmmNode extends JmmNodeImpl {
+
+    // Read-only once computed, can be safely shared between threads
+    private static final Map<List<String>, Shape> shapes = new ConcurrentHashMap<>();
+
+    // The attributes kept in fields, in the order they are listed
+    private static final String[] TYPED_ATTRIBUTES = {"lineStart", "colStart", "lineEnd", "colEnd", "name", "value",
+            "op"};
+
+    private final Shape shape;
+
+    // -1 if not set
+    private int lineStart = -1;
+    private int colStart = -1;
+    private int lineEnd = -1;
+    private int colEnd = -1;
+
+    private String name;
+    private String value;
+    private Operator op;
+
+    // Only if the node is an integer literal and the value fits an int
+    private boolean hasIntValue;
+    private int intValue;
+
+    public CompactJmmNode(List<String> kindHierarchy) {
+        super(kindHierarchy);
+
+        this.shape = shapes.computeIfAbsent(List.copyOf(kindHierarchy), Shape::new);
+        this.hierarchy = shape.hierarchy;
+    }
+
+    /**
+     * @param node any node
+     * @return the value of an integer literal
+     */
+    public static int intValueOf(JmmNode node) {
+        if (node instanceof CompactJmmNode compact && compact.hasIntValue) {
+            return compact.intValue;
+        }
+
+        return Integer.parseInt(node.get("value"));
+    }
+
+    /**
+     * @return the kind of the node, or null if it is not one of {@link Kind}
+     */
+    public Kind getNodeKind() {
+        return shape.kind;
+    }
+
+    /**
+     * @return true if the kind is in the hierarchy of the node
+     */
+    public boolean isKind(Kind kind) {
+        return (shape.kinds & (1L << kind.ordinal())) != 0;
+    }
+
+    /**
+     * @return the "name" attribute, or null if the node does not have one
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the "op" attribute, or null if the node does not have one
+     */
+    public Operator getOperator() {
+        return op;
+    }
+
+    public void setStart(int line, int column) {
+        this.lineStart = line;
+        this.colStart = column;
+    }
+
+    public void setEnd(int line, int column) {
+        this.lineEnd = line;
+        this.colEnd = column;
+    }
+
+    @Override
+    public int getLine() {
+        return lineStart >= 0 ? lineStart : super.getLine();
+    }
+
+    @Override
+    public int getColumn() {
+        return colStart >= 0 ? colStart : super.getColumn();
+    }
+
+    @Override
+    public boolean isInstance(Object kind) {
+        if (kind instanceof Kind nodeKind) {
+            return isKind(nodeKind);
+        }
+
+        return super.isInstance(kind);
+    }
+
+    @Override
+    public JmmNode copy(List<String> kindHierarchy) {
+        var copy = new CompactJmmNode(kindHierarchy);
+
+        for (var attr : this.getAttributes()) {
+            copy.put(attr, this.get(attr));
+        }
+
+        return copy;
+    }
+
+    @Override
+    public Collection<String> getAttributes() {
+        var attributes = new ArrayList<String>();
+
+        for (var attribute : TYPED_ATTRIBUTES) {
+            if (hasTyped(attribute)) {
+                attributes.add(attribute);
+            }
+        }
+        attributes.addAll(super.getAttributes());
+
+        return attributes;
+    }
+
+    @Override
+    public boolean hasAttribute(String attribute) {
+        return hasTyped(attribute) || getAttributesMap().containsKey(attribute);
+    }
+
+    @Override
+    public Object getObject(String attribute) {
+        var typed = getTyped(attribute);
+        return typed != null ? typed : super.getObject(attribute);
+    }
+
+    @Override
+    public Object putObject(String attribute, Object value) {
+        var previous = hasAttribute(attribute) ? getObject(attribute) : null;
+
+        // A value that does not fit the field goes to the map, an attribute is never in both
+        if (setTyped(attribute, value)) {
+            getAttributesMap().remove(attribute);
+        } else {
+            getAttributesMap().put(attribute, value);
+        }
+
+        return previous;
+    }
+
+    private boolean hasTyped(String attribute) {
+        return switch (attribute) {
+            case "lineStart" -> lineStart >= 0;
+            case "colStart" -> colStart >= 0;
+            case "lineEnd" -> lineEnd >= 0;
+            case "colEnd" -> colEnd >= 0;
+            case "name" -> name != null;
+            case "value" -> value != null;
+            case "op" -> op != null;
+            default -> false;
+        };
+    }
+
+    private Object getTyped(String attribute) {
+        return switch (attribute) {
+            case "lineStart" -> lineStart >= 0 ? Integer.toString(lineStart) : null;
+            case "colStart" -> colStart >= 0 ? Integer.toString(colStart) : null;
+            case "lineEnd" -> lineEnd >= 0 ? Integer.toString(lineEnd) : null;
+            case "colEnd" -> colEnd >= 0 ? Integer.toString(colEnd) : null;
+            case "name" -> name;
+            case "value" -> value;
+            case "op" -> op != null ? op.getSymbol() : null;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return true if the value was stored in a field, false if it does not fit one and the field was cleared
+     */
+    private boolean setTyped(String attribute, Object value) {
+        var text = value instanceof String string ? string : null;
+
+        switch (attribute) {
+            case "lineStart" -> lineStart = toPosition(text);
+            case "colStart" -> colStart = toPosition(text);
+            case "lineEnd" -> lineEnd = toPosition(text);
+            case "colEnd" -> colEnd = toPosition(text);
+            case "name" -> name = text == null ? null : text.intern();
+            case "value" -> setValue(text);
+            case "op" -> op = text == null ? null : Operator.find(text);
+            default -> {
+                return false;
+            }
+        }
+
+        return hasTyped(attribute);
+    }
+
+    private void setValue(String text) {
+        this.value = text == null ? null : text.intern();
+        this.hasIntValue = false;
+
+        if (text != null && shape.kind == Kind.INTEGER_LITERAL) {
+            try {
+                this.intValue = Integer.parseInt(text);
+                this.hasIntValue = true;
+            } catch (NumberFormatException e) {
+                // Out of range, read as a string
+            }
+        }
+    }
+
+    private static int toPosition(String text) {
+        if (text == null) {
+            return -1;
+        }
+
+        try {
+            return Math.max(-1, Integer.parseInt(text));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The hierarchy shared by the nodes with the same kinds, and its kinds resolved to {@link Kind}.
+     */
+    private static class Shape {
+
+        private final List<String> hierarchy;
+        private final Kind kind;
+        // Bit of the ordinal of each Kind in the hierarchy
+        private final long kinds;
+
+        static {
+            SpecsCheck.checkArgument(Kind.values().length <= Long.SIZE,
+                    () -> "The kinds of a shape are a long, which cannot hold " + Kind.values().length + " kinds");
+        }
+
+        Shape(List<String> hierarchy) {
+            this.hierarchy = hierarchy;
+            this.kind = Kind.find(hierarchy.get(0));
+
+            long kinds = 0;
+            for (var nodeName : hierarchy) {
+                var nodeKind = Kind.find(nodeName);
+                if (nodeKind != null) {
+                    kinds |= 1L << nodeKind.ordinal();
+                }
+            }
+            this.kinds = kinds;
+        }
+    }
+}
@@ -5,7 +5,9 @@ import pt.up.fe.specs.util.SpecsStrings;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -45,6 +47,15 @@ public enum Kind {
     NEW_ARRAY;
 
 
+    // By node name, Kind.of looks up the kind of nodes that are not CompactJmmNodes
+    private static final Map<String, Kind> byNodeName = new HashMap<>();
+
+    static {
+        for (Kind k : Kind.values()) {
+            byNodeName.put(k.getNodeName(), k);
+        }
+    }
+
     private final String name;
 
     private Kind(String name) {
@@ -56,13 +67,33 @@ public enum Kind {
     }
 
     public static Kind fromString(String kind) {
+        var k = find(kind);
+        if (k == null) {
+            throw new RuntimeException("Could not convert string '" + kind + "' to a Kind");
+        }
 
-        for (Kind k : Kind.values()) {
-            if (k.getNodeName().equals(kind)) {
-                return k;
-            }
+        return k;
+    }
+
+    /**
+     * @return the kind with the node name, or null if there is none
+     */
+    static Kind find(String kind) {
+        return byNodeName.get(kind);
+    }
+
+    /**
+     * The kind of the node, without comparing strings if it is a {@link CompactJmmNode}.
+     *
+     * @param node
+     * @return the kind, or null if the node is not of any of the kinds
+     */
+    public static Kind of(JmmNode node) {
+        if (node instanceof CompactJmmNode compact) {
+            return compact.getNodeKind();
         }
-        throw new RuntimeException("Could not convert string '" + kind + "' to a Kind");
+
+        return find(node.getKind());
     }
 
     public static List<String> toNodeName(Kind firstKind, Kind... otherKinds) {
@@ -92,6 +123,10 @@ public enum Kind {
      * @return
      */
     public boolean check(JmmNode node) {
+        if (node instanceof CompactJmmNode compact) {
+            return compact.isKind(this);
+        }
+
         return node.isInstance(this);
     }
 
@@ -0,0 +1,56 @@
+package pt.up.fe.comp2025.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The visit methods of a visitor indexed by the ordinal of the {@link Kind} of the node.
+ * <p>
+ * AJmmVisitor finds the visit method of a node by looking up each kind of its hierarchy in a map of strings, on every
+ * visit. A visitor can instead look up the method once per kind by overriding getVisit:
+ *
+ * <pre>
+ * protected BiFunction&lt;JmmNode, D, R&gt; getVisit(JmmNode node) {
+ *     return dispatch.getVisit(node, super::getVisit);
+ * }
+ * </pre>
+ * <p>
+ * The kind of a node determines the rest of its hierarchy (the rule of the grammar it belongs to), so every node of a
+ * kind has the same visit method. Nodes of other kinds are not cached. A visitor that adds visit methods after its
+ * first visit (addVisit and setDefaultVisit) must also clear the dispatch.
+ */
+public class KindDispatch<D, R> {
+
+    private final List<BiFunction<JmmNode, D, R>> visits;
+
+    public KindDispatch() {
+        this.visits = new ArrayList<>(Collections.nCopies(Kind.values().length, null));
+    }
+
+    /**
+     * @param lookup finds the visit method of a node the first time its kind is visited
+     * @return the visit method of the kind of the node
+     */
+    public BiFunction<JmmNode, D, R> getVisit(JmmNode node, Function<JmmNode, BiFunction<JmmNode, D, R>> lookup) {
+        var kind = Kind.of(node);
+        if (kind == null) {
+            return lookup.apply(node);
+        }
+
+        var visit = visits.get(kind.ordinal());
+        if (visit == null) {
+            visit = lookup.apply(node);
+            visits.set(kind.ordinal(), visit);
+        }
+        return visit;
+    }
+
+    public void clear() {
+        Collections.fill(visits, null);
+    }
+}
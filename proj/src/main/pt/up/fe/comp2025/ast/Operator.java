@@ -0,0 +1,72 @@
+package pt.up.fe.comp2025.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+/**
+ * Enum of the operators of binary expressions, the "op" attribute of {@link Kind#BINARY_EXPR} nodes.
+ */
+public enum Operator {
+    MUL("*"),
+    DIV("/"),
+    ADD("+"),
+    SUB("-"),
+    LT("<"),
+    GT(">"),
+    AND("&&");
+
+    private final String symbol;
+
+    private Operator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public static Operator fromSymbol(String symbol) {
+        var operator = find(symbol);
+        if (operator == null) {
+            throw new RuntimeException("Could not convert string '" + symbol + "' to an Operator");
+        }
+
+        return operator;
+    }
+
+    /**
+     * @return the operator with the symbol, or null if there is none
+     */
+    static Operator find(String symbol) {
+        for (var operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param node a binary expression
+     * @return the operator of the expression
+     */
+    public static Operator of(JmmNode node) {
+        if (node instanceof CompactJmmNode compact && compact.getOperator() != null) {
+            return compact.getOperator();
+        }
+
+        return fromSymbol(node.get("op"));
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @return true if the operator takes and returns integers, false if it returns a boolean
+     */
+    public boolean isArithmetic() {
+        return this == MUL || this == DIV || this == ADD || this == SUB;
+    }
+
+    @Override
+    public String toString() {
+        return getSymbol();
+    }
+}
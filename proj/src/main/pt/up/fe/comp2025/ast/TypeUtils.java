@@ -77,51 +77,24 @@ public class TypeUtils {
      * @return
      */
     public Type getExprType(JmmNode expr,String currentMethod) {
-        if( expr.getKind().equals("BinaryExpr")){
-            var operator = expr.get("op");
-            if(operator.equals("+") || operator.equals("-") || operator.equals("/") || operator.equals("*") ) {
-                return newIntType();
-            }
-            if( operator.equals(">") || operator.equals("<") || operator.equals("&&")){
-                return newBooleanType();
-            }
-
-        }
-        if( expr.getKind().equals("VarRefExpr")){
-            return getVarRefType(expr.get("name"), currentMethod);
-
-        }
-        if (expr.getKind().equals("Paren")) {
-            return getExprType(expr.getChild(0), currentMethod);
-        }
-        if( expr.getKind().equals("IntegerLiteral") || expr.getKind().equals("ArrayLength")){
-            return newIntType();
-        }
-        if( expr.getKind().equals("This")){
-            return newSingleObject(table.getClassName());
-        }
-        if( expr.getKind().equals("BooleanLiteral")){
-            return newBooleanType();
+        var kind = Kind.of(expr);
+        if (kind == null) {
+            return null;
         }
-        if(expr.getKind().equals("Not")){
-            return newBooleanType();
-        }
-        if(expr.getKind().equals("ArrayInit") || expr.getKind().equals("NewArray")){
-            return new Type("int",true);
-        }
-        if( expr.getKind().equals("ArrayAccess")){
-            return newSingleObject(getExprType(expr.getChild(0),currentMethod).getName());
-        }
-        if(expr.getKind().equals("MethodCall")){
-            return table.getReturnType(expr.get("name"));
-        }
-        if(expr.getKind().equals("NewClass")){
-            return newSingleObject(expr.get("name"));
-        }
-
-        return null;
-
 
+        return switch (kind) {
+            case BINARY_EXPR -> Operator.of(expr).isArithmetic() ? newIntType() : newBooleanType();
+            case VAR_REF_EXPR -> getVarRefType(expr.get("name"), currentMethod);
+            case PAREN -> getExprType(expr.getChild(0), currentMethod);
+            case INTEGER_LITERAL, ARRAY_LENGTH -> newIntType();
+            case THIS -> newSingleObject(table.getClassName());
+            case BOOLEAN_LITERAL, NOT -> newBooleanType();
+            case ARRAY_INIT, NEW_ARRAY -> new Type("int",true);
+            case ARRAY_ACCESS -> newSingleObject(getExprType(expr.getChild(0),currentMethod).getName());
+            case METHOD_CALL -> table.getReturnType(expr.get("name"));
+            case NEW_CLASS -> newSingleObject(expr.get("name"));
+            default -> null;
+        };
     }
 
     public Type getVarRefType(String varRef, String currentMethod) {
@@ -185,7 +158,7 @@ public class TypeUtils {
     }
 
     public boolean acessFieldInStaticMethod (JmmNode node, String currentMethod) {
-        if (node.getKind().equals("VarRefExpr")) {
+        if (Kind.VAR_REF_EXPR.check(node)) {
             String varName = node.get("name");
             Symbol symbol = new Symbol(getVarRefType(varName, currentMethod), varName);
             JmmNode method = node.getAncestor(METHOD_DECL).orElse(null);
@@ -0,0 +1,157 @@
+package pt.up.fe.comp2025.backend;
+
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.BinaryOpInstruction;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import org.specs.comp.ollir.inst.SingleOpInstruction;
+import org.specs.comp.ollir.inst.UnaryOpInstruction;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the booleans of a method that are only computed to be tested by the branch right after them, e.g.
+ * <p>
+ * tmp0.bool :=.bool i.i32 &lt;.bool n.i32;<br>
+ * if (!.bool tmp0.bool) goto endif0;
+ * <p>
+ * The assignments of these booleans are not generated, the branch evaluates their value itself, which lets a
+ * comparison jump directly to the target instead of computing 0 or 1, storing it and loading it back.
+ */
+public class BranchConditions {
+
+    // Value of each fused boolean, by name
+    private final Map<String, Instruction> conditions;
+
+    private final Set<Instruction> fusedAssigns;
+
+    public BranchConditions(Method method) {
+        this.conditions = new HashMap<>();
+        this.fusedAssigns = new HashSet<>();
+
+        findFusedAssigns(method);
+    }
+
+    /**
+     * @return true if the instruction assigns a boolean that is computed by the branch that follows it instead
+     */
+    public boolean isFused(Instruction instruction) {
+        return fusedAssigns.contains(instruction);
+    }
+
+    /**
+     * @return the value of a fused boolean, or null if the element is not one
+     */
+    public Instruction getCondition(Element element) {
+        return element instanceof Operand operand && !(operand instanceof ArrayOperand) ?
+                conditions.get(operand.getName()) : null;
+    }
+
+    /**
+     * @return true if the variable is a boolean computed by a branch, never stored in its local
+     */
+    public boolean isComputedByBranch(String name) {
+        return conditions.containsKey(name);
+    }
+
+    /**
+     * @return true if the operation negates a boolean
+     */
+    public static boolean isNot(UnaryOpInstruction unaryOp) {
+        var opType = unaryOp.getOperation().getOpType();
+        return opType == OperationType.NOTB || opType == OperationType.NOT;
+    }
+
+    /**
+     * @return true if the binary operation is a comparison that can jump directly
+     */
+    public static boolean isComparison(BinaryOpInstruction binaryOp) {
+        return binaryOp.getOperation().getOpType().isConditional();
+    }
+
+    private void findFusedAssigns(Method method) {
+        var instructions = method.getInstructions();
+        var references = countReferences(method);
+
+        for (int i = 0; i < instructions.size(); i++) {
+            if (!(instructions.get(i) instanceof CondBranchInstruction branch)) {
+                continue;
+            }
+
+            // Goes back while each boolean tested is the one assigned by the instruction just before
+            var tested = getTestedElement(branch.getCondition());
+            int previous = i - 1;
+
+            while (previous >= 0 && tested instanceof Operand operand && !(operand instanceof ArrayOperand)
+                    // A jump to the instruction after the assignment would skip computing the value
+                    && method.getLabels(instructions.get(previous + 1)).isEmpty()
+                    && isSingleUseAssign(instructions.get(previous), operand, references)) {
+
+                var assign = (AssignInstruction) instructions.get(previous);
+                fusedAssigns.add(assign);
+                conditions.put(operand.getName(), assign.getRhs());
+
+                tested = getTestedElement(assign.getRhs());
+                previous--;
+            }
+        }
+    }
+
+    /**
+     * @return the boolean a condition tests, directly or negated, or null if it computes it (e.g. a comparison)
+     */
+    private static Element getTestedElement(Instruction condition) {
+        if (condition instanceof SingleOpInstruction singleOp) {
+            return singleOp.getSingleOperand();
+        }
+
+        if (condition instanceof UnaryOpInstruction unaryOp && isNot(unaryOp)) {
+            return unaryOp.getOperand();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return true if the instruction assigns a condition to the operand, which is read nowhere else
+     */
+    private static boolean isSingleUseAssign(Instruction instruction, Operand operand, Map<String, Integer> references) {
+        if (!(instruction instanceof AssignInstruction assign)
+                || !(assign.getDest() instanceof Operand dest)
+                || dest instanceof ArrayOperand
+                || !dest.getName().equals(operand.getName())) {
+            return false;
+        }
+
+        var rhs = assign.getRhs();
+        var isCondition = getTestedElement(rhs) != null
+                || rhs instanceof BinaryOpInstruction binaryOp && isComparison(binaryOp);
+
+        // The assignment and the test
+        return isCondition && references.getOrDefault(operand.getName(), 0) == 2;
+    }
+
+    /**
+     * @return how many times each variable is referenced in the method, assigned or read
+     */
+    static Map<String, Integer> countReferences(Method method) {
+        var references = new HashMap<String, Integer>();
+
+        for (var instruction : method.getInstructions()) {
+            instruction.getDescendantsAndSelfStream()
+                    .filter(node -> node instanceof Operand)
+                    .map(node -> ((Operand) node).getName())
+                    .forEach(name -> references.merge(name, 1, Integer::sum));
+        }
+
+        return references;
+    }
+}
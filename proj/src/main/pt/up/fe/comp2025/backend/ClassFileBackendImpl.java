@@ -0,0 +1,40 @@
+package pt.up.fe.comp2025.backend;
+
+import pt.up.fe.comp.jmm.jasmin.JasminBackend;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilationContext;
+
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.JASMIN;
+
+/**
+ * Backend that writes the class file directly, instead of generating Jasmin code and assembling it.
+ */
+public class ClassFileBackendImpl implements JasminBackend {
+
+    private final CompilationContext context;
+
+    public ClassFileBackendImpl() {
+        this(null);
+    }
+
+    /**
+     * @param context the context of the compilation, or null to use a new context in each call
+     */
+    public ClassFileBackendImpl(CompilationContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public JasminResult toJasmin(OllirResult ollirResult) {
+
+        var compilationContext = context != null ? context : new CompilationContext(ollirResult.getConfig());
+        var classFileGenerator = new ClassFileGenerator(ollirResult, compilationContext);
+        var classFile = compilationContext.getMetrics().pass("ClassFileGenerator", classFileGenerator::build);
+
+        compilationContext.getTrace().debug(JASMIN, () -> "Generated class file with " + classFile.length + " bytes");
+
+        return new ClassFileResult(ollirResult, classFile, classFileGenerator.getReports());
+    }
+
+}
@@ -0,0 +1,142 @@
+package pt.up.fe.comp2025.backend;
+
+import org.specs.comp.ollir.AccessModifier;
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Method;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.backend.classfile.ClassFileWriter;
+import pt.up.fe.comp2025.backend.classfile.CodeBuilder;
+import pt.up.fe.comp2025.backend.peephole.PeepholeOptimizer;
+
+import java.util.List;
+
+import static pt.up.fe.comp2025.backend.classfile.Opcodes.*;
+
+/**
+ * Generates a class file from an OllirResult, without going through Jasmin.
+ * <p>
+ * The {@link InstructionSelector} selects the same instructions as for {@link JasminGenerator}, but they are written
+ * directly with a {@link CodeBuilder}, which computes the stack limit and the StackMapTable frames.
+ * <p>
+ * When enabled, the {@link PeepholeOptimizer} rewrites the instructions of each method in their Jasmin form before
+ * they are written, the same as for {@link JasminGenerator}.
+ * <p>
+ * One ClassFileGenerator instance per OllirResult.
+ */
+public class ClassFileGenerator {
+
+    private final OllirResult ollirResult;
+
+    private byte[] classFile;
+
+    private String className;
+
+    private final JasminUtils jasminUtils;
+
+    private final CompilationContext context;
+
+    private final PeepholeOptimizer peephole;
+
+    public ClassFileGenerator(OllirResult ollirResult, CompilationContext context) {
+        this.ollirResult = ollirResult;
+
+        classFile = null;
+
+        jasminUtils = new JasminUtils(ollirResult);
+        this.context = context;
+        this.peephole = new PeepholeOptimizer(CompilerConfig.getPeephole(context.getConfig()));
+    }
+
+    /**
+     * @return no reports, the class file backend has none of its own
+     */
+    public List<Report> getReports() {
+        return List.of();
+    }
+
+    public byte[] build() {
+
+        // This way, build is idempotent
+        if (classFile == null) {
+            classFile = generateClassUnit(ollirResult.getOllirClass());
+
+            if (peephole.isEnabled()) {
+                peephole.report(context, className);
+            }
+        }
+
+        return classFile;
+    }
+
+    private byte[] generateClassUnit(ClassUnit classUnit) {
+        className = classUnit.getClassName();
+
+        var superClass = classUnit.getSuperClass() != null ? jasminUtils.getClassPath(classUnit.getSuperClass()) :
+                "java/lang/Object";
+
+        var writer = new ClassFileWriter(ACC_PUBLIC | ACC_SUPER, className, superClass);
+
+        for (var field : classUnit.getFields()) {
+            writer.addField(getAccessFlags(field.getFieldAccessModifier()), field.getFieldName(),
+                    JasminUtils.convertType(field.getFieldType()));
+        }
+
+        // A single constructor that receives no arguments
+        var constructor = writer.addMethod(ACC_PUBLIC, "<init>", "()V");
+        constructor.local(ALOAD, 0);
+        constructor.invoke(INVOKESPECIAL, superClass, "<init>", "()V");
+        constructor.op(RETURN);
+
+        for (var method : classUnit.getMethods()) {
+            if (method.isConstructMethod()) {
+                continue;
+            }
+
+            generateMethod(method, writer);
+        }
+
+        return writer.toByteArray();
+    }
+
+    private void generateMethod(Method method, ClassFileWriter writer) {
+        var access = getAccessFlags(method.getMethodAccessModifier());
+        if (method.isStaticMethod()) {
+            access |= ACC_STATIC;
+        }
+
+        var code = writer.addMethod(access, method.getMethodName(), getDescriptor(method));
+        if (!peephole.isEnabled()) {
+            new InstructionSelector<CodeBuilder.Label>(method, className, jasminUtils).generate(code);
+            return;
+        }
+
+        // The rules rewrite Jasmin instructions, which are then emitted into the class file
+        var instructions = new StringBuilder();
+        new InstructionSelector<String>(method, className, jasminUtils)
+                .generate(new JasminEmitter(new JasminWriter(instructions)));
+
+        var optimized = JasminInstruction.parse(instructions);
+        peephole.optimize(optimized);
+        JasminEmitter.emit(optimized, code);
+    }
+
+    private static int getAccessFlags(AccessModifier accessModifier) {
+        return switch (accessModifier) {
+            case PUBLIC -> ACC_PUBLIC;
+            case PRIVATE -> ACC_PRIVATE;
+            case PROTECTED -> ACC_PROTECTED;
+            case DEFAULT -> 0;
+        };
+    }
+
+    private static String getDescriptor(Method method) {
+        var descriptor = new StringBuilder("(");
+        for (var param : method.getParams()) {
+            descriptor.append(JasminUtils.convertType(param.getType()));
+        }
+        return descriptor.append(")").append(JasminUtils.convertType(method.getReturnType())).toString();
+    }
+}
@@ -0,0 +1,50 @@
+package pt.up.fe.comp2025.backend;
+
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.report.Report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Result of the class file backend. There is no Jasmin code to assemble, compiling writes the generated class file.
+ */
+public class ClassFileResult extends JasminResult {
+
+    public static final String NO_JASMIN_CODE = "; Class file generated without Jasmin";
+
+    private final byte[] classFile;
+
+    public ClassFileResult(OllirResult ollirResult, byte[] classFile, List<Report> reports) {
+        super(ollirResult, NO_JASMIN_CODE, reports);
+        this.classFile = classFile;
+    }
+
+    public byte[] getClassFile() {
+        return classFile;
+    }
+
+    /**
+     * Writes the generated class file.
+     *
+     * @param outputDir the folder where the class file will written
+     * @return a reference to the .class file
+     */
+    @Override
+    public File compile(File outputDir) {
+        var file = new File(outputDir, getClassName() + ".class");
+
+        try {
+            Files.createDirectories(outputDir.toPath());
+            Files.write(file.toPath(), classFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return file;
+    }
+}
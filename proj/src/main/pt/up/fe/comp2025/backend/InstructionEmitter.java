@@ -0,0 +1,56 @@
+package pt.up.fe.comp2025.backend;
+
+import pt.up.fe.comp2025.backend.classfile.Opcodes;
+
+/**
+ * Output of the {@link InstructionSelector}. The instructions are given by their {@link Opcodes}, and each backend
+ * writes them in its own format: {@link JasminEmitter} as Jasmin code, and
+ * {@link pt.up.fe.comp2025.backend.classfile.CodeBuilder} as the bytes of a class file.
+ *
+ * @param <L> the labels of the backend
+ */
+public interface InstructionEmitter<L> {
+
+    /**
+     * @param name a label of the OLLIR code, or one made up by the selector
+     * @return the label with the given name, the same one every time it is asked for in the method
+     */
+    L label(String name);
+
+    /**
+     * Places the label before the next instruction.
+     */
+    void mark(L label);
+
+    /**
+     * Instructions without operands, e.g. iadd, arraylength or ireturn.
+     */
+    void op(int opcode);
+
+    /**
+     * Pushes an int constant with the shortest instruction for it.
+     */
+    void pushInt(int value);
+
+    /**
+     * @param opcode ILOAD, ALOAD, ISTORE or ASTORE
+     * @param local  index of the local
+     */
+    void local(int opcode, int local);
+
+    void iinc(int local, int increment);
+
+    /**
+     * @param opcode a conditional branch or GOTO
+     * @param target
+     */
+    void jump(int opcode, L target);
+
+    void field(int opcode, String owner, String name, String fieldDescriptor);
+
+    void invoke(int opcode, String owner, String name, String methodDescriptor);
+
+    void newObject(String internalName);
+
+    void newIntArray();
+}
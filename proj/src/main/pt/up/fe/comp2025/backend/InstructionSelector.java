@@ -0,0 +1,443 @@
+package pt.up.fe.comp2025.backend;
+
+import org.specs.comp.ollir.*;
+import org.specs.comp.ollir.inst.*;
+import org.specs.comp.ollir.tree.TreeNode;
+import org.specs.comp.ollir.type.ArrayType;
+import org.specs.comp.ollir.type.BuiltinKind;
+import org.specs.comp.ollir.type.BuiltinType;
+import org.specs.comp.ollir.type.ClassType;
+import org.specs.comp.ollir.type.Type;
+import pt.up.fe.specs.util.classmap.BiConsumerClassMap;
+import pt.up.fe.specs.util.exceptions.NotImplementedException;
+
+import static pt.up.fe.comp2025.backend.classfile.Opcodes.*;
+
+/**
+ * Selects the instructions of a method, for both the {@link JasminGenerator} and the {@link ClassFileGenerator}. The
+ * backends only differ in how they write the instructions, which is up to their {@link InstructionEmitter}.
+ * <p>
+ * One InstructionSelector per method.
+ *
+ * @param <L> the labels of the backend
+ */
+public class InstructionSelector<L> {
+
+    private final Method method;
+
+    private final String className;
+
+    private final JasminUtils jasminUtils;
+
+    // Booleans of the method that are computed by the branch that tests them
+    private final BranchConditions branchConditions;
+
+    // Variables of the method whose value is left on the stack for the instruction that reads it
+    private final StackTemporaries stackTemporaries;
+
+    // Comparisons that produce a boolean, for the names of their labels
+    private int compareIdx;
+
+    private final BiConsumerClassMap<TreeNode, InstructionEmitter<L>> generators;
+
+    public InstructionSelector(Method method, String className, JasminUtils jasminUtils) {
+        this.method = method;
+        this.className = className;
+        this.jasminUtils = jasminUtils;
+        this.branchConditions = new BranchConditions(method);
+        this.stackTemporaries = new StackTemporaries(method, branchConditions);
+        this.compareIdx = 0;
+
+        this.generators = new BiConsumerClassMap<>();
+        generators.put(AssignInstruction.class, this::generateAssign);
+        generators.put(SingleOpInstruction.class, this::generateSingleOp);
+        generators.put(LiteralElement.class, this::generateLiteral);
+        generators.put(ArrayOperand.class, this::generateArrayOperand);
+        generators.put(Operand.class, this::generateOperand);
+        generators.put(BinaryOpInstruction.class, this::generateBinaryOp);
+        generators.put(UnaryOpInstruction.class, this::generateUnaryOp);
+        generators.put(ReturnInstruction.class, this::generateReturn);
+        generators.put(GetFieldInstruction.class, this::generateGetField);
+        generators.put(PutFieldInstruction.class, this::generatePutField);
+        generators.put(CallInstruction.class, this::generateCallInstruction);
+        generators.put(CondBranchInstruction.class, this::generateCondBranch);
+        generators.put(GotoInstruction.class, this::generateGoto);
+    }
+
+    private void apply(TreeNode node, InstructionEmitter<L> code) {
+        generators.accept(node, code);
+    }
+
+    /**
+     * Emits the instructions of the method, with their labels.
+     */
+    public void generate(InstructionEmitter<L> code) {
+        for (var inst : method.getInstructions()) {
+            for (var label : method.getLabels(inst)) {
+                code.mark(code.label(label));
+            }
+
+            if (branchConditions.isFused(inst) || stackTemporaries.isFused(inst)) {
+                continue;
+            }
+
+            apply(inst, code);
+        }
+    }
+
+    /**
+     * @return true if the variable never uses its local, because it is left on the stack or computed by a branch
+     */
+    public boolean isLocalUnused(String variable) {
+        return stackTemporaries.isStackResident(variable) || branchConditions.isComputedByBranch(variable);
+    }
+
+    private static boolean isReference(Type type) {
+        return !(type instanceof BuiltinType builtin) || builtin.getKind() == BuiltinKind.STRING;
+    }
+
+    private Descriptor getVariable(Operand operand) {
+        var variable = method.getVarTable().get(operand.getName());
+
+        if (variable == null) {
+            throw new RuntimeException("Variable '" + operand.getName() + "' is not in the var table of method '"
+                    + method.getMethodName() + "'");
+        }
+
+        return variable;
+    }
+
+    private void generateAssign(AssignInstruction assign, InstructionEmitter<L> code) {
+        var lhs = assign.getDest();
+        var rhs = assign.getRhs();
+
+        if (!(lhs instanceof Operand dest)) {
+            throw new NotImplementedException(lhs.getClass());
+        }
+
+        // Array element, the array and the index go below the value
+        if (dest instanceof ArrayOperand arrayDest) {
+            code.local(ALOAD, getVariable(arrayDest).getVirtualReg());
+            apply(arrayDest.getIndexOperands().getFirst(), code);
+            // The value reads the same element
+            if (stackTemporaries.isElementUpdate(assign)) {
+                code.op(DUP2);
+            }
+            apply(rhs, code);
+            code.op(IASTORE);
+            return;
+        }
+
+        var reg = getVariable(dest).getVirtualReg();
+
+        if (generateIncrement(reg, rhs, code)) {
+            return;
+        }
+
+        apply(rhs, code);
+        code.local(isReference(getVariable(dest).getVarType()) ? ASTORE : ISTORE, reg);
+    }
+
+    /**
+     * Uses iinc for 'a = a + c', 'a = c + a' and 'a = a - c'.
+     *
+     * @return true if the assignment was generated
+     */
+    private boolean generateIncrement(int reg, Instruction rhs, InstructionEmitter<L> code) {
+        if (!(rhs instanceof BinaryOpInstruction binaryOp)) {
+            return false;
+        }
+
+        var opType = binaryOp.getOperation().getOpType();
+        var left = binaryOp.getLeftOperand();
+        var right = binaryOp.getRightOperand();
+
+        Integer increment = null;
+        if (opType == OperationType.ADD && left instanceof LiteralElement literal && isOperandInRegister(right, reg)) {
+            increment = Integer.parseInt(literal.getLiteral());
+        } else if (opType == OperationType.ADD && right instanceof LiteralElement literal
+                && isOperandInRegister(left, reg)) {
+            increment = Integer.parseInt(literal.getLiteral());
+        } else if (opType == OperationType.SUB && right instanceof LiteralElement literal
+                && isOperandInRegister(left, reg)) {
+            increment = -Integer.parseInt(literal.getLiteral());
+        }
+
+        if (increment == null || increment < Short.MIN_VALUE || increment > Short.MAX_VALUE) {
+            return false;
+        }
+
+        code.iinc(reg, increment);
+        return true;
+    }
+
+    private boolean isOperandInRegister(Element element, int reg) {
+        return element instanceof Operand operand && !(operand instanceof ArrayOperand)
+                && stackTemporaries.getValue(operand) == null
+                && method.getVarTable().containsKey(operand.getName())
+                && getVariable(operand).getVirtualReg() == reg;
+    }
+
+    private void generateSingleOp(SingleOpInstruction singleOp, InstructionEmitter<L> code) {
+        // The array and the index were duplicated by the store
+        if (stackTemporaries.isDuplicatedRead(singleOp)) {
+            code.op(IALOAD);
+            return;
+        }
+
+        apply(singleOp.getSingleOperand(), code);
+    }
+
+    private void generateLiteral(LiteralElement literal, InstructionEmitter<L> code) {
+        code.pushInt(Integer.parseInt(literal.getLiteral()));
+    }
+
+    private void generateOperand(Operand operand, InstructionEmitter<L> code) {
+        // A value that was left on the stack is computed here
+        var value = stackTemporaries.getValue(operand);
+        if (value != null) {
+            apply(value, code);
+            return;
+        }
+
+        if (operand.getType() instanceof ClassType classType) {
+            switch (classType.getKind()) {
+                case THIS -> {
+                    code.local(ALOAD, 0);
+                    return;
+                }
+                // Caller of a static method, nothing to load
+                case CLASS -> {
+                    return;
+                }
+                default -> {
+                }
+            }
+        }
+
+        var variable = getVariable(operand);
+        code.local(isReference(variable.getVarType()) ? ALOAD : ILOAD, variable.getVirtualReg());
+    }
+
+    private void generateArrayOperand(ArrayOperand operand, InstructionEmitter<L> code) {
+        code.local(ALOAD, getVariable(operand).getVirtualReg());
+        apply(operand.getIndexOperands().getFirst(), code);
+        code.op(IALOAD);
+    }
+
+    private void generateBinaryOp(BinaryOpInstruction binaryOp, InstructionEmitter<L> code) {
+        var opType = binaryOp.getOperation().getOpType();
+
+        if (opType.isConditional()) {
+            // Comparisons produce 0 or 1
+            var labelIdx = compareIdx++;
+            var isTrue = code.label("j_true_" + labelIdx);
+            var end = code.label("j_end_" + labelIdx);
+            generateComparison(binaryOp, false, isTrue, code);
+            code.op(ICONST_0);
+            code.jump(GOTO, end);
+            code.mark(isTrue);
+            code.op(ICONST_1);
+            code.mark(end);
+            return;
+        }
+
+        // The right operand is computed first, it stays on the stack
+        if (stackTemporaries.isSwapped(binaryOp)) {
+            apply(binaryOp.getRightOperand(), code);
+            apply(binaryOp.getLeftOperand(), code);
+        } else {
+            apply(binaryOp.getLeftOperand(), code);
+            apply(binaryOp.getRightOperand(), code);
+        }
+
+        code.op(switch (opType) {
+            case ADD -> IADD;
+            case SUB -> ISUB;
+            case MUL -> IMUL;
+            case DIV -> IDIV;
+            case ANDB, AND -> IAND;
+            case ORB, OR -> IOR;
+            case XOR -> IXOR;
+            default -> throw new NotImplementedException(opType);
+        });
+    }
+
+    /**
+     * Jumps to the target if the comparison is true, or false if it is negated. Comparisons with zero use the single
+     * operand branches.
+     */
+    private void generateComparison(BinaryOpInstruction binaryOp, boolean isNegated, L target,
+                                    InstructionEmitter<L> code) {
+        var opType = binaryOp.getOperation().getOpType();
+        if (isNegated) {
+            opType = opType.invertConditional();
+        }
+
+        var left = binaryOp.getLeftOperand();
+        var right = binaryOp.getRightOperand();
+
+        // The right operand is computed first, it stays on the stack
+        if (stackTemporaries.isSwapped(binaryOp)) {
+            left = binaryOp.getRightOperand();
+            right = binaryOp.getLeftOperand();
+            opType = StackTemporaries.swap(opType);
+        }
+
+        if (JasminUtils.isLiteralZero(right)) {
+            apply(left, code);
+            code.jump(getZeroBranch(opType), target);
+        } else if (JasminUtils.isLiteralZero(left)) {
+            // 0 < x is x > 0
+            apply(right, code);
+            code.jump(getZeroBranch(StackTemporaries.swap(opType)), target);
+        } else {
+            apply(left, code);
+            apply(right, code);
+            code.jump(getZeroBranch(opType) - IFEQ + IF_ICMPEQ, target);
+        }
+    }
+
+    private static int getZeroBranch(OperationType opType) {
+        return switch (opType) {
+            case EQ -> IFEQ;
+            case NEQ -> IFNE;
+            case LTH -> IFLT;
+            case GTE -> IFGE;
+            case GTH -> IFGT;
+            case LTE -> IFLE;
+            default -> throw new NotImplementedException(opType);
+        };
+    }
+
+    private void generateUnaryOp(UnaryOpInstruction unaryOp, InstructionEmitter<L> code) {
+        var opType = unaryOp.getOperation().getOpType();
+        if (opType != OperationType.NOTB && opType != OperationType.NOT) {
+            throw new NotImplementedException(opType);
+        }
+
+        apply(unaryOp.getOperand(), code);
+        code.op(ICONST_1);
+        code.op(IXOR);
+    }
+
+    private void generateReturn(ReturnInstruction returnInst, InstructionEmitter<L> code) {
+        var returnType = method.getReturnType();
+
+        if (returnType instanceof BuiltinType builtin && builtin.getKind() == BuiltinKind.VOID) {
+            code.op(RETURN);
+            return;
+        }
+
+        apply(returnInst.getOperand().orElseThrow(), code);
+        code.op(isReference(returnType) ? ARETURN : IRETURN);
+    }
+
+    private void generateGetField(GetFieldInstruction getField, InstructionEmitter<L> code) {
+        code.local(ALOAD, 0);
+        code.field(GETFIELD, className, getField.getField().getName(),
+                JasminUtils.convertType(getField.getFieldType()));
+    }
+
+    private void generatePutField(PutFieldInstruction putField, InstructionEmitter<L> code) {
+        code.local(ALOAD, 0);
+        apply(putField.getValue(), code);
+        code.field(PUTFIELD, className, putField.getField().getName(),
+                JasminUtils.convertType(putField.getField().getType()));
+    }
+
+    private void generateCondBranch(CondBranchInstruction condBranch, InstructionEmitter<L> code) {
+        // Comparisons and negations jump directly, without computing a boolean first
+        generateBranch(condBranch.getCondition(), false, code.label(condBranch.getLabel()), code);
+    }
+
+    /**
+     * Jumps to the target if the condition is true, or false if it is negated.
+     */
+    private void generateBranch(TreeNode condition, boolean isNegated, L target, InstructionEmitter<L> code) {
+        if (condition instanceof SingleOpInstruction singleOp) {
+            generateBranch(singleOp.getSingleOperand(), isNegated, target, code);
+            return;
+        }
+
+        if (condition instanceof UnaryOpInstruction unaryOp && BranchConditions.isNot(unaryOp)) {
+            generateBranch(unaryOp.getOperand(), !isNegated, target, code);
+            return;
+        }
+
+        if (condition instanceof BinaryOpInstruction binaryOp && BranchConditions.isComparison(binaryOp)) {
+            generateComparison(binaryOp, isNegated, target, code);
+            return;
+        }
+
+        // A boolean whose assignment was not generated
+        if (condition instanceof Element element && branchConditions.getCondition(element) != null) {
+            generateBranch(branchConditions.getCondition(element), isNegated, target, code);
+            return;
+        }
+
+        apply(condition, code);
+        code.jump(isNegated ? IFEQ : IFNE, target);
+    }
+
+    private void generateGoto(GotoInstruction gotoInstruction, InstructionEmitter<L> code) {
+        code.jump(GOTO, code.label(gotoInstruction.getLabel()));
+    }
+
+    private void generateCallInstruction(CallInstruction call, InstructionEmitter<L> code) {
+        switch (call) {
+            case ArrayLengthInstruction arrayLength -> {
+                apply(arrayLength.getCaller(), code);
+                code.op(ARRAYLENGTH);
+            }
+            case NewInstruction newInst -> generateNew(newInst, code);
+            case InvokeSpecialInstruction invoke -> generateInvoke(INVOKESPECIAL, invoke, code);
+            case InvokeStaticInstruction invoke -> generateInvoke(INVOKESTATIC, invoke, code);
+            case InvokeVirtualInstruction invoke -> generateInvoke(INVOKEVIRTUAL, invoke, code);
+            default -> throw new NotImplementedException(call);
+        }
+    }
+
+    private void generateNew(NewInstruction newInst, InstructionEmitter<L> code) {
+        if (newInst.getReturnType() instanceof ArrayType arrayType) {
+            if (!(arrayType.getElementType() instanceof BuiltinType builtin) || builtin.getKind() != BuiltinKind.INT32) {
+                throw new NotImplementedException(arrayType);
+            }
+
+            apply(newInst.getArguments().getFirst(), code);
+            code.newIntArray();
+            return;
+        }
+
+        // The object is stored by the assignment and initialized by a separate invokespecial
+        var caller = (Operand) newInst.getCaller();
+        code.newObject(jasminUtils.getClassPath(caller.getName()));
+    }
+
+    private void generateInvoke(int opcode, CallInstruction invoke, InstructionEmitter<L> code) {
+        var caller = invoke.getCaller();
+        String owner;
+
+        if (opcode == INVOKESTATIC) {
+            owner = jasminUtils.getClassPath(((Operand) caller).getName());
+        } else {
+            apply(caller, code);
+            owner = jasminUtils.getClassPath(((ClassType) caller.getType()).getName());
+        }
+
+        var descriptor = new StringBuilder("(");
+        for (var argument : invoke.getArguments()) {
+            apply(argument, code);
+            descriptor.append(JasminUtils.convertType(argument.getType()));
+        }
+        var returnType = JasminUtils.convertType(invoke.getReturnType());
+        descriptor.append(")").append(returnType);
+
+        var methodName = opcode == INVOKESPECIAL ? "<init>" : ((LiteralElement) invoke.getMethodName()).getLiteral();
+        code.invoke(opcode, owner, methodName, descriptor.toString());
+
+        if (!returnType.equals("V") && invoke.isIsolated()) {
+            code.op(POP);
+        }
+    }
+}
@@ -3,21 +3,36 @@ package pt.up.fe.comp2025.backend;
 import pt.up.fe.comp.jmm.jasmin.JasminBackend;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilationContext;
+
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.JASMIN;
 
 /**
  * Implementation of the Jasmin backend.
  */
 public class JasminBackendImpl implements JasminBackend {
 
+    private final CompilationContext context;
+
+    public JasminBackendImpl() {
+        this(null);
+    }
+
+    /**
+     * @param context the context of the compilation, or null to use a new context in each call
+     */
+    public JasminBackendImpl(CompilationContext context) {
+        this.context = context;
+    }
+
     @Override
     public JasminResult toJasmin(OllirResult ollirResult) {
 
-        //System.out.println("Converting OLLIR to Jasmin:\n" + ollirResult.getOllirCode());
-
-        var jasminGenerator = new JasminGenerator(ollirResult);
-        var jasminCode = jasminGenerator.build();
+        var compilationContext = context != null ? context : new CompilationContext(ollirResult.getConfig());
+        var jasminGenerator = new JasminGenerator(ollirResult, compilationContext);
+        var jasminCode = compilationContext.getMetrics().pass("JasminGenerator", () -> jasminGenerator.build());
 
-        System.out.println("Generated Jasmin:\n" + jasminCode);
+        compilationContext.getTrace().debug(JASMIN, () -> "Generated Jasmin:\n" + jasminCode);
 
         return new JasminResult(ollirResult, jasminCode, jasminGenerator.getReports());
     }
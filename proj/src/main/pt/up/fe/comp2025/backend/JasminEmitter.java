@@ -0,0 +1,218 @@
+package pt.up.fe.comp2025.backend;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static pt.up.fe.comp2025.backend.classfile.Opcodes.*;
+
+/**
+ * Writes the instructions of the {@link InstructionSelector} as Jasmin code, one per line. Labels are their names.
+ * <p>
+ * The Jasmin code can be parsed back into {@link JasminInstruction}s and emitted again with
+ * {@link #emit(List, InstructionEmitter)}, which is how the peephole optimizer also rewrites the code of the class
+ * file backend.
+ */
+public class JasminEmitter implements InstructionEmitter<String> {
+
+    // Read-only after class initialization
+    private static final Map<Integer, String> MNEMONICS = createMnemonics();
+
+    private static final Map<String, Integer> OPCODES = createOpcodes();
+
+    private final JasminWriter code;
+
+    public JasminEmitter(JasminWriter code) {
+        this.code = code;
+    }
+
+    @Override
+    public String label(String name) {
+        return name;
+    }
+
+    @Override
+    public void mark(String label) {
+        code.label(label);
+    }
+
+    @Override
+    public void op(int opcode) {
+        code.append(getMnemonic(opcode)).newLine();
+    }
+
+    @Override
+    public void pushInt(int value) {
+        if (value == -1) {
+            code.append("iconst_m1");
+        } else if (value >= 0 && value <= 5) {
+            code.append("iconst_").append(value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.append("bipush ").append(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.append("sipush ").append(value);
+        } else {
+            code.append("ldc ").append(value);
+        }
+        code.newLine();
+    }
+
+    @Override
+    public void local(int opcode, int local) {
+        code.append(getMnemonic(opcode)).append(local < 4 ? '_' : ' ').append(local).newLine();
+    }
+
+    @Override
+    public void iinc(int local, int increment) {
+        code.append("iinc ").append(local).append(' ').append(increment).newLine();
+    }
+
+    @Override
+    public void jump(int opcode, String target) {
+        code.append(getMnemonic(opcode)).append(' ').append(target).newLine();
+    }
+
+    @Override
+    public void field(int opcode, String owner, String name, String fieldDescriptor) {
+        code.append(getMnemonic(opcode)).append(' ').append(owner).append('/').append(name).append(' ')
+                .append(fieldDescriptor).newLine();
+    }
+
+    @Override
+    public void invoke(int opcode, String owner, String name, String methodDescriptor) {
+        code.append(getMnemonic(opcode)).append(' ').append(owner).append('/').append(name).append(methodDescriptor)
+                .newLine();
+    }
+
+    @Override
+    public void newObject(String internalName) {
+        code.append("new ").append(internalName).newLine();
+    }
+
+    @Override
+    public void newIntArray() {
+        code.append("newarray int").newLine();
+    }
+
+    private static String getMnemonic(int opcode) {
+        var mnemonic = MNEMONICS.get(opcode);
+        if (mnemonic == null) {
+            throw new RuntimeException("Opcode " + opcode + " is not supported by the Jasmin backend");
+        }
+
+        return mnemonic;
+    }
+
+    private static int getOpcode(String mnemonic) {
+        var opcode = OPCODES.get(mnemonic);
+        if (opcode == null) {
+            throw new RuntimeException("Jasmin instruction '" + mnemonic + "' is not supported by the backends");
+        }
+
+        return opcode;
+    }
+
+    /**
+     * Emits again instructions that a JasminEmitter wrote, e.g. after the peephole optimizer rewrote them.
+     *
+     * @param instructions the labels and instructions of a method
+     * @param code         where to emit them
+     */
+    public static <L> void emit(List<JasminInstruction> instructions, InstructionEmitter<L> code) {
+        for (var instruction : instructions) {
+            if (instruction.isLabel()) {
+                code.mark(code.label(instruction.label()));
+                continue;
+            }
+
+            var operand = instruction.operand();
+            switch (instruction.getBaseOpcode()) {
+                case "iconst" -> code.pushInt(instruction.opcode().equals("iconst_m1") ? -1 :
+                        Integer.parseInt(instruction.opcode().substring("iconst_".length())));
+                case "bipush", "sipush", "ldc" -> code.pushInt(Integer.parseInt(operand));
+                case "iload", "aload", "istore", "astore" ->
+                        code.local(getOpcode(instruction.getBaseOpcode()), instruction.getLocal());
+                case "iinc" -> code.iinc(instruction.getLocal(), Integer.parseInt(operand.substring(
+                        operand.indexOf(' ') + 1)));
+                case "getfield", "putfield" -> {
+                    int space = operand.indexOf(' ');
+                    int slash = operand.lastIndexOf('/', space);
+                    code.field(getOpcode(instruction.opcode()), operand.substring(0, slash),
+                            operand.substring(slash + 1, space), operand.substring(space + 1));
+                }
+                case "invokevirtual", "invokenonvirtual", "invokestatic" -> {
+                    int open = operand.indexOf('(');
+                    int slash = operand.lastIndexOf('/', open);
+                    code.invoke(getOpcode(instruction.opcode()), operand.substring(0, slash),
+                            operand.substring(slash + 1, open), operand.substring(open));
+                }
+                case "new" -> code.newObject(operand);
+                case "newarray" -> code.newIntArray();
+                default -> {
+                    if (instruction.isBranch()) {
+                        code.jump(getOpcode(instruction.opcode()), code.label(operand));
+                    } else {
+                        code.op(getOpcode(instruction.opcode()));
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<Integer, String> createMnemonics() {
+        var mnemonics = new HashMap<Integer, String>();
+
+        mnemonics.put(ICONST_M1, "iconst_m1");
+        mnemonics.put(ICONST_0, "iconst_0");
+        mnemonics.put(ICONST_1, "iconst_1");
+        mnemonics.put(ILOAD, "iload");
+        mnemonics.put(ALOAD, "aload");
+        mnemonics.put(IALOAD, "iaload");
+        mnemonics.put(ISTORE, "istore");
+        mnemonics.put(ASTORE, "astore");
+        mnemonics.put(IASTORE, "iastore");
+        mnemonics.put(POP, "pop");
+        mnemonics.put(DUP, "dup");
+        mnemonics.put(DUP2, "dup2");
+        mnemonics.put(IADD, "iadd");
+        mnemonics.put(ISUB, "isub");
+        mnemonics.put(IMUL, "imul");
+        mnemonics.put(IDIV, "idiv");
+        mnemonics.put(INEG, "ineg");
+        mnemonics.put(IAND, "iand");
+        mnemonics.put(IOR, "ior");
+        mnemonics.put(IXOR, "ixor");
+        mnemonics.put(IFEQ, "ifeq");
+        mnemonics.put(IFNE, "ifne");
+        mnemonics.put(IFLT, "iflt");
+        mnemonics.put(IFGE, "ifge");
+        mnemonics.put(IFGT, "ifgt");
+        mnemonics.put(IFLE, "ifle");
+        mnemonics.put(IF_ICMPEQ, "if_icmpeq");
+        mnemonics.put(IF_ICMPNE, "if_icmpne");
+        mnemonics.put(IF_ICMPLT, "if_icmplt");
+        mnemonics.put(IF_ICMPGE, "if_icmpge");
+        mnemonics.put(IF_ICMPGT, "if_icmpgt");
+        mnemonics.put(IF_ICMPLE, "if_icmple");
+        mnemonics.put(GOTO, "goto");
+        mnemonics.put(IRETURN, "ireturn");
+        mnemonics.put(ARETURN, "areturn");
+        mnemonics.put(RETURN, "return");
+        mnemonics.put(GETFIELD, "getfield");
+        mnemonics.put(PUTFIELD, "putfield");
+        mnemonics.put(INVOKEVIRTUAL, "invokevirtual");
+        mnemonics.put(INVOKESPECIAL, "invokenonvirtual");
+        mnemonics.put(INVOKESTATIC, "invokestatic");
+        mnemonics.put(ARRAYLENGTH, "arraylength");
+        mnemonics.put(NOP, "nop");
+        mnemonics.put(ATHROW, "athrow");
+
+        return mnemonics;
+    }
+
+    private static Map<String, Integer> createOpcodes() {
+        var opcodes = new HashMap<String, Integer>();
+        MNEMONICS.forEach((opcode, mnemonic) -> opcodes.put(mnemonic, opcode));
+        return opcodes;
+    }
+}
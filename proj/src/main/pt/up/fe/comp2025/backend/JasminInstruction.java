@@ -0,0 +1,128 @@
+package pt.up.fe.comp2025.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A line of the Jasmin code of a method, either a label or an instruction with its operand (empty if it has none).
+ *
+ * @param label   the name of the label, or null for instructions
+ * @param opcode  e.g. iload_1 or if_icmpge, null for labels
+ * @param operand e.g. the target of a branch or the descriptor of a call
+ */
+public record JasminInstruction(String label, String opcode, String operand) {
+
+    public static JasminInstruction label(String label) {
+        return new JasminInstruction(label, null, null);
+    }
+
+    public static JasminInstruction instruction(String opcode, String operand) {
+        return new JasminInstruction(null, opcode, operand);
+    }
+
+    public boolean isLabel() {
+        return label != null;
+    }
+
+    /**
+     * @return the opcode without the suffix of its short form, e.g. iload for iload_1 or iconst for iconst_m1
+     */
+    public String getBaseOpcode() {
+        if (isLabel()) {
+            return "";
+        }
+
+        int underscore = opcode.indexOf('_');
+        if (underscore > 0 && !opcode.startsWith("if_") && !opcode.startsWith("dup")) {
+            return opcode.substring(0, underscore);
+        }
+
+        return opcode;
+    }
+
+    /**
+     * @return the local variable slot of a load, store or iinc, or -1 for other instructions
+     */
+    public int getLocal() {
+        var baseOpcode = getBaseOpcode();
+        if (!baseOpcode.endsWith("load") && !baseOpcode.endsWith("store") && !baseOpcode.equals("iinc")) {
+            return -1;
+        }
+
+        // Arrays are accessed through the stack, e.g. iaload
+        if (baseOpcode.equals("iaload") || baseOpcode.equals("aaload") || baseOpcode.equals("baload")
+                || baseOpcode.equals("iastore") || baseOpcode.equals("aastore") || baseOpcode.equals("bastore")) {
+            return -1;
+        }
+
+        if (baseOpcode.length() < opcode.length()) {
+            return Integer.parseInt(opcode.substring(baseOpcode.length() + 1));
+        }
+
+        int space = operand.indexOf(' ');
+        return Integer.parseInt(space < 0 ? operand : operand.substring(0, space));
+    }
+
+    public boolean isBranch() {
+        return !isLabel() && (opcode.startsWith("if") || opcode.equals("goto"));
+    }
+
+    /**
+     * @return true if the instruction never continues to the one after it
+     */
+    public boolean isUnconditional() {
+        return !isLabel() && (opcode.equals("goto") || opcode.endsWith("return") || opcode.equals("athrow"));
+    }
+
+    /**
+     * @param instructions the Jasmin instructions and labels of a method, one per line
+     * @return the labels and instructions, without comments and blank lines
+     */
+    public static List<JasminInstruction> parse(CharSequence instructions) {
+        var lines = new ArrayList<JasminInstruction>();
+        int start = 0;
+
+        while (start < instructions.length()) {
+            int end = start;
+            while (end < instructions.length() && instructions.charAt(end) != '\n') {
+                end++;
+            }
+
+            var line = instructions.subSequence(start, end).toString().strip();
+            start = end + 1;
+
+            if (line.isEmpty() || line.startsWith(";")) {
+                continue;
+            }
+
+            if (line.endsWith(":")) {
+                lines.add(label(line.substring(0, line.length() - 1)));
+                continue;
+            }
+
+            int space = line.indexOf(' ');
+            lines.add(instruction(space < 0 ? line : line.substring(0, space),
+                    space < 0 ? "" : line.substring(space + 1).strip()));
+        }
+
+        return lines;
+    }
+
+    /**
+     * Writes the labels and instructions back as Jasmin code, one per line.
+     */
+    public static void write(List<JasminInstruction> instructions, JasminWriter code) {
+        for (var instruction : instructions) {
+            if (instruction.isLabel()) {
+                code.label(instruction.label());
+                continue;
+            }
+
+            code.append(instruction.opcode());
+            if (!instruction.operand().isEmpty()) {
+                code.append(' ').append(instruction.operand());
+            }
+            code.newLine();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package pt.up.fe.comp2025.backend;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the exact maximum depth of the operand stack of a method, for its '.limit stack', from the Jasmin
+ * instructions emitted for it.
+ * <p>
+ * The instructions are followed from the first one through every branch. The depth at the start of an instruction is
+ * the depth after any of its predecessors (the verifier requires them to agree), so each instruction is visited once.
+ * Java-- has no long or double values, every value takes a single slot.
+ */
+public class JasminStackAnalysis {
+
+    private final List<JasminInstruction> instructions;
+
+    // Index of the instruction that follows each label
+    private final Map<String, Integer> labels;
+
+    private JasminStackAnalysis(List<JasminInstruction> code) {
+        this.instructions = new ArrayList<>();
+        this.labels = new HashMap<>();
+
+        for (var line : code) {
+            if (line.isLabel()) {
+                labels.put(line.label(), instructions.size());
+            } else {
+                instructions.add(line);
+            }
+        }
+    }
+
+    /**
+     * @param instructions the Jasmin instructions and labels of a method, one per line
+     * @return the maximum number of stack slots used by the method
+     */
+    public static int getMaxStack(CharSequence instructions) {
+        return getMaxStack(JasminInstruction.parse(instructions));
+    }
+
+    /**
+     * @param instructions the Jasmin instructions and labels of a method
+     * @return the maximum number of stack slots used by the method
+     */
+    public static int getMaxStack(List<JasminInstruction> instructions) {
+        return new JasminStackAnalysis(instructions).getMaxStack();
+    }
+
+    private int getMaxStack() {
+        if (instructions.isEmpty()) {
+            return 0;
+        }
+
+        var depths = new int[instructions.size()];
+        Arrays.fill(depths, -1);
+        depths[0] = 0;
+
+        var worklist = new ArrayDeque<Integer>();
+        worklist.add(0);
+        int maxStack = 0;
+
+        while (!worklist.isEmpty()) {
+            int index = worklist.poll();
+            var instruction = instructions.get(index);
+            int depth = depths[index] + getStackEffect(instruction.getBaseOpcode(), instruction.operand());
+            maxStack = Math.max(maxStack, depth);
+
+            if (instruction.isBranch()) {
+                visit(getTarget(index), depth, depths, worklist);
+            }
+
+            if (!instruction.isUnconditional() && index + 1 < instructions.size()) {
+                visit(index + 1, depth, depths, worklist);
+            }
+        }
+
+        return maxStack;
+    }
+
+    private static void visit(int index, int depth, int[] depths, ArrayDeque<Integer> worklist) {
+        if (depths[index] < 0) {
+            depths[index] = depth;
+            worklist.add(index);
+        }
+    }
+
+    private int getTarget(int index) {
+        var label = instructions.get(index).operand();
+        var target = labels.get(label);
+
+        if (target == null || target >= instructions.size()) {
+            throw new RuntimeException("Jump to label '" + label + "' without an instruction");
+        }
+
+        return target;
+    }
+
+    /**
+     * @return how many slots the instruction adds to the stack (negative if it removes them)
+     */
+    private static int getStackEffect(String opcode, String operand) {
+        return switch (opcode) {
+            case "iconst", "bipush", "sipush", "ldc", "iload", "aload", "new", "getstatic", "dup", "dup_x1",
+                 "dup_x2" -> 1;
+            case "dup2" -> 2;
+            case "iinc", "goto", "return", "newarray", "anewarray", "arraylength", "getfield", "ineg", "swap",
+                 "checkcast", "nop" -> 0;
+            case "istore", "astore", "pop", "ireturn", "areturn", "athrow", "iadd", "isub", "imul", "idiv", "irem",
+                 "iand", "ior", "ixor", "ishl", "ishr", "iushr", "iaload", "aaload", "baload", "ifeq", "ifne", "iflt",
+                 "ifge", "ifgt", "ifle", "ifnull", "ifnonnull", "putstatic" -> -1;
+            case "pop2", "putfield", "if_icmpeq", "if_icmpne", "if_icmplt", "if_icmpge", "if_icmpgt", "if_icmple",
+                 "if_acmpeq", "if_acmpne" -> -2;
+            case "iastore", "aastore", "bastore" -> -3;
+            case "invokestatic" -> getInvokeEffect(operand);
+            case "invokevirtual", "invokespecial", "invokenonvirtual", "invokeinterface" ->
+                    getInvokeEffect(operand) - 1;
+            default -> throw new RuntimeException("Stack effect of '" + opcode + "' is unknown");
+        };
+    }
+
+    /**
+     * @param operand e.g. io/println(I)V
+     * @return the slots of the return value minus the slots of the arguments
+     */
+    private static int getInvokeEffect(String operand) {
+        int open = operand.indexOf('(');
+        int close = operand.indexOf(')');
+
+        int arguments = 0;
+        for (int i = open + 1; i < close; i++) {
+            // Arrays and objects are a single reference
+            while (operand.charAt(i) == '[') {
+                i++;
+            }
+            if (operand.charAt(i) == 'L') {
+                i = operand.indexOf(';', i);
+            }
+            arguments++;
+        }
+
+        var returnType = operand.substring(close + 1).strip();
+        return (returnType.equals("V") ? 0 : 1) - arguments;
+    }
+}
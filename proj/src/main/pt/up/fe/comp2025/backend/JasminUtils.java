@@ -10,16 +10,13 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Helpers of the backends.
+ */
 public class JasminUtils {
 
     private final OllirResult ollirResult;
 
-    private int jumpTrueLabelIdx = 0;
-
-    private int stackCounter = 0;
-
-    private int maxStackCounter = 0;
-
     public JasminUtils(OllirResult ollirResult) {
         // Can be useful to have if you expand this class with more methods
         this.ollirResult = ollirResult;
@@ -51,14 +48,14 @@ public class JasminUtils {
         return null;
     }
 
-    public String nextCompareIdx(){
-        return String.valueOf(jumpTrueLabelIdx++);
-    }
-
     public static boolean isLiteralZero(Element operand){
         return operand instanceof LiteralElement && ((LiteralElement) operand).getLiteral().equals("0");
     }
 
+    /**
+     * @return the internal name of an imported class, or the name itself for the class being compiled and classes
+     * without an import
+     */
     public String getClassPath(String name){
         if (ollirResult.getOllirClass().getClassName().equals(name)){
             return name;
@@ -72,20 +69,7 @@ public class JasminUtils {
                 }
             }
         }
-        return "";
-    }
-
-    public void setStackCounter(int stackCounter) {
-        this.stackCounter = stackCounter;
-        maxStackCounter = Math.max(stackCounter,maxStackCounter);
-    }
-
-    public int getStackCounter(){
-        return stackCounter;
-    }
-
-    public int getMaxStackCounter(){
-        return maxStackCounter;
+        return name;
     }
 
 
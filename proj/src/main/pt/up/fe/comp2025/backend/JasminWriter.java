@@ -0,0 +1,133 @@
+package pt.up.fe.comp2025.backend;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Output of the {@link JasminGenerator}. Code is appended to a single Appendable as it is generated, and the writer
+ * takes care of indentation: while indented, every line that is started gets a TAB, except labels.
+ * <p>
+ * Code is appended piece by piece, a line ends only with {@link #newLine()}. Pieces must not contain line breaks,
+ * code that is already formatted goes through {@link #appendFormatted(CharSequence)}.
+ */
+public class JasminWriter {
+
+    private static final char NL = '\n';
+    private static final String TAB = "   ";
+
+    private final Appendable out;
+
+    // Appending to a StringBuilder directly avoids converting numbers to Strings
+    private final StringBuilder builder;
+
+    private int indentation;
+
+    private boolean isLineStart;
+
+    public JasminWriter(Appendable out) {
+        this.out = out;
+        this.builder = out instanceof StringBuilder stringBuilder ? stringBuilder : null;
+        this.indentation = 0;
+        this.isLineStart = true;
+    }
+
+    /**
+     * Lines started from now on are indented one more level.
+     */
+    public JasminWriter indent() {
+        indentation++;
+        return this;
+    }
+
+    public JasminWriter unindent() {
+        indentation--;
+        return this;
+    }
+
+    public JasminWriter append(CharSequence code) {
+        startLine();
+        write(code);
+        return this;
+    }
+
+    public JasminWriter append(char code) {
+        startLine();
+        write(code);
+        return this;
+    }
+
+    public JasminWriter append(int value) {
+        startLine();
+
+        if (builder != null) {
+            builder.append(value);
+        } else {
+            write(Integer.toString(value));
+        }
+
+        return this;
+    }
+
+    public JasminWriter newLine() {
+        write(NL);
+        isLineStart = true;
+        return this;
+    }
+
+    /**
+     * Writes a label in a line of its own. Labels are never indented.
+     *
+     * @param label
+     */
+    public JasminWriter label(CharSequence label) {
+        if (!isLineStart) {
+            newLine();
+        }
+
+        write(label);
+        write(':');
+        return newLine();
+    }
+
+    /**
+     * Appends code that is already formatted, e.g. a method generated in an earlier compilation, as it is.
+     *
+     * @param code complete lines of code
+     */
+    public JasminWriter appendFormatted(CharSequence code) {
+        if (!isLineStart) {
+            newLine();
+        }
+
+        write(code);
+        return this;
+    }
+
+    private void startLine() {
+        if (!isLineStart) {
+            return;
+        }
+
+        for (int i = 0; i < indentation; i++) {
+            write(TAB);
+        }
+
+        isLineStart = false;
+    }
+
+    private void write(CharSequence code) {
+        try {
+            out.append(code);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(char code) {
+        try {
+            out.append(code);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
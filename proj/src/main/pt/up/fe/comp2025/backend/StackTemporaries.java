@@ -0,0 +1,257 @@
+package pt.up.fe.comp2025.backend;
+
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.LiteralElement;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.*;
+import org.specs.comp.ollir.tree.TreeNode;
+import org.specs.comp.ollir.type.ArrayType;
+import pt.up.fe.comp2025.optimization.OptUtils;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the temporaries of a method whose value can stay on the operand stack, e.g. tmp0 in
+ * <p>
+ * tmp0.i32 :=.i32 a.i32 *.i32 b.i32;<br>
+ * c.i32 :=.i32 tmp0.i32 +.i32 1.i32;
+ * <p>
+ * The temporary is assigned once and read once, by the instruction right after the assignment, with no label between
+ * them, and it is the first value that instruction pushes. Its assignment is not generated, the value is computed
+ * where the temporary is loaded instead, which is exactly where storing and loading it back would leave it.
+ * <p>
+ * Like in Sethi-Ullman ordering, an operation whose right operand is such a temporary and whose left operand is a
+ * variable or a literal evaluates its right operand first when the order does not matter, e.g. 'a + tmp0' or
+ * 'a &lt; tmp0' (as 'tmp0 &gt; a'). The deeper operand is computed on an empty stack and the temporary needs no local.
+ * Loading a local or a literal has no side effects, so moving it after the temporary changes nothing else.
+ * <p>
+ * An update of an array element, 'a[i] = a[i] op x', which OLLIR writes as
+ * <p>
+ * tmp0.i32 :=.i32 a.array.i32[i.i32].i32;<br>
+ * tmp1.i32 :=.i32 tmp0.i32 +.i32 x.i32;<br>
+ * a[i.i32].i32 :=.i32 tmp1.i32;
+ * <p>
+ * also keeps tmp1 on the stack: the store pushes the array and the index once and duplicates them (dup2) for the
+ * read of the element.
+ */
+public final class StackTemporaries {
+
+    // Operations whose operands can be swapped, comparisons with swap(opType)
+    private static final Set<OperationType> SWAPPABLE = EnumSet.of(OperationType.ADD, OperationType.MUL,
+            OperationType.AND, OperationType.ANDB, OperationType.OR, OperationType.ORB, OperationType.XOR,
+            OperationType.EQ, OperationType.NEQ, OperationType.LTH, OperationType.GTH, OperationType.LTE,
+            OperationType.GTE);
+
+    // Value of each temporary left on the stack, by name
+    private final Map<String, Instruction> values;
+
+    private final Set<Instruction> fusedAssigns;
+
+    // Operations that evaluate their right operand first
+    private final Set<BinaryOpInstruction> swappedOperations;
+
+    // Stores of updated array elements, and the reads of those elements
+    private final Set<Instruction> elementUpdates;
+    private final Set<Instruction> duplicatedReads;
+
+    /**
+     * @param method
+     * @param branchConditions the booleans already computed by the branches of the method
+     */
+    public StackTemporaries(Method method, BranchConditions branchConditions) {
+        this.values = new HashMap<>();
+        this.fusedAssigns = new HashSet<>();
+        this.swappedOperations = new HashSet<>();
+        this.elementUpdates = new HashSet<>();
+        this.duplicatedReads = new HashSet<>();
+
+        findFusedAssigns(method, branchConditions);
+    }
+
+    /**
+     * @return true if the instruction assigns a temporary whose value is computed where it is read instead
+     */
+    public boolean isFused(Instruction instruction) {
+        return fusedAssigns.contains(instruction);
+    }
+
+    /**
+     * @return the value of a temporary left on the stack, or null if the element is not one
+     */
+    public Instruction getValue(Element element) {
+        return element instanceof Operand operand && !(operand instanceof ArrayOperand) ?
+                values.get(operand.getName()) : null;
+    }
+
+    /**
+     * @return true if the operation evaluates its right operand first, the generated code must then use the operands
+     * in the opposite order, with {@link #swap(OperationType)}
+     */
+    public boolean isSwapped(BinaryOpInstruction binaryOp) {
+        return swappedOperations.contains(binaryOp);
+    }
+
+    /**
+     * @return true if the instruction stores an array element whose array and index must be duplicated (dup2) after
+     * being pushed, for the read of the element in its value
+     */
+    public boolean isElementUpdate(Instruction instruction) {
+        return elementUpdates.contains(instruction);
+    }
+
+    /**
+     * @return true if the value reads an array element whose array and index are already on the stack
+     */
+    public boolean isDuplicatedRead(Instruction value) {
+        return duplicatedReads.contains(value);
+    }
+
+    /**
+     * @return the operation that gives the same result with the operands in the opposite order
+     */
+    public static OperationType swap(OperationType opType) {
+        return switch (opType) {
+            case LTH -> OperationType.GTH;
+            case GTH -> OperationType.LTH;
+            case LTE -> OperationType.GTE;
+            case GTE -> OperationType.LTE;
+            default -> opType;
+        };
+    }
+
+    /**
+     * @return true if the variable is never stored in its local
+     */
+    public boolean isStackResident(String name) {
+        return values.containsKey(name);
+    }
+
+    private void findFusedAssigns(Method method, BranchConditions branchConditions) {
+        var instructions = method.getInstructions();
+        var references = BranchConditions.countReferences(method);
+
+        for (int i = 0; i + 1 < instructions.size(); i++) {
+            var reader = instructions.get(i + 1);
+
+            if (!(instructions.get(i) instanceof AssignInstruction assign)
+                    || branchConditions.isFused(assign)
+                    || !(assign.getDest() instanceof Operand dest)
+                    || dest instanceof ArrayOperand
+                    || !OptUtils.isTemp(dest.getName())
+                    // The assignment and the read
+                    || references.getOrDefault(dest.getName(), 0) != 2
+                    // A jump to the reading instruction would skip computing the value
+                    || !method.getLabels(reader).isEmpty()) {
+                continue;
+            }
+
+            var elementRead = getElementRead(assign, reader);
+            if (elementRead != null) {
+                elementUpdates.add(reader);
+                duplicatedReads.add(elementRead);
+            } else if (!isOperand(getFirstPushed(reader), dest.getName())) {
+                var swappable = getSwappableOperation(reader, dest.getName());
+                if (swappable == null) {
+                    continue;
+                }
+
+                swappedOperations.add(swappable);
+            }
+
+            fusedAssigns.add(assign);
+            values.put(dest.getName(), assign.getRhs());
+        }
+    }
+
+    /**
+     * @return the read of the element that the store updates with the value of the assignment before it, or null if
+     * the store is not an update
+     */
+    private Instruction getElementRead(AssignInstruction assign, Instruction store) {
+        if (!(store instanceof AssignInstruction storeAssign)
+                || !(storeAssign.getDest() instanceof ArrayOperand element)
+                || !(storeAssign.getRhs() instanceof SingleOpInstruction storedValue)
+                || !isOperand(storedValue.getSingleOperand(), ((Operand) assign.getDest()).getName())
+                // The element must be read first, before anything else is pushed
+                || !(getValue(getFirstPushed(assign.getRhs())) instanceof SingleOpInstruction read)
+                || !(read.getSingleOperand() instanceof ArrayOperand readElement)
+                || !readElement.getName().equals(element.getName())) {
+            return null;
+        }
+
+        var index = element.getIndexOperands().getFirst();
+        var readIndex = readElement.getIndexOperands().getFirst();
+
+        var isSameIndex = switch (index) {
+            case LiteralElement literal -> readIndex instanceof LiteralElement readLiteral
+                    && literal.getLiteral().equals(readLiteral.getLiteral());
+            case Operand operand -> getValue(operand) == null && isOperand(readIndex, operand.getName());
+            default -> false;
+        };
+
+        return isSameIndex ? read : null;
+    }
+
+    private static boolean isOperand(Element element, String name) {
+        return element instanceof Operand operand && !(operand instanceof ArrayOperand)
+                && operand.getName().equals(name);
+    }
+
+    /**
+     * @return the operation of the instruction that would push the temporary first with its operands swapped, or null
+     * if there is none
+     */
+    private static BinaryOpInstruction getSwappableOperation(Instruction instruction, String name) {
+        var value = switch (instruction) {
+            case AssignInstruction assign -> assign.getDest() instanceof ArrayOperand ? null : assign.getRhs();
+            case CondBranchInstruction condBranch -> condBranch.getCondition();
+            default -> null;
+        };
+
+        if (!(value instanceof BinaryOpInstruction binaryOp)
+                || !SWAPPABLE.contains(binaryOp.getOperation().getOpType())
+                || !isOperand(binaryOp.getRightOperand(), name)) {
+            return null;
+        }
+
+        var left = binaryOp.getLeftOperand();
+        var isLeaf = left instanceof LiteralElement || left instanceof Operand && !(left instanceof ArrayOperand);
+
+        return isLeaf ? binaryOp : null;
+    }
+
+    /**
+     * @return the element whose value the generated code of the node pushes first, or null if it starts with
+     * something else (e.g. 'this' for a field, or the array of an array store)
+     */
+    private Element getFirstPushed(TreeNode node) {
+        return switch (node) {
+            case AssignInstruction assign -> assign.getDest() instanceof ArrayOperand ?
+                    null : getFirstPushed(assign.getRhs());
+            case SingleOpInstruction singleOp -> singleOp.getSingleOperand();
+            case UnaryOpInstruction unaryOp -> unaryOp.getOperand();
+            // Comparisons with zero only push the other operand
+            case BinaryOpInstruction binaryOp when swappedOperations.contains(binaryOp) -> binaryOp.getRightOperand();
+            case BinaryOpInstruction binaryOp -> BranchConditions.isComparison(binaryOp)
+                    && JasminUtils.isLiteralZero(binaryOp.getLeftOperand()) ?
+                    binaryOp.getRightOperand() : binaryOp.getLeftOperand();
+            case CondBranchInstruction condBranch -> getFirstPushed(condBranch.getCondition());
+            case ReturnInstruction returnInst -> returnInst.getOperand().orElse(null);
+            case InvokeStaticInstruction invokeStatic -> invokeStatic.getArguments().isEmpty() ?
+                    null : invokeStatic.getArguments().getFirst();
+            case NewInstruction newInst -> newInst.getReturnType() instanceof ArrayType ?
+                    newInst.getArguments().getFirst() : null;
+            case InvokeVirtualInstruction invokeVirtual -> invokeVirtual.getCaller();
+            case InvokeSpecialInstruction invokeSpecial -> invokeSpecial.getCaller();
+            case ArrayLengthInstruction arrayLength -> arrayLength.getCaller();
+            default -> null;
+        };
+    }
+}
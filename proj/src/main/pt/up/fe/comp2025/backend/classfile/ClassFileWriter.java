@@ -0,0 +1,114 @@
+package pt.up.fe.comp2025.backend.classfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a class file (JVMS chapter 4) from its fields and the code of its methods.
+ * <p>
+ * Class files are written in the Java 8 format, the oldest one where every method with jumps must carry a
+ * StackMapTable, so they are checked by the type-checking verifier.
+ */
+public class ClassFileWriter {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MAJOR_VERSION = 52;
+    private static final int MINOR_VERSION = 0;
+
+    private final ConstantPool pool;
+    private final int access;
+    private final String className;
+    private final String superName;
+
+    private final List<FieldInfo> fields;
+    private final List<MethodInfo> methods;
+
+    /**
+     * @param access    access flags of the class
+     * @param className internal name of the class
+     * @param superName internal name of the superclass
+     */
+    public ClassFileWriter(int access, String className, String superName) {
+        this.pool = new ConstantPool();
+        this.access = access;
+        this.className = className;
+        this.superName = superName;
+        this.fields = new ArrayList<>();
+        this.methods = new ArrayList<>();
+    }
+
+    public ConstantPool getPool() {
+        return pool;
+    }
+
+    public void addField(int access, String name, String descriptor) {
+        fields.add(new FieldInfo(access, name, descriptor));
+    }
+
+    /**
+     * @return the builder of the code of the new method
+     */
+    public CodeBuilder addMethod(int access, String name, String descriptor) {
+        var isStatic = (access & Opcodes.ACC_STATIC) != 0;
+        var code = new CodeBuilder(pool, className, superName, name, descriptor, isStatic);
+        methods.add(new MethodInfo(access, name, descriptor, code));
+        return code;
+    }
+
+    public byte[] toByteArray() {
+        try {
+            var thisClass = pool.classRef(className);
+            var superClass = pool.classRef(superName);
+
+            // Members first, they add the last constants to the pool
+            var members = new ByteArrayOutputStream();
+            var membersOut = new DataOutputStream(members);
+
+            membersOut.writeShort(fields.size());
+            for (var field : fields) {
+                membersOut.writeShort(field.access());
+                membersOut.writeShort(pool.utf8(field.name()));
+                membersOut.writeShort(pool.utf8(field.descriptor()));
+                membersOut.writeShort(0);
+            }
+
+            membersOut.writeShort(methods.size());
+            for (var method : methods) {
+                membersOut.writeShort(method.access());
+                membersOut.writeShort(pool.utf8(method.name()));
+                membersOut.writeShort(pool.utf8(method.descriptor()));
+                membersOut.writeShort(1);
+                method.code().write(membersOut);
+            }
+
+            var bytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(MINOR_VERSION);
+            out.writeShort(MAJOR_VERSION);
+            pool.write(out);
+            out.writeShort(access);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            // No interfaces
+            out.writeShort(0);
+            out.write(members.toByteArray());
+            // No class attributes
+            out.writeShort(0);
+
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record FieldInfo(int access, String name, String descriptor) {
+    }
+
+    private record MethodInfo(int access, String name, String descriptor, CodeBuilder code) {
+    }
+}
@@ -0,0 +1,697 @@
+package pt.up.fe.comp2025.backend.classfile;
+
+import pt.up.fe.comp2025.backend.InstructionEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static pt.up.fe.comp2025.backend.classfile.Opcodes.*;
+
+/**
+ * Builds the Code attribute of a method.
+ * <p>
+ * Instructions are recorded with labels instead of offsets. When the attribute is written they are laid out, and the
+ * same type inference the JVM verifier does is run over them to compute max_stack, max_locals and the StackMapTable
+ * frames. Code that cannot be reached is replaced by nops ending in athrow, which needs no other frame than its own.
+ * <p>
+ * Jumps are laid out with the 16-bit offsets of their instructions first. Those whose target ends up further away are
+ * widened, which moves the code after them, until every jump reaches its target: goto becomes goto_w, and a
+ * conditional branch is inverted to skip over a goto_w to the target. A method is still limited to 64KB of code.
+ * <p>
+ * One CodeBuilder per method.
+ */
+public class CodeBuilder implements InstructionEmitter<CodeBuilder.Label> {
+
+    /**
+     * A position in the code, marked before the instruction it points to.
+     */
+    public static final class Label {
+        private int index = -1;
+    }
+
+    private final ConstantPool pool;
+    private final String className;
+    // The hierarchy that is known without loading classes, the class and its superclass
+    private final Map<String, String> superClasses;
+    private final String methodName;
+    private final String descriptor;
+    private final boolean isStatic;
+
+    private final List<Insn> instructions;
+
+    private final Map<String, Label> labels;
+
+    private int maxLocals;
+
+    public CodeBuilder(ConstantPool pool, String className, String superName, String methodName, String descriptor,
+                       boolean isStatic) {
+        this.pool = pool;
+        this.className = className;
+        this.superClasses = Map.of(className, superName);
+        this.methodName = methodName;
+        this.descriptor = descriptor;
+        this.isStatic = isStatic;
+        this.instructions = new ArrayList<>();
+        this.labels = new HashMap<>();
+        this.maxLocals = getInitialLocals().size();
+    }
+
+    @Override
+    public Label label(String name) {
+        return labels.computeIfAbsent(name, key -> new Label());
+    }
+
+    @Override
+    public void mark(Label label) {
+        if (label.index != -1) {
+            throw new RuntimeException("Label was already marked");
+        }
+
+        label.index = instructions.size();
+    }
+
+    @Override
+    public void op(int opcode) {
+        add(new Insn(opcode, 0, 0, null, null, null, null));
+    }
+
+    @Override
+    public void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            op(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            add(new Insn(BIPUSH, value, 0, null, null, null, null));
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            add(new Insn(SIPUSH, value, 0, null, null, null, null));
+        } else {
+            var index = pool.integer(value);
+            add(new Insn(index <= 0xFF ? LDC : LDC_W, index, 0, null, null, null, "I"));
+        }
+    }
+
+    @Override
+    public void local(int opcode, int local) {
+        maxLocals = Math.max(maxLocals, local + 1);
+        add(new Insn(opcode, local, 0, null, null, null, null));
+    }
+
+    @Override
+    public void iinc(int local, int increment) {
+        maxLocals = Math.max(maxLocals, local + 1);
+        add(new Insn(IINC, local, increment, null, null, null, null));
+    }
+
+    @Override
+    public void jump(int opcode, Label target) {
+        add(new Insn(opcode, 0, 0, target, null, null, null));
+    }
+
+    @Override
+    public void field(int opcode, String owner, String name, String fieldDescriptor) {
+        add(new Insn(opcode, pool.fieldRef(owner, name, fieldDescriptor), 0, null, owner, name, fieldDescriptor));
+    }
+
+    @Override
+    public void invoke(int opcode, String owner, String name, String methodDescriptor) {
+        add(new Insn(opcode, pool.methodRef(owner, name, methodDescriptor), 0, null, owner, name, methodDescriptor));
+    }
+
+    @Override
+    public void newObject(String internalName) {
+        add(new Insn(NEW, pool.classRef(internalName), 0, null, internalName, null, null));
+    }
+
+    @Override
+    public void newIntArray() {
+        add(new Insn(NEWARRAY, T_INT, 0, null, null, null, "[I"));
+    }
+
+    private void add(Insn insn) {
+        instructions.add(insn);
+    }
+
+    /**
+     * Writes the Code attribute, with its StackMapTable.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void write(DataOutputStream out) throws IOException {
+        layout();
+        var analysis = analyze();
+
+        var code = new ByteArrayOutputStream();
+        var codeOut = new DataOutputStream(code);
+        for (int i = 0; i < instructions.size(); i++) {
+            var insn = instructions.get(i);
+            if (analysis.entries[i] == null) {
+                writeUnreachable(codeOut, insn, isLastUnreachable(analysis, i));
+            } else {
+                writeInstruction(codeOut, insn);
+            }
+        }
+
+        var stackMapTable = writeStackMapTable(analysis);
+
+        var attribute = new ByteArrayOutputStream();
+        var attributeOut = new DataOutputStream(attribute);
+        attributeOut.writeShort(analysis.maxStack);
+        attributeOut.writeShort(maxLocals);
+        attributeOut.writeInt(code.size());
+        attributeOut.write(code.toByteArray());
+        // No exception table
+        attributeOut.writeShort(0);
+
+        if (stackMapTable.length == 0) {
+            attributeOut.writeShort(0);
+        } else {
+            attributeOut.writeShort(1);
+            attributeOut.writeShort(pool.utf8("StackMapTable"));
+            attributeOut.writeInt(stackMapTable.length);
+            attributeOut.write(stackMapTable);
+        }
+
+        out.writeShort(pool.utf8("Code"));
+        out.writeInt(attribute.size());
+        out.write(attribute.toByteArray());
+    }
+
+    private void layout() {
+        for (var insn : instructions) {
+            if (insn.target != null && (insn.target.index == -1 || insn.target.index >= instructions.size())) {
+                throw new RuntimeException("Jump to a label without an instruction in method '" + methodName + "'");
+            }
+        }
+
+        // Widening a jump only moves code further apart, so this stops once no jump is widened
+        int offset;
+        boolean isWidened;
+        do {
+            offset = 0;
+            for (var insn : instructions) {
+                insn.offset = offset;
+                insn.size = getSize(insn);
+                offset += insn.size;
+            }
+
+            isWidened = false;
+            for (var insn : instructions) {
+                if (insn.target != null && !insn.isWide) {
+                    var jump = getJump(insn);
+                    if (jump < Short.MIN_VALUE || jump > Short.MAX_VALUE) {
+                        insn.isWide = true;
+                        isWidened = true;
+                    }
+                }
+            }
+        } while (isWidened);
+
+        if (offset == 0) {
+            throw new RuntimeException("Method '" + methodName + "' has no code");
+        }
+
+        if (offset > 0xFFFF) {
+            throw new RuntimeException("Method '" + methodName + "' is too large for a class file");
+        }
+    }
+
+    private int getJump(Insn insn) {
+        return instructions.get(insn.target.index).offset - insn.offset;
+    }
+
+    private static int getSize(Insn insn) {
+        return switch (insn.opcode) {
+            case BIPUSH, LDC, NEWARRAY -> 2;
+            case SIPUSH, LDC_W, GETSTATIC, PUTSTATIC, GETFIELD, PUTFIELD, INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC,
+                 NEW, ANEWARRAY -> 3;
+            case ILOAD, ALOAD, ISTORE, ASTORE -> insn.operand <= 3 ? 1 : insn.operand <= 0xFF ? 2 : 4;
+            case IINC -> isShortIinc(insn) ? 3 : 6;
+            case IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE, IF_ICMPEQ, IF_ICMPNE, IF_ICMPLT, IF_ICMPGE, IF_ICMPGT, IF_ICMPLE ->
+                    insn.isWide ? 8 : 3;
+            case GOTO -> insn.isWide ? 5 : 3;
+            default -> 1;
+        };
+    }
+
+    private static boolean isShortIinc(Insn insn) {
+        return insn.operand <= 0xFF && insn.increment >= Byte.MIN_VALUE && insn.increment <= Byte.MAX_VALUE;
+    }
+
+    private void writeInstruction(DataOutputStream out, Insn insn) throws IOException {
+        switch (insn.opcode) {
+            case BIPUSH, NEWARRAY -> {
+                out.writeByte(insn.opcode);
+                out.writeByte(insn.operand);
+            }
+            case LDC -> {
+                out.writeByte(LDC);
+                out.writeByte(insn.operand);
+            }
+            case SIPUSH, LDC_W, GETSTATIC, PUTSTATIC, GETFIELD, PUTFIELD, INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC,
+                 NEW, ANEWARRAY -> {
+                out.writeByte(insn.opcode);
+                out.writeShort(insn.operand);
+            }
+            case ILOAD, ALOAD, ISTORE, ASTORE -> writeLocal(out, insn);
+            case IINC -> {
+                if (isShortIinc(insn)) {
+                    out.writeByte(IINC);
+                    out.writeByte(insn.operand);
+                    out.writeByte(insn.increment);
+                } else {
+                    out.writeByte(WIDE);
+                    out.writeByte(IINC);
+                    out.writeShort(insn.operand);
+                    out.writeShort(insn.increment);
+                }
+            }
+            case IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE, IF_ICMPEQ, IF_ICMPNE, IF_ICMPLT, IF_ICMPGE, IF_ICMPGT, IF_ICMPLE,
+                 GOTO -> writeJump(out, insn);
+            default -> out.writeByte(insn.opcode);
+        }
+    }
+
+    private void writeJump(DataOutputStream out, Insn insn) throws IOException {
+        var jump = getJump(insn);
+
+        if (!insn.isWide) {
+            out.writeByte(insn.opcode);
+            out.writeShort(jump);
+            return;
+        }
+
+        // The inverted branch jumps over the goto_w to the next instruction, the goto_w starts 3 bytes later
+        if (insn.opcode != GOTO) {
+            out.writeByte(invertBranch(insn.opcode));
+            out.writeShort(insn.size);
+            jump -= 3;
+        }
+
+        out.writeByte(GOTO_W);
+        out.writeInt(jump);
+    }
+
+    /**
+     * @return the branch taken when the given one is not, e.g. ifge for iflt
+     */
+    private static int invertBranch(int opcode) {
+        // Opposite branches come in pairs, the first one of each pair at an odd opcode
+        return ((opcode - IFEQ) ^ 1) + IFEQ;
+    }
+
+    private static void writeLocal(DataOutputStream out, Insn insn) throws IOException {
+        if (insn.operand <= 3) {
+            // iload_<n>, aload_<n>, istore_<n> and astore_<n> follow each other in the same order as the long forms
+            var shortForm = switch (insn.opcode) {
+                case ILOAD -> ILOAD_0;
+                case ALOAD -> ALOAD_0;
+                case ISTORE -> ISTORE_0;
+                default -> ASTORE_0;
+            };
+            out.writeByte(shortForm + insn.operand);
+        } else if (insn.operand <= 0xFF) {
+            out.writeByte(insn.opcode);
+            out.writeByte(insn.operand);
+        } else {
+            out.writeByte(WIDE);
+            out.writeByte(insn.opcode);
+            out.writeShort(insn.operand);
+        }
+    }
+
+    private void writeUnreachable(DataOutputStream out, Insn insn, boolean last) throws IOException {
+        for (int i = 0; i < insn.size; i++) {
+            out.writeByte(last && i == insn.size - 1 ? ATHROW : NOP);
+        }
+    }
+
+    private boolean isLastUnreachable(Analysis analysis, int index) {
+        return index == instructions.size() - 1 || analysis.entries[index + 1] != null;
+    }
+
+    // Type inference
+
+    private record Analysis(Frame[] entries, TreeSet<Integer> frames, int maxStack) {
+    }
+
+    private static final class Frame {
+
+        private final VerificationType[] locals;
+        private final List<VerificationType> stack;
+
+        private Frame(VerificationType[] locals, List<VerificationType> stack) {
+            this.locals = locals;
+            this.stack = stack;
+        }
+
+        private Frame copy() {
+            return new Frame(locals.clone(), new ArrayList<>(stack));
+        }
+
+        private VerificationType pop() {
+            return stack.removeLast();
+        }
+
+        private void pop(int count) {
+            for (int i = 0; i < count; i++) {
+                pop();
+            }
+        }
+
+        private void push(VerificationType type) {
+            stack.add(type);
+        }
+
+        /**
+         * Merges the given frame into this one.
+         *
+         * @return true if this frame changed
+         */
+        private boolean merge(Frame other, Map<String, String> superClasses, String methodName) {
+            if (stack.size() != other.stack.size()) {
+                throw new RuntimeException("Stack size differs at a jump target of method '" + methodName + "'");
+            }
+
+            var changed = false;
+            for (int i = 0; i < locals.length; i++) {
+                var merged = locals[i].merge(other.locals[i], superClasses);
+                changed |= !merged.equals(locals[i]);
+                locals[i] = merged;
+            }
+
+            for (int i = 0; i < stack.size(); i++) {
+                var merged = stack.get(i).merge(other.stack.get(i), superClasses);
+                if (merged.equals(VerificationType.TOP)) {
+                    throw new RuntimeException("Incompatible stack types at a jump target of method '" + methodName
+                            + "'");
+                }
+                changed |= !merged.equals(stack.get(i));
+                stack.set(i, merged);
+            }
+
+            return changed;
+        }
+    }
+
+    private List<VerificationType> getInitialLocals() {
+        var locals = new ArrayList<VerificationType>();
+
+        if (!isStatic) {
+            locals.add(methodName.equals("<init>") ? VerificationType.UNINITIALIZED_THIS :
+                    VerificationType.object(className));
+        }
+
+        for (var argument : getArgumentDescriptors(descriptor)) {
+            locals.add(VerificationType.fromDescriptor(argument));
+        }
+
+        return locals;
+    }
+
+    private Analysis analyze() {
+        var entries = new Frame[instructions.size()];
+        var frames = new TreeSet<Integer>();
+        int maxStack = 0;
+
+        var locals = new VerificationType[maxLocals];
+        Arrays.fill(locals, VerificationType.TOP);
+        var initialLocals = getInitialLocals();
+        for (int i = 0; i < initialLocals.size(); i++) {
+            locals[i] = initialLocals.get(i);
+        }
+
+        entries[0] = new Frame(locals, new ArrayList<>());
+        var worklist = new ArrayDeque<Integer>();
+        worklist.add(0);
+
+        while (!worklist.isEmpty()) {
+            int index = worklist.poll();
+            var insn = instructions.get(index);
+            var frame = entries[index].copy();
+
+            execute(insn, frame);
+            maxStack = Math.max(maxStack, Math.max(entries[index].stack.size(), frame.stack.size()));
+
+            var successors = new ArrayList<Integer>();
+            if (insn.target != null) {
+                successors.add(insn.target.index);
+                frames.add(insn.target.index);
+
+                // The inverted branch of a wide jump targets the next instruction
+                if (insn.isWide && insn.opcode != GOTO) {
+                    frames.add(index + 1);
+                }
+            }
+            if (!isUnconditional(insn.opcode)) {
+                if (index + 1 >= instructions.size()) {
+                    throw new RuntimeException("Execution falls off the end of method '" + methodName + "'");
+                }
+                successors.add(index + 1);
+            }
+
+            for (var successor : successors) {
+                if (entries[successor] == null) {
+                    entries[successor] = frame.copy();
+                    worklist.add(successor);
+                } else if (entries[successor].merge(frame, superClasses, methodName)) {
+                    worklist.add(successor);
+                }
+            }
+        }
+
+        // Unreachable code throws, athrow needs an object on the stack
+        for (int i = 0; i < instructions.size(); i++) {
+            if (entries[i] == null) {
+                maxStack = Math.max(maxStack, 1);
+                if (i == 0 || entries[i - 1] != null) {
+                    frames.add(i);
+                }
+            }
+        }
+
+        return new Analysis(entries, frames, maxStack);
+    }
+
+    private static boolean isUnconditional(int opcode) {
+        return switch (opcode) {
+            case GOTO, IRETURN, ARETURN, RETURN, ATHROW -> true;
+            default -> false;
+        };
+    }
+
+    private void execute(Insn insn, Frame frame) {
+        switch (insn.opcode) {
+            case NOP -> {
+            }
+            case ACONST_NULL -> frame.push(VerificationType.NULL);
+            case BIPUSH, SIPUSH, LDC, LDC_W -> frame.push(VerificationType.INTEGER);
+            case ILOAD -> frame.push(VerificationType.INTEGER);
+            case ALOAD -> frame.push(frame.locals[insn.operand]);
+            case ISTORE, ASTORE -> frame.locals[insn.operand] = frame.pop();
+            case IALOAD -> {
+                frame.pop(2);
+                frame.push(VerificationType.INTEGER);
+            }
+            case AALOAD -> {
+                frame.pop();
+                frame.push(frame.pop().getElementType());
+            }
+            case IASTORE, AASTORE -> frame.pop(3);
+            case POP -> frame.pop();
+            case DUP -> frame.push(frame.stack.getLast());
+            // Only used on two category 1 values
+            case DUP2 -> {
+                var below = frame.stack.get(frame.stack.size() - 2);
+                var top = frame.stack.getLast();
+                frame.push(below);
+                frame.push(top);
+            }
+            case IADD, ISUB, IMUL, IDIV, IAND, IOR, IXOR -> {
+                frame.pop(2);
+                frame.push(VerificationType.INTEGER);
+            }
+            case INEG, ARRAYLENGTH -> {
+                frame.pop();
+                frame.push(VerificationType.INTEGER);
+            }
+            case IINC -> {
+            }
+            case IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE -> frame.pop();
+            case IF_ICMPEQ, IF_ICMPNE, IF_ICMPLT, IF_ICMPGE, IF_ICMPGT, IF_ICMPLE -> frame.pop(2);
+            case GOTO, RETURN -> {
+            }
+            case IRETURN, ARETURN, ATHROW -> frame.pop();
+            case GETSTATIC -> frame.push(VerificationType.fromDescriptor(insn.descriptor));
+            case PUTSTATIC -> frame.pop();
+            case GETFIELD -> {
+                frame.pop();
+                frame.push(VerificationType.fromDescriptor(insn.descriptor));
+            }
+            case PUTFIELD -> frame.pop(2);
+            case INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC -> executeInvoke(insn, frame);
+            case NEW -> frame.push(VerificationType.uninitialized(insn.offset));
+            case NEWARRAY, ANEWARRAY -> {
+                frame.pop();
+                frame.push(VerificationType.object(insn.descriptor));
+            }
+            default -> {
+                if (insn.opcode >= ICONST_M1 && insn.opcode <= ICONST_0 + 5) {
+                    frame.push(VerificationType.INTEGER);
+                    return;
+                }
+
+                throw new RuntimeException("Opcode " + insn.opcode + " is not supported by the class file backend");
+            }
+        }
+    }
+
+    private void executeInvoke(Insn insn, Frame frame) {
+        frame.pop(getArgumentDescriptors(insn.descriptor).size());
+
+        if (insn.opcode != INVOKESTATIC) {
+            var receiver = frame.pop();
+
+            // A constructor call initializes every copy of the object
+            if (insn.name.equals("<init>") && receiver.isUninitialized()) {
+                var initialized = receiver.equals(VerificationType.UNINITIALIZED_THIS) ?
+                        VerificationType.object(className) : VerificationType.object(insn.owner);
+                replace(frame.locals, receiver, initialized);
+                for (int i = 0; i < frame.stack.size(); i++) {
+                    if (frame.stack.get(i).equals(receiver)) {
+                        frame.stack.set(i, initialized);
+                    }
+                }
+            }
+        }
+
+        var returnDescriptor = insn.descriptor.substring(insn.descriptor.indexOf(')') + 1);
+        if (!returnDescriptor.equals("V")) {
+            frame.push(VerificationType.fromDescriptor(returnDescriptor));
+        }
+    }
+
+    private static void replace(VerificationType[] types, VerificationType from, VerificationType to) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].equals(from)) {
+                types[i] = to;
+            }
+        }
+    }
+
+    /**
+     * @param methodDescriptor e.g. (I[ILjava/lang/String;)V
+     * @return the descriptors of the arguments, e.g. [I, [I, Ljava/lang/String;]
+     */
+    static List<String> getArgumentDescriptors(String methodDescriptor) {
+        var arguments = new ArrayList<String>();
+
+        int index = 1;
+        while (methodDescriptor.charAt(index) != ')') {
+            int start = index;
+            while (methodDescriptor.charAt(index) == '[') {
+                index++;
+            }
+            if (methodDescriptor.charAt(index) == 'L') {
+                index = methodDescriptor.indexOf(';', index);
+            }
+            index++;
+            arguments.add(methodDescriptor.substring(start, index));
+        }
+
+        return arguments;
+    }
+
+    // Stack map frames, all written as full frames
+
+    private static final int FULL_FRAME = 255;
+
+    private byte[] writeStackMapTable(Analysis analysis) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+
+        out.writeShort(analysis.frames().size());
+
+        int previousOffset = -1;
+        for (var index : analysis.frames()) {
+            var offset = instructions.get(index).offset;
+            var frame = analysis.entries()[index];
+
+            out.writeByte(FULL_FRAME);
+            out.writeShort(offset - previousOffset - 1);
+
+            if (frame == null) {
+                // Start of unreachable code, only throws
+                out.writeShort(0);
+                out.writeShort(1);
+                writeType(out, VerificationType.object("java/lang/Throwable"));
+            } else {
+                // Trailing unusable locals can be left out
+                int locals = frame.locals.length;
+                while (locals > 0 && frame.locals[locals - 1].equals(VerificationType.TOP)) {
+                    locals--;
+                }
+
+                out.writeShort(locals);
+                for (int i = 0; i < locals; i++) {
+                    writeType(out, frame.locals[i]);
+                }
+
+                out.writeShort(frame.stack.size());
+                for (var type : frame.stack) {
+                    writeType(out, type);
+                }
+            }
+
+            previousOffset = offset;
+        }
+
+        return analysis.frames().isEmpty() ? new byte[0] : bytes.toByteArray();
+    }
+
+    private void writeType(DataOutputStream out, VerificationType type) throws IOException {
+        out.writeByte(type.tag());
+
+        if (type.className() != null) {
+            out.writeShort(pool.classRef(type.className()));
+        } else if (type.isUninitialized() && !type.equals(VerificationType.UNINITIALIZED_THIS)) {
+            out.writeShort(type.offset());
+        }
+    }
+
+    private static final class Insn {
+
+        private final int opcode;
+        // Local, constant or constant pool index
+        private final int operand;
+        private final int increment;
+        private final Label target;
+        private final String owner;
+        private final String name;
+        // Field or method descriptor, or the type pushed by the instruction
+        private final String descriptor;
+
+        private int offset;
+        private int size;
+        // Jumps with a 32-bit offset, see layout
+        private boolean isWide;
+
+        private Insn(int opcode, int operand, int increment, Label target, String owner, String name,
+                     String descriptor) {
+            this.opcode = opcode;
+            this.operand = operand;
+            this.increment = increment;
+            this.target = target;
+            this.owner = owner;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package pt.up.fe.comp2025.backend.classfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Constant pool of a class file. Each constant is added once, later requests for the same constant return its index.
+ */
+public class ConstantPool {
+
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream bytes;
+    private final DataOutputStream out;
+    private final Map<String, Integer> indexes;
+
+    // Index 0 is not used
+    private int count;
+
+    public ConstantPool() {
+        this.bytes = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(bytes);
+        this.indexes = new HashMap<>();
+        this.count = 1;
+    }
+
+    public int utf8(String value) {
+        return add("utf8:" + value, () -> {
+            out.writeByte(UTF8);
+            // Modified UTF-8 with a length prefix, as class files expect
+            out.writeUTF(value);
+        });
+    }
+
+    public int integer(int value) {
+        return add("int:" + value, () -> {
+            out.writeByte(INTEGER);
+            out.writeInt(value);
+        });
+    }
+
+    /**
+     * @param internalName e.g. java/lang/String, or a descriptor for arrays, e.g. [I
+     * @return
+     */
+    public int classRef(String internalName) {
+        var name = utf8(internalName);
+        return add("class:" + internalName, () -> {
+            out.writeByte(CLASS);
+            out.writeShort(name);
+        });
+    }
+
+    public int string(String value) {
+        var utf8 = utf8(value);
+        return add("string:" + value, () -> {
+            out.writeByte(STRING);
+            out.writeShort(utf8);
+        });
+    }
+
+    public int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(FIELD_REF, owner, name, descriptor);
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        return memberRef(METHOD_REF, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        var ownerIndex = classRef(owner);
+        var nameAndType = nameAndType(name, descriptor);
+        return add(tag + ":" + owner + "." + name + ":" + descriptor, () -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        var nameIndex = utf8(name);
+        var descriptorIndex = utf8(descriptor);
+        return add("nat:" + name + ":" + descriptor, () -> {
+            out.writeByte(NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+    }
+
+    private int add(String key, Entry entry) {
+        var index = indexes.get(key);
+        if (index != null) {
+            return index;
+        }
+
+        if (count > 0xFFFF) {
+            throw new RuntimeException("Too many constants for a class file");
+        }
+
+        try {
+            entry.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        indexes.put(key, count);
+        return count++;
+    }
+
+    /**
+     * Writes the constant_pool_count and the constants.
+     *
+     * @param output
+     * @throws IOException
+     */
+    public void write(DataOutputStream output) throws IOException {
+        output.writeShort(count);
+        output.write(bytes.toByteArray());
+    }
+
+    private interface Entry {
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,108 @@
+package pt.up.fe.comp2025.backend.classfile;
+
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Type of a local or stack slot, as the JVM verifier sees it (JVMS 4.10.1.2).
+ *
+ * @param tag       the verification_type_info tag
+ * @param className internal name of the class or array descriptor, for objects
+ * @param offset    offset of the 'new' instruction, for uninitialized objects
+ */
+public record VerificationType(int tag, String className, int offset) {
+
+    private static final int TOP_TAG = 0;
+    private static final int INTEGER_TAG = 1;
+    private static final int NULL_TAG = 5;
+    private static final int UNINITIALIZED_THIS_TAG = 6;
+    private static final int OBJECT_TAG = 7;
+    private static final int UNINITIALIZED_TAG = 8;
+
+    public static final VerificationType TOP = new VerificationType(TOP_TAG, null, 0);
+    public static final VerificationType INTEGER = new VerificationType(INTEGER_TAG, null, 0);
+    public static final VerificationType NULL = new VerificationType(NULL_TAG, null, 0);
+    public static final VerificationType UNINITIALIZED_THIS = new VerificationType(UNINITIALIZED_THIS_TAG, null, 0);
+
+    public static VerificationType object(String className) {
+        return new VerificationType(OBJECT_TAG, className, 0);
+    }
+
+    public static VerificationType uninitialized(int offset) {
+        return new VerificationType(UNINITIALIZED_TAG, null, offset);
+    }
+
+    /**
+     * @param descriptor a field descriptor, e.g. I, [I or Ljava/lang/String;
+     * @return the type of a value of that descriptor
+     */
+    public static VerificationType fromDescriptor(String descriptor) {
+        return switch (descriptor.charAt(0)) {
+            case 'I', 'Z', 'B', 'C', 'S' -> INTEGER;
+            case 'L' -> object(descriptor.substring(1, descriptor.length() - 1));
+            case '[' -> object(descriptor);
+            default -> throw new RuntimeException("Unsupported descriptor '" + descriptor + "'");
+        };
+    }
+
+    public boolean isReference() {
+        return tag == OBJECT_TAG || tag == NULL_TAG || tag == UNINITIALIZED_TAG || tag == UNINITIALIZED_THIS_TAG;
+    }
+
+    public boolean isUninitialized() {
+        return tag == UNINITIALIZED_TAG || tag == UNINITIALIZED_THIS_TAG;
+    }
+
+    /**
+     * @return the type of the elements, for array types
+     */
+    public VerificationType getElementType() {
+        if (tag != OBJECT_TAG || !className.startsWith("[")) {
+            throw new RuntimeException("Not an array type: " + this);
+        }
+
+        return fromDescriptor(className.substring(1));
+    }
+
+    /**
+     * The most specific type both types can be assigned to. Classes are not loaded, so different classes merge into
+     * their closest common superclass among the given ones, or java/lang/Object; anything that cannot be merged
+     * becomes TOP (an unusable slot).
+     *
+     * @param superClasses the superclass of each class whose hierarchy is known
+     */
+    public VerificationType merge(VerificationType other, Map<String, String> superClasses) {
+        if (equals(other)) {
+            return this;
+        }
+
+        if (tag == NULL_TAG && other.tag == OBJECT_TAG) {
+            return other;
+        }
+
+        if (other.tag == NULL_TAG && tag == OBJECT_TAG) {
+            return this;
+        }
+
+        if (tag == OBJECT_TAG && other.tag == OBJECT_TAG) {
+            return object(getCommonSuperClass(className, other.className, superClasses));
+        }
+
+        return TOP;
+    }
+
+    private static String getCommonSuperClass(String first, String second, Map<String, String> superClasses) {
+        var ancestors = new HashSet<String>();
+        for (var ancestor = first; ancestor != null; ancestor = superClasses.get(ancestor)) {
+            ancestors.add(ancestor);
+        }
+
+        for (var ancestor = second; ancestor != null; ancestor = superClasses.get(ancestor)) {
+            if (ancestors.contains(ancestor)) {
+                return ancestor;
+            }
+        }
+
+        return "java/lang/Object";
+    }
+}
@@ -0,0 +1,40 @@
+package pt.up.fe.comp2025.backend.peephole;
+
+import pt.up.fe.comp2025.backend.JasminInstruction;
+
+import java.util.List;
+
+/**
+ * Decides branches on a constant, e.g. iconst_0 followed by ifne never jumps and is removed, while iconst_0 followed by
+ * ifeq always jumps and becomes a goto.
+ */
+public class ConstantBranch implements PeepholeRule {
+
+    @Override
+    public boolean apply(List<JasminInstruction> code) {
+        boolean changed = false;
+
+        for (int i = 0; i + 1 < code.size(); i++) {
+            var constant = code.get(i);
+            var branch = code.get(i + 1);
+
+            if (constant.isLabel() || branch.isLabel()
+                    || !constant.opcode().equals("iconst_0") && !constant.opcode().equals("iconst_1")
+                    || !branch.opcode().equals("ifeq") && !branch.opcode().equals("ifne")) {
+                continue;
+            }
+
+            var isZero = constant.opcode().equals("iconst_0");
+            var jumps = isZero == branch.opcode().equals("ifeq");
+
+            code.subList(i, i + 2).clear();
+            if (jumps) {
+                code.add(i, JasminInstruction.instruction("goto", branch.operand()));
+            }
+
+            changed = true;
+        }
+
+        return changed;
+    }
+}
@@ -0,0 +1,63 @@
+package pt.up.fe.comp2025.backend.peephole;
+
+import pt.up.fe.comp2025.backend.JasminInstruction;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Removes a value stored in a local only to be loaded right back, when nothing else reads the local, e.g.
+ * <p>
+ * istore_3<br>
+ * iload_3
+ * <p>
+ * The value simply stays on the stack.
+ */
+public class DeadStoreLoad implements PeepholeRule {
+
+    @Override
+    public boolean apply(List<JasminInstruction> code) {
+        var reads = countReads(code);
+        boolean changed = false;
+
+        for (int i = 0; i + 1 < code.size(); i++) {
+            var store = code.get(i);
+            var load = code.get(i + 1);
+
+            if (isStoreThenLoad(store, load) && reads.get(load.getLocal()) == 1) {
+                code.subList(i, i + 2).clear();
+                reads.remove(load.getLocal());
+                changed = true;
+                i--;
+            }
+        }
+
+        return changed;
+    }
+
+    private static boolean isStoreThenLoad(JasminInstruction store, JasminInstruction load) {
+        var storeOpcode = store.getBaseOpcode();
+        var loadOpcode = load.getBaseOpcode();
+
+        return (storeOpcode.equals("istore") && loadOpcode.equals("iload")
+                || storeOpcode.equals("astore") && loadOpcode.equals("aload"))
+                && store.getLocal() == load.getLocal();
+    }
+
+    /**
+     * @return how many instructions read each local, loads and increments
+     */
+    private static Map<Integer, Integer> countReads(List<JasminInstruction> code) {
+        var reads = new HashMap<Integer, Integer>();
+
+        for (var instruction : code) {
+            var opcode = instruction.getBaseOpcode();
+            if (opcode.equals("iload") || opcode.equals("aload") || opcode.equals("iinc")) {
+                reads.merge(instruction.getLocal(), 1, Integer::sum);
+            }
+        }
+
+        return reads;
+    }
+}
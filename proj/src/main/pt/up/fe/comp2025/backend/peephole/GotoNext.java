@@ -0,0 +1,38 @@
+package pt.up.fe.comp2025.backend.peephole;
+
+import pt.up.fe.comp2025.backend.JasminInstruction;
+
+import java.util.List;
+
+/**
+ * Removes a goto to the instruction right after it, e.g.
+ * <p>
+ * goto endif0<br>
+ * endif0:
+ */
+public class GotoNext implements PeepholeRule {
+
+    @Override
+    public boolean apply(List<JasminInstruction> code) {
+        boolean changed = false;
+
+        for (int i = 0; i < code.size(); i++) {
+            var instruction = code.get(i);
+            if (instruction.isLabel() || !instruction.opcode().equals("goto")) {
+                continue;
+            }
+
+            // Any of the labels before the next instruction
+            for (int next = i + 1; next < code.size() && code.get(next).isLabel(); next++) {
+                if (code.get(next).label().equals(instruction.operand())) {
+                    code.remove(i);
+                    changed = true;
+                    i--;
+                    break;
+                }
+            }
+        }
+
+        return changed;
+    }
+}
@@ -0,0 +1,73 @@
+package pt.up.fe.comp2025.backend.peephole;
+
+import pt.up.fe.comp2025.backend.JasminInstruction;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retargets branches to a goto to the final target of the chain of gotos, e.g. in
+ * <p>
+ * if_icmpge endif0<br>
+ * ...<br>
+ * endif0:<br>
+ * goto while0
+ * <p>
+ * the branch jumps directly to while0. The goto itself is left for the other rules, which remove it once nothing
+ * reaches it.
+ */
+public class JumpToJump implements PeepholeRule {
+
+    @Override
+    public boolean apply(List<JasminInstruction> code) {
+        var gotoTargets = getGotoTargets(code);
+        boolean changed = false;
+
+        for (int i = 0; i < code.size(); i++) {
+            var branch = code.get(i);
+            if (!branch.isBranch()) {
+                continue;
+            }
+
+            // Follows the chain, stopping at loops of gotos
+            var visited = new HashSet<String>();
+            var target = branch.operand();
+            while (gotoTargets.containsKey(target) && visited.add(target)) {
+                target = gotoTargets.get(target);
+            }
+
+            if (!target.equals(branch.operand())) {
+                code.set(i, JasminInstruction.instruction(branch.opcode(), target));
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return the target of the goto that follows each label, for labels that are followed by one
+     */
+    private static Map<String, String> getGotoTargets(List<JasminInstruction> code) {
+        var gotoTargets = new HashMap<String, String>();
+
+        for (int i = 0; i < code.size(); i++) {
+            if (!code.get(i).isLabel()) {
+                continue;
+            }
+
+            int next = i + 1;
+            while (next < code.size() && code.get(next).isLabel()) {
+                next++;
+            }
+
+            if (next < code.size() && code.get(next).opcode().equals("goto")) {
+                gotoTargets.put(code.get(i).label(), code.get(next).operand());
+            }
+        }
+
+        return gotoTargets;
+    }
+}
@@ -0,0 +1,128 @@
+package pt.up.fe.comp2025.backend.peephole;
+
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.backend.JasminInstruction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.JASMIN;
+
+/**
+ * Rewrites the Jasmin code of each method with a library of local patterns, until none of them applies.
+ * <p>
+ * The rules are selected by name, see {@link #getRuleNames()}, and run in the order they are listed there. One
+ * optimizer per class, shared by the generators of its methods: the count of instructions each rule removed is
+ * accumulated over all the methods, from any thread.
+ */
+public class PeepholeOptimizer {
+
+    // Rules keep no state, read-only after class initialization, in the order the rules run
+    private static final Map<String, PeepholeRule> RULES = createRules();
+
+    private final Map<String, PeepholeRule> rules;
+
+    private final Map<String, Long> removed;
+
+    /**
+     * @param ruleNames the rules to apply, none to leave the code as it is
+     */
+    public PeepholeOptimizer(List<String> ruleNames) {
+        this.rules = new LinkedHashMap<>();
+        this.removed = new ConcurrentHashMap<>();
+
+        for (var ruleName : RULES.keySet()) {
+            if (ruleNames.contains(ruleName)) {
+                rules.put(ruleName, RULES.get(ruleName));
+            }
+        }
+    }
+
+    private static Map<String, PeepholeRule> createRules() {
+        var rules = new LinkedHashMap<String, PeepholeRule>();
+
+        rules.put("deadStoreLoad", new DeadStoreLoad());
+        rules.put("popAfterPush", new PopAfterPush());
+        rules.put("constantBranch", new ConstantBranch());
+        rules.put("jumpToJump", new JumpToJump());
+        rules.put("gotoNext", new GotoNext());
+        rules.put("unusedLabel", new UnusedLabel());
+        rules.put("unreachableCode", new UnreachableCode());
+
+        return rules;
+    }
+
+    /**
+     * @return the names of all the rules, in the order they run
+     */
+    public static List<String> getRuleNames() {
+        return new ArrayList<>(RULES.keySet());
+    }
+
+    public boolean isEnabled() {
+        return !rules.isEmpty();
+    }
+
+    /**
+     * Applies the rules to the code of a method until none of them changes it.
+     *
+     * @param code the labels and instructions of a method, changed in place
+     */
+    public void optimize(List<JasminInstruction> code) {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (var rule : rules.entrySet()) {
+                int before = countInstructions(code);
+
+                if (rule.getValue().apply(code)) {
+                    changed = true;
+                    removed.merge(rule.getKey(), (long) (before - countInstructions(code)), Long::sum);
+                }
+            }
+        }
+    }
+
+    private static int countInstructions(List<JasminInstruction> code) {
+        int instructions = 0;
+        for (var line : code) {
+            if (!line.isLabel()) {
+                instructions++;
+            }
+        }
+
+        return instructions;
+    }
+
+    /**
+     * @return how many instructions each of the selected rules removed so far, labels are not counted
+     */
+    public Map<String, Long> getRemoved() {
+        var removedByRule = new LinkedHashMap<String, Long>();
+
+        for (var ruleName : rules.keySet()) {
+            removedByRule.put(ruleName, removed.getOrDefault(ruleName, 0L));
+        }
+
+        return removedByRule;
+    }
+
+    /**
+     * Adds the instructions each rule removed from the class to the metrics, and traces them.
+     */
+    public void report(CompilationContext context, String className) {
+        var removedByRule = getRemoved();
+
+        for (var rule : removedByRule.entrySet()) {
+            context.getMetrics().count("peephole/" + rule.getKey(), rule.getValue());
+        }
+
+        context.getTrace().info(JASMIN, () -> "Peephole instructions removed by rule in class " + className + ": "
+                + removedByRule);
+    }
+}
@@ -0,0 +1,18 @@
+package pt.up.fe.comp2025.backend.peephole;
+
+import pt.up.fe.comp2025.backend.JasminInstruction;
+
+import java.util.List;
+
+/**
+ * A pattern of the peephole optimizer, rewrites the Jasmin code of a method in place.
+ */
+public interface PeepholeRule {
+
+    /**
+     * @param code the labels and instructions of a method, changed in place
+     * @return true if the code was changed
+     */
+    boolean apply(List<JasminInstruction> code);
+
+}
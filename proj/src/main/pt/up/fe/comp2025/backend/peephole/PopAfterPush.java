@@ -0,0 +1,32 @@
+package pt.up.fe.comp2025.backend.peephole;
+
+import pt.up.fe.comp2025.backend.JasminInstruction;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes a value that is pushed without side effects and popped right away, e.g. iload_1 followed by pop.
+ */
+public class PopAfterPush implements PeepholeRule {
+
+    private static final Set<String> PURE_PUSHES = Set.of("iload", "aload", "iconst", "bipush", "sipush", "ldc", "dup");
+
+    @Override
+    public boolean apply(List<JasminInstruction> code) {
+        boolean changed = false;
+
+        for (int i = 0; i + 1 < code.size(); i++) {
+            var push = code.get(i);
+            var pop = code.get(i + 1);
+
+            if (PURE_PUSHES.contains(push.getBaseOpcode()) && !pop.isLabel() && pop.opcode().equals("pop")) {
+                code.subList(i, i + 2).clear();
+                changed = true;
+                i = Math.max(i - 2, -1);
+            }
+        }
+
+        return changed;
+    }
+}
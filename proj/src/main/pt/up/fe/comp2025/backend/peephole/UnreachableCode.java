@@ -0,0 +1,34 @@
+package pt.up.fe.comp2025.backend.peephole;
+
+import pt.up.fe.comp2025.backend.JasminInstruction;
+
+import java.util.List;
+
+/**
+ * Removes the instructions after a goto, return or athrow up to the next label, which nothing can reach.
+ */
+public class UnreachableCode implements PeepholeRule {
+
+    @Override
+    public boolean apply(List<JasminInstruction> code) {
+        boolean changed = false;
+
+        for (int i = 0; i < code.size(); i++) {
+            if (!code.get(i).isUnconditional()) {
+                continue;
+            }
+
+            int end = i + 1;
+            while (end < code.size() && !code.get(end).isLabel()) {
+                end++;
+            }
+
+            if (end > i + 1) {
+                code.subList(i + 1, end).clear();
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+}
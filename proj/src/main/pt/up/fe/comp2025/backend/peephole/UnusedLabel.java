@@ -0,0 +1,22 @@
+package pt.up.fe.comp2025.backend.peephole;
+
+import pt.up.fe.comp2025.backend.JasminInstruction;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Removes labels that no branch jumps to, so that the code after them can be recognized as unreachable.
+ */
+public class UnusedLabel implements PeepholeRule {
+
+    @Override
+    public boolean apply(List<JasminInstruction> code) {
+        var targets = code.stream()
+                .filter(JasminInstruction::isBranch)
+                .map(JasminInstruction::operand)
+                .collect(Collectors.toSet());
+
+        return code.removeIf(instruction -> instruction.isLabel() && !targets.contains(instruction.label()));
+    }
+}
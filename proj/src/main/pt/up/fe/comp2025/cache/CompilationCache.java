@@ -0,0 +1,243 @@
+package pt.up.fe.comp2025.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.CompilerConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Content-addressed on-disk cache of compilation results.
+ * <p>
+ * An entry is keyed by a hash of the source code, the options that change the generated code (see
+ * {@link CompilerConfig#getCodegenOptions(Map)}) and the version of the compiler, and stores the Jasmin code, the name
+ * of the class and the reports of the compilation. A hit skips the whole pipeline, parsing included.
+ * <p>
+ * The cache is bounded in size. When a new entry takes it over the limit, entries are evicted by least recent access,
+ * which is tracked through the modification time of the entry files. Only successful compilations are stored.
+ * <p>
+ * Instances are shared by every compilation of the JVM that uses the same folder (see {@link #open(File, long)}) and
+ * are thread-safe.
+ */
+public class CompilationCache {
+
+    // Bump when the format of the entries changes
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String ENTRY_EXTENSION = ".json";
+
+    private static final Map<File, CompilationCache> CACHES = new ConcurrentHashMap<>();
+
+    private static final Gson GSON = new Gson();
+
+    private final File folder;
+    private final long maxBytes;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final AtomicLong bytesSaved;
+
+    private CompilationCache(File folder, long maxBytes) {
+        this.folder = folder;
+        this.maxBytes = maxBytes;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.bytesSaved = new AtomicLong();
+
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new RuntimeException("Could not create cache folder '" + folder + "'");
+        }
+    }
+
+    /**
+     * @param folder
+     * @param maxBytes
+     * @return the cache that lives in the given folder, shared with the other users of the folder in this JVM
+     */
+    public static CompilationCache open(File folder, long maxBytes) {
+        return CACHES.computeIfAbsent(folder.getAbsoluteFile(), key -> new CompilationCache(key, maxBytes));
+    }
+
+    /**
+     * @param config
+     * @return the cache enabled by the configuration, or empty if compilations should not be cached
+     */
+    public static Optional<CompilationCache> fromConfig(Map<String, String> config) {
+        return CompilerConfig.getCacheDir(config)
+                .map(folder -> open(folder, CompilerConfig.getCacheSize(config)));
+    }
+
+    /**
+     * Returns the cached result of compiling the given code with the given configuration, or compiles it and stores
+     * the result.
+     *
+     * @param code
+     * @param config
+     * @param compiler runs the pipeline, only called on a miss
+     * @return
+     */
+    public JasminResult getOrCompile(CharSequence code, Map<String, String> config, Supplier<JasminResult> compiler) {
+        var entryFile = new File(folder, getKey(code, config) + ENTRY_EXTENSION);
+
+        var cached = read(entryFile);
+        if (cached.isPresent()) {
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(cached.get().jasminCode().getBytes(StandardCharsets.UTF_8).length);
+
+            // Keeps the entry from being evicted, least recently used entries go first
+            entryFile.setLastModified(System.currentTimeMillis());
+
+            return cached.get().toJasminResult(config);
+        }
+
+        misses.incrementAndGet();
+
+        var result = compiler.get();
+        write(entryFile, Entry.from(result));
+        evict();
+
+        return result;
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), bytesSaved.get());
+    }
+
+    /**
+     * Hashes everything that can change the output of the compilation.
+     */
+    static String getKey(CharSequence code, Map<String, String> config) {
+        var key = new Fingerprint()
+                .add("format:" + FORMAT_VERSION)
+                .add("compiler:" + CompilerVersion.get());
+
+        for (var option : CompilerConfig.getCodegenOptions(config).entrySet()) {
+            key.add("option:" + option.getKey() + "=" + option.getValue());
+        }
+
+        // A buffer read from the input file is only copied into a String here, when the cache is enabled
+        return key.add("source:" + code).build();
+    }
+
+    private Optional<Entry> read(File entryFile) {
+        if (!entryFile.isFile()) {
+            return Optional.empty();
+        }
+
+        try {
+            var entry = GSON.fromJson(Files.readString(entryFile.toPath()), Entry.class);
+            return Optional.ofNullable(entry).filter(Entry::isValid);
+        } catch (IOException | JsonParseException e) {
+            // Evicted by someone else, or a broken entry, treated as a miss and overwritten
+            return Optional.empty();
+        }
+    }
+
+    private void write(File entryFile, Entry entry) {
+        try {
+            // Written to a temporary file and moved, so that concurrent readers never see half an entry
+            var tempFile = Files.createTempFile(folder.toPath(), "entry", ".tmp");
+            Files.writeString(tempFile, GSON.toJson(entry));
+            Files.move(tempFile, entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write cache entry '" + entryFile + "'", e);
+        }
+    }
+
+    private synchronized void evict() {
+        var entries = folder.listFiles((dir, name) -> name.endsWith(ENTRY_EXTENSION));
+        if (entries == null) {
+            return;
+        }
+
+        var totalBytes = Arrays.stream(entries).mapToLong(File::length).sum();
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+
+        // Least recently accessed first
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+
+        for (var entry : entries) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+
+            var length = entry.length();
+            if (entry.delete()) {
+                totalBytes -= length;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Counters of the cache since it was opened in this JVM.
+     *
+     * @param hits       compilations served from the cache
+     * @param misses     compilations that had to run the pipeline
+     * @param evictions  entries deleted to keep the cache under its size limit
+     * @param bytesSaved bytes of Jasmin code reused instead of generated
+     */
+    public record Stats(long hits, long misses, long evictions, long bytesSaved) {
+
+        public double getHitRate() {
+            var requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Cache: %d hits, %d misses (%.1f%% hit rate), %d evictions, %d bytes saved".formatted(
+                    hits, misses, getHitRate() * 100, evictions, bytesSaved);
+        }
+    }
+
+    private record CachedReport(ReportType type, Stage stage, int line, int column, String message) {
+    }
+
+    private record Entry(String className, String jasminCode, List<CachedReport> reports) {
+
+        static Entry from(JasminResult result) {
+            var reports = result.getReports().stream()
+                    .map(report -> new CachedReport(report.getType(), report.getStage(), report.getLine(),
+                            report.getColumn(), report.getMessage()))
+                    .toList();
+
+            return new Entry(result.getClassName(), result.getJasminCode(), reports);
+        }
+
+        boolean isValid() {
+            return jasminCode != null && reports != null;
+        }
+
+        JasminResult toJasminResult(Map<String, String> config) {
+            var jasminReports = reports.stream()
+                    .map(report -> new Report(report.type(), report.stage(), report.line(), report.column(),
+                            report.message()))
+                    .toList();
+
+            return new JasminResult(className, jasminCode, jasminReports, config);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package pt.up.fe.comp2025.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Identifies the build of the compiler, so that entries written by another build are never reused.
+ */
+class CompilerVersion {
+
+    private static final String VERSION = compute();
+
+    static String get() {
+        return VERSION;
+    }
+
+    private static String compute() {
+        File location;
+        try {
+            location = new File(CompilerVersion.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException | SecurityException | NullPointerException e) {
+            throw new RuntimeException("Could not find the location of the compiler classes", e);
+        }
+
+        // Packaged compiler
+        if (location.isFile()) {
+            return location.getName() + ":" + location.length() + ":" + location.lastModified();
+        }
+
+        // Compiler classes in a folder, changes when any class is rebuilt
+        try (var files = Files.walk(location.toPath())) {
+            var classes = files.filter(Files::isRegularFile).map(Path::toFile).toList();
+            var lastModified = classes.stream().mapToLong(File::lastModified).max().orElse(0);
+            var totalLength = classes.stream().mapToLong(File::length).sum();
+
+            return location.getName() + ":" + classes.size() + ":" + totalLength + ":" + lastModified;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the compiler classes in '" + location + "'", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package pt.up.fe.comp2025.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of a sequence of strings, used as the key of cache entries.
+ */
+class Fingerprint {
+
+    private final MessageDigest digest;
+
+    Fingerprint() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    Fingerprint add(String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        // Length prefix, so that different sequences of values cannot hash to the same bytes
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+
+        return this;
+    }
+
+    String build() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,201 @@
+package pt.up.fe.comp2025.cache;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+import pt.up.fe.comp2025.CompilerConfig;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static pt.up.fe.comp2025.ast.Kind.METHOD_CALL;
+
+/**
+ * In-memory cache of the Jasmin code of single methods, used by incremental compilation.
+ * <p>
+ * A method is keyed by a fingerprint of its METHOD_DECL subtree and of the entries of the symbol table the subtree
+ * depends on: the class, its imports and fields, the signature of the method itself and the signatures of the methods
+ * it calls. Editing the body of a method changes only its own fingerprint, so the other methods of the class are
+ * reused.
+ * <p>
+ * The cache is shared by every compilation of the JVM, which makes it useful in batch and daemon mode, keeps at most a
+ * fixed number of methods (least recently used are dropped first) and is thread-safe.
+ */
+public class MethodCache {
+
+    // Bump when the fingerprint changes
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private static final MethodCache SHARED = new MethodCache(DEFAULT_CAPACITY);
+
+    // Positions do not change the generated code
+    private static final Set<String> IGNORED_ATTRIBUTES = Arrays.stream(NodePosition.values())
+            .map(NodePosition::getKey)
+            .collect(Collectors.toSet());
+
+    private final Map<String, String> entries;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    public MethodCache(int capacity) {
+        // Access order, the eldest entry is the least recently used
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * @return the cache shared by all the compilations of this JVM
+     */
+    public static MethodCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param fingerprint
+     * @return the Jasmin code of the method with the given fingerprint, if it was generated before
+     */
+    public Optional<String> get(String fingerprint) {
+        String code;
+        synchronized (entries) {
+            code = entries.get(fingerprint);
+        }
+
+        (code != null ? hits : misses).incrementAndGet();
+
+        return Optional.ofNullable(code);
+    }
+
+    public void put(String fingerprint, String code) {
+        synchronized (entries) {
+            entries.put(fingerprint, code);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get());
+    }
+
+    /**
+     * Computes the key of a method. Two methods with the same fingerprint generate the same Jasmin code.
+     *
+     * @param method a METHOD_DECL node, before any optimization changed it
+     * @param table
+     * @param config
+     * @return
+     */
+    public static String fingerprint(JmmNode method, SymbolTable table, Map<String, String> config) {
+        var key = new Fingerprint()
+                .add("format:" + FORMAT_VERSION)
+                .add("compiler:" + CompilerVersion.get());
+
+        for (var option : CompilerConfig.getCodegenOptions(config).entrySet()) {
+            key.add("option:" + option.getKey() + "=" + option.getValue());
+        }
+
+        // Class level entries, decide how names are resolved and invoked
+        key.add("class:" + table.getClassName() + " extends " + table.getSuper());
+        key.add("imports:" + table.getImports());
+        key.add("fields:" + describe(table.getFields()));
+
+        // Signature of the method
+        var name = method.get("name");
+        key.add("method:" + signature(table, name));
+        key.add("locals:" + describe(table.getLocalVariables(name)));
+
+        // Signatures of the called methods, varargs and return types depend on them
+        var calledMethods = new TreeSet<String>();
+        for (var call : method.getDescendants(METHOD_CALL)) {
+            calledMethods.add(call.get("name"));
+        }
+        for (var calledMethod : calledMethods) {
+            key.add("calls:" + calledMethod + " " + signature(table, calledMethod));
+        }
+
+        var tree = new StringBuilder();
+        serialize(method, tree);
+        key.add("tree:" + tree);
+
+        return key.build();
+    }
+
+    private static String signature(SymbolTable table, String method) {
+        if (!table.getMethods().contains(method)) {
+            return "external";
+        }
+
+        return describe(table.getReturnType(method)) + " " + describe(table.getParameters(method));
+    }
+
+    private static String describe(List<Symbol> symbols) {
+        if (symbols == null) {
+            return "[]";
+        }
+
+        return symbols.stream()
+                .map(symbol -> describe(symbol.getType()) + " " + symbol.getName())
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static String describe(Type type) {
+        if (type == null) {
+            return "null";
+        }
+
+        var attributes = new TreeSet<>(type.getAttributes()).stream()
+                .map(attribute -> attribute + "=" + type.getObject(attribute))
+                .collect(Collectors.joining(",", "{", "}"));
+
+        return type.print() + attributes;
+    }
+
+    private static void serialize(JmmNode node, StringBuilder tree) {
+        tree.append(node.getKind());
+
+        for (var attribute : new TreeSet<>(node.getAttributes())) {
+            if (IGNORED_ATTRIBUTES.contains(attribute)) {
+                continue;
+            }
+
+            tree.append(' ').append(attribute).append('=').append(node.getObject(attribute));
+        }
+
+        tree.append('(');
+        for (var child : node.getChildren()) {
+            serialize(child, tree);
+            tree.append(',');
+        }
+        tree.append(')');
+    }
+
+    /**
+     * Counters of the cache since the JVM started.
+     *
+     * @param hits   methods whose code was reused
+     * @param misses methods that had to be generated
+     */
+    public record Stats(long hits, long misses) {
+
+        @Override
+        public String toString() {
+            return "Methods: %d reused, %d generated".formatted(hits, misses);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package pt.up.fe.comp2025.daemon;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Thin client of the {@link CompilerDaemon}.
+ * <p>
+ * Every method returns an empty Optional when there is no daemon listening on the given port, so that callers can fall
+ * back to compiling in-process.
+ */
+public class CompilerClient {
+
+    private static final int CONNECT_TIMEOUT_MS = 500;
+
+    private final int port;
+    private final Gson gson;
+
+    public CompilerClient(int port) {
+        this.port = port;
+        this.gson = new Gson();
+    }
+
+    public Optional<DaemonResponse> compile(String inputFile, Map<String, String> config) {
+        return send(DaemonRequest.compile(inputFile, config));
+    }
+
+    public Optional<DaemonResponse> stats() {
+        return send(DaemonRequest.stats());
+    }
+
+    public Optional<DaemonResponse> shutdown() {
+        return send(DaemonRequest.shutdown());
+    }
+
+    private Optional<DaemonResponse> send(DaemonRequest request) {
+        try (var socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MS);
+
+            var out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            out.println(gson.toJson(request));
+            var line = in.readLine();
+
+            if (line == null) {
+                throw new RuntimeException("Compiler daemon on port " + port + " closed the connection");
+            }
+
+            return Optional.of(gson.fromJson(line, DaemonResponse.class));
+        } catch (ConnectException | SocketTimeoutException e) {
+            // No daemon running
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not communicate with compiler daemon on port " + port, e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package pt.up.fe.comp2025.daemon;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.backend.ClassFileResult;
+import pt.up.fe.comp2025.parser.SourceReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-running compiler process that serves compile requests over a loopback socket.
+ * <p>
+ * Keeping the JVM resident means class loading, ANTLR initialization and JIT compilation are only paid once. The
+ * protocol is line based: each request and each response is a single line of JSON (see {@link DaemonRequest} and
+ * {@link DaemonResponse}). Every compilation uses its own stages and context, so connections are served concurrently
+ * by a pool of workers.
+ */
+public class CompilerDaemon {
+
+    private static final int LATENCY_WINDOW = 10_000;
+
+    private final int port;
+    private final int workers;
+    private final Gson gson;
+    private final LatencyStats latencies;
+
+    private ServerSocket serverSocket;
+
+    public CompilerDaemon(int port, int workers) {
+        this.port = port;
+        this.workers = workers;
+        this.gson = new Gson();
+        this.latencies = new LatencyStats(LATENCY_WINDOW);
+    }
+
+    public LatencyStats getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Serves requests until a shutdown request is received.
+     */
+    public void run() {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+
+        try (var server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            serverSocket = server;
+            System.out.println("Compiler daemon listening on " + server.getLocalSocketAddress());
+
+            while (!server.isClosed()) {
+                try {
+                    var socket = server.accept();
+                    pool.submit(() -> serve(socket));
+                } catch (SocketException e) {
+                    // Server socket was closed by a shutdown request
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not run compiler daemon on port " + port, e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        System.out.println("Compiler daemon stopped: " + latencies.snapshot());
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             var out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                // A request that cannot be read or handled only fails itself, the connection stays open
+                DaemonRequest request = null;
+                DaemonResponse response;
+                try {
+                    request = gson.fromJson(line, DaemonRequest.class);
+                    response = handle(request);
+                } catch (JsonParseException e) {
+                    response = DaemonResponse.error("Malformed request: " + e.getMessage(), 0);
+                } catch (RuntimeException e) {
+                    response = DaemonResponse.error("Could not handle request: " + e, 0);
+                }
+                out.println(gson.toJson(response));
+
+                if (request != null && DaemonRequest.SHUTDOWN.equals(request.type())) {
+                    serverSocket.close();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Lost connection with client: " + e.getMessage());
+        }
+    }
+
+    private DaemonResponse handle(DaemonRequest request) {
+        if (request == null || request.type() == null) {
+            return DaemonResponse.error("Empty request", 0);
+        }
+
+        return switch (request.type()) {
+            case DaemonRequest.COMPILE -> compile(request);
+            case DaemonRequest.STATS -> DaemonResponse.stats(latencies.snapshot());
+            case DaemonRequest.SHUTDOWN -> DaemonResponse.stats(latencies.snapshot());
+            default -> DaemonResponse.error("Unknown request type '" + request.type() + "'", 0);
+        };
+    }
+
+    private DaemonResponse compile(DaemonRequest request) {
+        var start = System.nanoTime();
+
+        DaemonResponse response;
+        try {
+            var inputFile = new File(request.inputFile());
+            if (!inputFile.isFile()) {
+                throw new RuntimeException("Could not find input file '" + inputFile + "'");
+            }
+
+            var config = new HashMap<>(CompilerConfig.getDefault());
+            if (request.config() != null) {
+                config.putAll(request.config());
+            }
+            config = new HashMap<>(CompilerConfig.forInputFile(config, inputFile));
+
+            var result = Launcher.compile(SourceReader.read(inputFile), config);
+            var reports = result.getReports().stream().map(Report::toString).toList();
+
+            // The class file backend has no Jasmin code, the class file is sent instead
+            if (result instanceof ClassFileResult classFileResult) {
+                response = new DaemonResponse(true, result.getClassName(), null,
+                        Base64.getEncoder().encodeToString(classFileResult.getClassFile()), reports, null,
+                        System.nanoTime() - start, null);
+            } else {
+                response = new DaemonResponse(true, result.getClassName(), result.getJasminCode(), null, reports,
+                        null, System.nanoTime() - start, null);
+            }
+        } catch (Exception e) {
+            var message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            response = DaemonResponse.error(message, System.nanoTime() - start);
+        }
+
+        latencies.record(response.latencyNanos());
+
+        return response;
+    }
+}
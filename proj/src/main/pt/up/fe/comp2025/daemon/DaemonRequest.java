@@ -0,0 +1,29 @@
+package pt.up.fe.comp2025.daemon;
+
+import java.util.Map;
+
+/**
+ * A request sent to the compiler daemon, one JSON object per line.
+ *
+ * @param type      one of {@link #COMPILE}, {@link #STATS} or {@link #SHUTDOWN}
+ * @param inputFile absolute path of the file to compile, only used by compile requests
+ * @param config    compiler configuration, only used by compile requests
+ */
+public record DaemonRequest(String type, String inputFile, Map<String, String> config) {
+
+    public static final String COMPILE = "compile";
+    public static final String STATS = "stats";
+    public static final String SHUTDOWN = "shutdown";
+
+    public static DaemonRequest compile(String inputFile, Map<String, String> config) {
+        return new DaemonRequest(COMPILE, inputFile, config);
+    }
+
+    public static DaemonRequest stats() {
+        return new DaemonRequest(STATS, null, null);
+    }
+
+    public static DaemonRequest shutdown() {
+        return new DaemonRequest(SHUTDOWN, null, null);
+    }
+}
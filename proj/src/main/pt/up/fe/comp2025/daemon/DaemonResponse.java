@@ -0,0 +1,35 @@
+package pt.up.fe.comp2025.daemon;
+
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * The answer of the compiler daemon to a {@link DaemonRequest}.
+ *
+ * @param success      false if the request failed, in which case error has the reason
+ * @param className    name of the compiled class
+ * @param jasminCode   the generated Jasmin code, null with the class file backend
+ * @param classFile    the generated class file in base64, only set with the class file backend
+ * @param reports      the reports of the compilation
+ * @param error        the error message, if the request failed
+ * @param latencyNanos time the daemon took to serve the request
+ * @param stats        latency statistics of the daemon, only set for stats requests
+ */
+public record DaemonResponse(boolean success, String className, String jasminCode, String classFile,
+                             List<String> reports, String error, long latencyNanos, LatencyStats.Snapshot stats) {
+
+    public static DaemonResponse error(String error, long latencyNanos) {
+        return new DaemonResponse(false, null, null, null, List.of(), error, latencyNanos, null);
+    }
+
+    public static DaemonResponse stats(LatencyStats.Snapshot stats) {
+        return new DaemonResponse(true, null, null, null, List.of(), null, 0, stats);
+    }
+
+    /**
+     * @return the bytes of the generated class file, or null if there is none
+     */
+    public byte[] getClassFileBytes() {
+        return classFile != null ? Base64.getDecoder().decode(classFile) : null;
+    }
+}
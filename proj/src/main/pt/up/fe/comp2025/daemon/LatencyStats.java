@@ -0,0 +1,59 @@
+package pt.up.fe.comp2025.daemon;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent requests served by the daemon and computes percentiles over them.
+ * <p>
+ * Thread-safe, requests are recorded from the worker threads of the daemon.
+ */
+public class LatencyStats {
+
+    private final long[] window;
+    private long count;
+
+    public LatencyStats(int windowSize) {
+        this.window = new long[windowSize];
+        this.count = 0;
+    }
+
+    public synchronized void record(long latencyNanos) {
+        window[(int) (count % window.length)] = latencyNanos;
+        count++;
+    }
+
+    public synchronized Snapshot snapshot() {
+        var size = (int) Math.min(count, window.length);
+        var sorted = Arrays.copyOf(window, size);
+        Arrays.sort(sorted);
+
+        return new Snapshot(count, percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                size == 0 ? 0 : toMillis(sorted[size - 1]));
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        // Nearest-rank method
+        var rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return toMillis(sorted[Math.max(rank, 1) - 1]);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Latency percentiles in milliseconds, over the requests currently in the window.
+     */
+    public record Snapshot(long requests, double p50Ms, double p90Ms, double p99Ms, double maxMs) {
+
+        @Override
+        public String toString() {
+            return "%d requests, latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms".formatted(
+                    requests, p50Ms, p90Ms, p99Ms, maxMs);
+        }
+    }
+}
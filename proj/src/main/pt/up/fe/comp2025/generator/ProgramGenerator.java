@@ -0,0 +1,283 @@
+package pt.up.fe.comp2025.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates valid Java-- programs of a chosen size, for stress and scaling tests.
+ * <p>
+ * The programs only use constructs the compiler supports and are correct by construction: every variable is declared
+ * and initialized before it is used, every expression has the type its context expects, methods only call methods
+ * declared before them (so there is no recursion) and loops use dedicated counters with a fixed number of iterations
+ * (so the programs terminate). The same settings always generate the same program.
+ */
+public class ProgramGenerator {
+
+    public static final String CLASS_NAME = "Generated";
+
+    // Iterations of each generated loop, kept small because loops nest
+    private static final int LOOP_ITERATIONS = 3;
+    private static final int ARRAY_SIZE = 8;
+
+    private static final String INDENT = "    ";
+
+    /**
+     * Size of the generated program.
+     *
+     * @param methods    number of methods, besides main
+     * @param locals     number of int locals of each method
+     * @param statements number of statements of each method, counting the ones inside ifs and loops
+     * @param loopDepth  maximum nesting of loops
+     * @param exprDepth  maximum depth of expressions
+     * @param seed       seed of the random choices
+     */
+    public record Settings(int methods, int locals, int statements, int loopDepth, int exprDepth, long seed) {
+
+        public Settings {
+            if (methods < 1 || locals < 1 || statements < 0 || loopDepth < 0 || exprDepth < 0) {
+                throw new IllegalArgumentException("Invalid program generator settings: " + this);
+            }
+        }
+
+        public static Settings defaults() {
+            return new Settings(4, 4, 20, 2, 3, 0);
+        }
+
+        public Settings withMethods(int methods) {
+            return new Settings(methods, locals, statements, loopDepth, exprDepth, seed);
+        }
+
+        public Settings withLocals(int locals) {
+            return new Settings(methods, locals, statements, loopDepth, exprDepth, seed);
+        }
+
+        public Settings withStatements(int statements) {
+            return new Settings(methods, locals, statements, loopDepth, exprDepth, seed);
+        }
+
+        public Settings withLoopDepth(int loopDepth) {
+            return new Settings(methods, locals, statements, loopDepth, exprDepth, seed);
+        }
+
+        public Settings withExprDepth(int exprDepth) {
+            return new Settings(methods, locals, statements, loopDepth, exprDepth, seed);
+        }
+    }
+
+    private final Settings settings;
+    private final Random random;
+    private final StringBuilder code;
+
+    // Index of the method being generated, it can call the methods before it
+    private int currentMethod;
+    // Statements still to generate in the current method
+    private int remainingStatements;
+
+    private ProgramGenerator(Settings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.seed());
+        this.code = new StringBuilder();
+    }
+
+    /**
+     * @param settings
+     * @return the source code of a program with the given size
+     */
+    public static String generate(Settings settings) {
+        return new ProgramGenerator(settings).generate();
+    }
+
+    private String generate() {
+        code.append("import io;\n\n");
+        code.append("class ").append(CLASS_NAME).append(" {\n\n");
+        code.append(INDENT).append("int field;\n");
+        code.append(INDENT).append("int[] data;\n\n");
+
+        for (currentMethod = 0; currentMethod < settings.methods(); currentMethod++) {
+            generateMethod();
+        }
+
+        code.append(INDENT).append("public static void main(String[] args) {\n");
+        code.append(INDENT).append(INDENT).append(CLASS_NAME).append(" program;\n");
+        code.append(INDENT).append(INDENT).append("program = new ").append(CLASS_NAME).append("();\n");
+        code.append(INDENT).append(INDENT).append("program.init();\n");
+        code.append(INDENT).append(INDENT).append("io.println(program.m").append(settings.methods() - 1)
+                .append("(1, 2));\n");
+        code.append(INDENT).append("}\n");
+
+        generateInit();
+
+        code.append("}\n");
+
+        return code.toString();
+    }
+
+    private void generateInit() {
+        code.append("\n").append(INDENT).append("public int init() {\n");
+        line(2, "field = 1;");
+        line(2, "data = new int[" + ARRAY_SIZE + "];");
+        line(2, "return 0;");
+        code.append(INDENT).append("}\n");
+    }
+
+    private void generateMethod() {
+        code.append(INDENT).append("public int m").append(currentMethod).append("(int a, int b) {\n");
+
+        for (int i = 0; i < settings.locals(); i++) {
+            line(2, "int v" + i + ";");
+        }
+        for (int i = 0; i < settings.loopDepth(); i++) {
+            line(2, "int i" + i + ";");
+        }
+        line(2, "boolean c;");
+        line(2, "int[] values;");
+
+        // Everything is initialized before the statements can read it
+        for (int i = 0; i < settings.locals(); i++) {
+            line(2, "v" + i + " = " + random.nextInt(100) + ";");
+        }
+        line(2, "c = true;");
+        line(2, "values = new int[" + ARRAY_SIZE + "];");
+
+        remainingStatements = settings.statements();
+        while (remainingStatements > 0) {
+            generateStatement(2, 0);
+        }
+
+        line(2, "return " + intExpr(settings.exprDepth()) + ";");
+        code.append(INDENT).append("}\n\n");
+    }
+
+    private void generateStatement(int indent, int loopDepth) {
+        remainingStatements--;
+
+        var choice = random.nextInt(10);
+
+        if (choice < 2 && loopDepth < settings.loopDepth()) {
+            generateWhile(indent, loopDepth);
+        } else if (choice < 4) {
+            generateIf(indent, loopDepth);
+        } else if (choice < 5) {
+            line(indent, "values[" + random.nextInt(ARRAY_SIZE) + "] = " + intExpr(settings.exprDepth()) + ";");
+        } else if (choice < 6) {
+            line(indent, "field = " + intExpr(settings.exprDepth()) + ";");
+        } else if (choice < 7) {
+            line(indent, "c = " + boolExpr(settings.exprDepth()) + ";");
+        } else if (choice < 8 && currentMethod > 0) {
+            var callee = random.nextInt(currentMethod);
+            line(indent, local() + " = this.m" + callee + "(" + intExpr(1) + ", " + intExpr(1) + ");");
+        } else {
+            line(indent, local() + " = " + intExpr(settings.exprDepth()) + ";");
+        }
+    }
+
+    private void generateWhile(int indent, int loopDepth) {
+        var counter = "i" + loopDepth;
+
+        line(indent, counter + " = 0;");
+        line(indent, "while (" + counter + " < " + LOOP_ITERATIONS + ") {");
+        generateBlock(indent + 1, loopDepth + 1);
+        line(indent + 1, counter + " = " + counter + " + 1;");
+        line(indent, "}");
+    }
+
+    private void generateIf(int indent, int loopDepth) {
+        line(indent, "if (" + boolExpr(settings.exprDepth()) + ") {");
+        generateBlock(indent + 1, loopDepth);
+        line(indent, "} else {");
+        generateBlock(indent + 1, loopDepth);
+        line(indent, "}");
+    }
+
+    private void generateBlock(int indent, int loopDepth) {
+        var size = Math.min(remainingStatements, 1 + random.nextInt(3));
+        for (int i = 0; i < size; i++) {
+            generateStatement(indent, loopDepth);
+        }
+    }
+
+    /**
+     * Expressions are written without parentheses, the parser rebuilds them following the precedence of the operators,
+     * which is always type-correct because every operand of + - * is an int.
+     */
+    private String intExpr(int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return intLeaf();
+        }
+
+        var op = List.of("+", "-", "*").get(random.nextInt(3));
+        return intExpr(depth - 1) + " " + op + " " + intExpr(depth - 1);
+    }
+
+    private String intLeaf() {
+        return switch (random.nextInt(7)) {
+            case 0 -> Integer.toString(random.nextInt(10));
+            case 1 -> random.nextBoolean() ? "a" : "b";
+            case 2 -> "field";
+            case 3 -> "values[" + random.nextInt(ARRAY_SIZE) + "]";
+            case 4 -> "values.length";
+            default -> local();
+        };
+    }
+
+    /**
+     * Comparisons bind tighter than &&, and ! is only applied to leaves, so no parentheses are needed.
+     */
+    private String boolExpr(int depth) {
+        if (depth == 0) {
+            return boolLeaf();
+        }
+
+        return switch (random.nextInt(3)) {
+            case 0 -> intExpr(depth - 1) + " < " + intExpr(depth - 1);
+            case 1 -> boolExpr(depth - 1) + " && " + boolExpr(depth - 1);
+            default -> boolLeaf();
+        };
+    }
+
+    private String boolLeaf() {
+        return switch (random.nextInt(4)) {
+            case 0 -> "c";
+            case 1 -> "!c";
+            case 2 -> Boolean.toString(random.nextBoolean());
+            default -> local() + " < " + random.nextInt(100);
+        };
+    }
+
+    private String local() {
+        return "v" + random.nextInt(settings.locals());
+    }
+
+    private void line(int indent, String line) {
+        code.append(INDENT.repeat(indent)).append(line).append("\n");
+    }
+
+    /**
+     * @param settings
+     * @return the number of lines of the program generated with the given settings
+     */
+    public static int countLines(Settings settings) {
+        return (int) generate(settings).lines().count();
+    }
+
+    /**
+     * @return the settings of a series of programs where a single dimension grows, starting from the given settings
+     */
+    public static List<Settings> series(Settings base, String dimension, List<Integer> values) {
+        var series = new ArrayList<Settings>();
+
+        for (var value : values) {
+            series.add(switch (dimension) {
+                case "methods" -> base.withMethods(value);
+                case "locals" -> base.withLocals(value);
+                case "statements" -> base.withStatements(value);
+                case "loopDepth" -> base.withLoopDepth(value);
+                case "exprDepth" -> base.withExprDepth(value);
+                default -> throw new RuntimeException("Unknown program dimension '" + dimension + "'");
+            });
+        }
+
+        return series;
+    }
+}
@@ -0,0 +1,222 @@
+package pt.up.fe.comp2025.generator;
+
+import com.google.gson.GsonBuilder;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.generator.ProgramGenerator.Settings;
+import pt.up.fe.comp2025.metrics.CompilerMetrics;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compiles generated programs of growing size and reports how the time and allocations of each stage grow with them.
+ * <p>
+ * For each dimension of {@link Settings} a series of programs is generated where only that dimension grows. Each
+ * program is compiled several times with metrics enabled and the median of each stage is kept. The growth of a stage
+ * is the slope of log(time) against log(source size), fitted over the series: about 1 for a linear stage, 2 for a
+ * quadratic one.
+ * <p>
+ * Usage: ScalingReport [dimension ...] [-o=&lt;json file&gt;], run with 'gradle scalingReport'.
+ */
+public class ScalingReport {
+
+    private static final Map<String, List<Integer>> SERIES = new LinkedHashMap<>();
+
+    static {
+        SERIES.put("methods", List.of(1, 2, 4, 8, 16, 32, 64));
+        SERIES.put("statements", List.of(10, 20, 40, 80, 160, 320));
+        SERIES.put("locals", List.of(1, 4, 16, 64, 256));
+        SERIES.put("loopDepth", List.of(1, 2, 3, 4, 5, 6));
+        SERIES.put("exprDepth", List.of(1, 2, 3, 4, 5, 6, 7));
+    }
+
+    // Every stage of the pipeline is enabled
+    private static final Map<String, String> CONFIG = Map.of(
+            "optimize", "true",
+            "registerAllocation", "0",
+            "metrics", "true");
+
+    private static final int WARMUP = 2;
+    private static final int REPEATS = 5;
+
+    // Growth above this is reported as superlinear
+    private static final double SUPERLINEAR = 1.2;
+
+    public static void main(String[] args) {
+        var dimensions = new ArrayList<String>();
+        File output = null;
+
+        for (var arg : args) {
+            if (arg.startsWith("-o=")) {
+                output = new File(arg.substring(3));
+            } else if (SERIES.containsKey(arg)) {
+                dimensions.add(arg);
+            } else {
+                throw new RuntimeException("Unknown argument '" + arg + "', expected one of " + SERIES.keySet()
+                        + " or -o=<file>");
+            }
+        }
+
+        if (dimensions.isEmpty()) {
+            dimensions.addAll(SERIES.keySet());
+        }
+
+        var reports = new ArrayList<SeriesReport>();
+        for (var dimension : dimensions) {
+            var report = measure(dimension);
+            System.out.println(report.toTable());
+            reports.add(report);
+        }
+
+        if (output != null) {
+            SpecsIo.write(output, new GsonBuilder().setPrettyPrinting().create().toJson(reports));
+            System.out.println("Wrote " + output);
+        }
+    }
+
+    public static SeriesReport measure(String dimension) {
+        var points = new ArrayList<Point>();
+
+        for (var settings : ProgramGenerator.series(Settings.defaults(), dimension, SERIES.get(dimension))) {
+            var code = ProgramGenerator.generate(settings);
+            points.add(measure(dimension, settings, code));
+        }
+
+        return new SeriesReport(dimension, points, getGrowth(points));
+    }
+
+    private static Point measure(String dimension, Settings settings, String code) {
+        var runs = new ArrayList<CompilerMetrics.Report>();
+
+        for (int i = 0; i < WARMUP + REPEATS; i++) {
+            var context = new CompilationContext(CONFIG);
+            Launcher.compile(code, context);
+
+            if (i >= WARMUP) {
+                runs.add(context.getMetrics().getReport(dimension));
+            }
+        }
+
+        var stages = new LinkedHashMap<String, StageCost>();
+        for (var stage : runs.getFirst().stages()) {
+            var name = stage.name();
+            var wallNanos = median(runs, name, CompilerMetrics.Measurement::wallNanos);
+            var allocatedBytes = median(runs, name, CompilerMetrics.Measurement::allocatedBytes);
+            stages.put(name, new StageCost(wallNanos, allocatedBytes));
+        }
+
+        return new Point(getValue(settings, dimension), code.length(), stages);
+    }
+
+    private static long median(List<CompilerMetrics.Report> runs, String stage,
+                               ToLongFunction<CompilerMetrics.Measurement> value) {
+        var values = runs.stream()
+                .flatMap(run -> run.stages().stream())
+                .filter(measurement -> measurement.name().equals(stage))
+                .mapToLong(value)
+                .sorted()
+                .toArray();
+
+        return values[values.length / 2];
+    }
+
+    private static int getValue(Settings settings, String dimension) {
+        return switch (dimension) {
+            case "methods" -> settings.methods();
+            case "statements" -> settings.statements();
+            case "locals" -> settings.locals();
+            case "loopDepth" -> settings.loopDepth();
+            case "exprDepth" -> settings.exprDepth();
+            default -> throw new RuntimeException("Unknown program dimension '" + dimension + "'");
+        };
+    }
+
+    /**
+     * Least-squares slope of log(time) against log(source size), for each stage.
+     */
+    static Map<String, Double> getGrowth(List<Point> points) {
+        var growth = new LinkedHashMap<String, Double>();
+
+        for (var stage : points.getFirst().stages().keySet()) {
+            var x = points.stream().mapToDouble(point -> Math.log(point.sourceBytes())).toArray();
+            var y = points.stream().mapToDouble(point -> Math.log(Math.max(1, point.stages().get(stage).wallNanos())))
+                    .toArray();
+
+            growth.put(stage, slope(x, y));
+        }
+
+        return growth;
+    }
+
+    static double slope(double[] x, double[] y) {
+        var meanX = Arrays.stream(x).average().orElse(0);
+        var meanY = Arrays.stream(y).average().orElse(0);
+
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < x.length; i++) {
+            covariance += (x[i] - meanX) * (y[i] - meanY);
+            variance += (x[i] - meanX) * (x[i] - meanX);
+        }
+
+        return variance == 0 ? 0 : covariance / variance;
+    }
+
+    /**
+     * Median cost of a stage for one program.
+     */
+    public record StageCost(long wallNanos, long allocatedBytes) {
+    }
+
+    /**
+     * One program of a series.
+     *
+     * @param value       value of the dimension that grows
+     * @param sourceBytes size of the program
+     * @param stages      cost of each stage
+     */
+    public record Point(int value, int sourceBytes, Map<String, StageCost> stages) {
+    }
+
+    public record SeriesReport(String dimension, List<Point> points, Map<String, Double> growth) {
+
+        public String toTable() {
+            var table = new StringBuilder();
+            var stages = points.getFirst().stages().keySet();
+
+            table.append("Scaling with ").append(dimension).append(" (time in ms / allocated MB)\n");
+            table.append("%-10s %-10s".formatted(dimension, "bytes"));
+            for (var stage : stages) {
+                table.append(" %-20s".formatted(stage));
+            }
+            table.append("\n");
+
+            for (var point : points) {
+                table.append("%-10d %-10d".formatted(point.value(), point.sourceBytes()));
+                for (var stage : stages) {
+                    var cost = point.stages().get(stage);
+                    table.append(" %-20s".formatted("%.2f / %.1f".formatted(cost.wallNanos() / 1e6,
+                            cost.allocatedBytes() / (1024.0 * 1024.0))));
+                }
+                table.append("\n");
+            }
+
+            table.append("%-21s".formatted("growth"));
+            for (var stage : stages) {
+                var stageGrowth = growth.get(stage);
+                var label = "%.2f%s".formatted(stageGrowth, stageGrowth > SUPERLINEAR ? " superlinear" : "");
+                table.append(" %-20s".formatted(label));
+            }
+            table.append("\n");
+
+            return table.toString();
+        }
+    }
+}
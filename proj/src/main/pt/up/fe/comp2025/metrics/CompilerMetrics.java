@@ -0,0 +1,249 @@
+package pt.up.fe.comp2025.metrics;
+
+import com.google.gson.GsonBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Records the wall time, CPU time and allocated bytes of the stages of a compilation and of the passes inside them.
+ * <p>
+ * One CompilerMetrics per compilation, owned by its {@link pt.up.fe.comp2025.CompilationContext}. CPU time and
+ * allocations are read from the {@link ThreadMXBean} of the thread running the compilation. Work that the compilation
+ * hands to other threads (e.g. the methods generated in parallel) is measured by those threads with {@link #worker},
+ * and added to the stages and passes that were running while it ran. A pass that runs several times (e.g. once per
+ * method) is accumulated in a single measurement.
+ * <p>
+ * Passes can also report counts of what they did (e.g. instructions removed), see {@link #count}.
+ * <p>
+ * When disabled, {@link #stage} and {@link #pass} only run the work they are given.
+ */
+public class CompilerMetrics {
+
+    private static final CompilerMetrics DISABLED = new CompilerMetrics(false);
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final boolean enabled;
+
+    private final Map<String, Counter> stages;
+    private final Map<String, Counter> passes;
+    private final Map<String, Long> counts;
+
+    // CPU time and allocations of the work that ran on other threads, see worker()
+    private final LongAdder workerCpuNanos;
+    private final LongAdder workerAllocatedBytes;
+
+    private String currentStage;
+    private volatile Thread compilingThread;
+
+    private CompilerMetrics(boolean enabled) {
+        this.enabled = enabled;
+        this.stages = new LinkedHashMap<>();
+        this.passes = new LinkedHashMap<>();
+        this.counts = new LinkedHashMap<>();
+        this.workerCpuNanos = new LongAdder();
+        this.workerAllocatedBytes = new LongAdder();
+        this.currentStage = "none";
+    }
+
+    /**
+     * @return metrics that record nothing, can be shared
+     */
+    public static CompilerMetrics disabled() {
+        return DISABLED;
+    }
+
+    public static CompilerMetrics enabled() {
+        return new CompilerMetrics(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs a stage of the compiler, passes that run inside it are attributed to it.
+     *
+     * @param name
+     * @param work
+     * @return the result of the work
+     */
+    public <T> T stage(String name, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+
+        var previousStage = currentStage;
+        currentStage = name;
+        compilingThread = Thread.currentThread();
+        try {
+            return measure(stages, name, work);
+        } finally {
+            currentStage = previousStage;
+        }
+    }
+
+    /**
+     * Runs a pass of the current stage.
+     *
+     * @param name
+     * @param work
+     * @return the result of the work
+     */
+    public <T> T pass(String name, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+
+        return measure(passes, currentStage + "/" + name, work);
+    }
+
+    public void pass(String name, Runnable work) {
+        pass(name, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs part of the current stage or pass on another thread, e.g. in a parallel stream. Its CPU time and allocations
+     * are added to those of the compiling thread. Work that runs on the compiling thread itself is already measured.
+     *
+     * @param work
+     * @return the result of the work
+     */
+    public <T> T worker(Supplier<T> work) {
+        if (!enabled || Thread.currentThread() == compilingThread) {
+            return work.get();
+        }
+
+        var startCpu = getCpuTime();
+        var startAllocated = getAllocatedBytes();
+
+        try {
+            return work.get();
+        } finally {
+            workerCpuNanos.add(getCpuTime() - startCpu);
+            workerAllocatedBytes.add(getAllocatedBytes() - startAllocated);
+        }
+    }
+
+    /**
+     * Adds to a count of the current stage, counts with the same name are summed.
+     *
+     * @param name
+     * @param amount
+     */
+    public void count(String name, long amount) {
+        if (!enabled) {
+            return;
+        }
+
+        counts.merge(currentStage + "/" + name, amount, Long::sum);
+    }
+
+    private <T> T measure(Map<String, Counter> counters, String key, Supplier<T> work) {
+        var startWall = System.nanoTime();
+        var startCpu = getCpuTime() + workerCpuNanos.sum();
+        var startAllocated = getAllocatedBytes() + workerAllocatedBytes.sum();
+
+        try {
+            return work.get();
+        } finally {
+            var counter = counters.computeIfAbsent(key, Counter::new);
+            counter.calls++;
+            counter.wallNanos += System.nanoTime() - startWall;
+            counter.cpuNanos += getCpuTime() + workerCpuNanos.sum() - startCpu;
+            counter.allocatedBytes += getAllocatedBytes() + workerAllocatedBytes.sum() - startAllocated;
+        }
+    }
+
+    private static long getCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long getAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemorySupported()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+
+        return 0;
+    }
+
+    /**
+     * @param inputFile the file that was compiled, for the report
+     * @return a snapshot of what was recorded so far
+     */
+    public Report getReport(String inputFile) {
+        return new Report(inputFile, toMeasurements(stages), toMeasurements(passes), new LinkedHashMap<>(counts));
+    }
+
+    private static List<Measurement> toMeasurements(Map<String, Counter> counters) {
+        var measurements = new ArrayList<Measurement>();
+
+        for (var counter : counters.values()) {
+            var separator = counter.key.indexOf('/');
+            var stage = separator == -1 ? counter.key : counter.key.substring(0, separator);
+            var name = counter.key.substring(separator + 1);
+
+            measurements.add(new Measurement(stage, name, counter.calls, counter.wallNanos, counter.cpuNanos,
+                    counter.allocatedBytes));
+        }
+
+        return measurements;
+    }
+
+    /**
+     * @param reports
+     * @return the reports as a JSON array
+     */
+    public static String toJson(List<Report> reports) {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(reports);
+    }
+
+    private static class Counter {
+
+        private final String key;
+        private long calls;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        private Counter(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * What a stage or pass cost, summed over all the times it ran.
+     *
+     * @param stage          the stage, equal to the name for stages
+     * @param name           the stage or pass
+     * @param calls          how many times it ran
+     * @param wallNanos      elapsed time
+     * @param cpuNanos       CPU time of the compiling thread and of the workers it waited for
+     * @param allocatedBytes bytes allocated by the compiling thread and by the workers it waited for
+     */
+    public record Measurement(String stage, String name, long calls, long wallNanos, long cpuNanos,
+                              long allocatedBytes) {
+    }
+
+    /**
+     * The metrics of a single compilation.
+     *
+     * @param inputFile
+     * @param stages    in the order they first ran
+     * @param passes    in the order they first ran
+     * @param counts    by 'stage/name', in the order they were first reported
+     */
+    public record Report(String inputFile, List<Measurement> stages, List<Measurement> passes,
+                         Map<String, Long> counts) {
+    }
+}
@@ -2,10 +2,11 @@ package pt.up.fe.comp2025.optimization;
 
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
-import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.analysis.AnalysisVisitorReverse;
+import pt.up.fe.comp2025.ast.CompactJmmNode;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.Operator;
 
 import java.util.List;
 
@@ -32,32 +33,32 @@ public class ConstantFolding extends AnalysisVisitorReverse {
         if(Kind.INTEGER_LITERAL.check(left) && Kind.INTEGER_LITERAL.check(right)){
             Kind kind;
             String result;
-            var valLeft = Integer.parseInt(left.get("value"));
-            var valRight =Integer.parseInt(right.get("value"));
-            var op = jmmNode.get("op");
+            var valLeft = CompactJmmNode.intValueOf(left);
+            var valRight = CompactJmmNode.intValueOf(right);
+            var op = Operator.of(jmmNode);
              switch (op) {
-                case "+":
+                case ADD:
                     result = String.valueOf(valLeft + valRight);
                     kind = Kind.INTEGER_LITERAL;
                     break;
 
-                case "-":
+                case SUB:
                     result =String.valueOf(valLeft - valRight);
                     kind = Kind.INTEGER_LITERAL;
                     break;
-                case "*" :
+                case MUL:
                     result =String.valueOf(valLeft * valRight);
                     kind = Kind.INTEGER_LITERAL;
                     break;
-                case "/" :
+                case DIV:
                     result = String.valueOf(valLeft / valRight);
                     kind = Kind.INTEGER_LITERAL;
                     break;
-                case ">" :
+                case GT:
                     result = String.valueOf(valLeft > valRight);
                     kind = Kind.BOOLEAN_LITERAL;
                     break;
-                case "<" :
+                case LT:
                     result = String.valueOf(valLeft < valRight);
                     kind = Kind.BOOLEAN_LITERAL;
                     break;
@@ -65,14 +66,14 @@ public class ConstantFolding extends AnalysisVisitorReverse {
                      result = "";
                      kind = Kind.INTEGER_LITERAL;
             };
-            var newNode = new JmmNodeImpl(List.of( kind.toString(), Kind.EXPR.toString() ));
+            var newNode = new CompactJmmNode(List.of( kind.toString(), Kind.EXPR.toString() ));
             newNode.put("value", result);
             jmmNode.replace(newNode);
         }
         if(Kind.BOOLEAN_LITERAL.check(left) && Kind.BOOLEAN_LITERAL.check(right)){
             var valLeft = Boolean.parseBoolean(left.get("value"));
             var valRight =Boolean.parseBoolean(right.get("value"));
-            var newNode = new JmmNodeImpl(List.of(Kind.BOOLEAN_LITERAL.toString(), Kind.EXPR.toString()));
+            var newNode = new CompactJmmNode(List.of(Kind.BOOLEAN_LITERAL.toString(), Kind.EXPR.toString()));
             newNode.putObject("value", String.valueOf(valLeft && valRight));
             jmmNode.replace(newNode);
         }
@@ -1,30 +1,48 @@
 package pt.up.fe.comp2025.optimization;
 
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.metrics.CompilerMetrics;
+
+import java.util.List;
 
 public class ConstantPropOpt {
 
     JmmSemanticsResult semanticsResult;
 
+    // METHOD_DECL nodes to optimize
+    List<JmmNode> methods;
+
+    CompilerMetrics metrics;
+
     ConstantPropOpt(JmmSemanticsResult semanticsResult){
+        this(semanticsResult, semanticsResult.getRootNode().getDescendants(Kind.METHOD_DECL), CompilerMetrics.disabled());
+    }
+
+    ConstantPropOpt(JmmSemanticsResult semanticsResult, List<JmmNode> methods, CompilerMetrics metrics){
         this.semanticsResult = semanticsResult;
+        this.methods = methods;
+        this.metrics = metrics;
     }
 
     public void optimize() {
         var constantProp = new ConstantPropagation();
         var constantFold = new ConstantFolding();
-        var changeProp = false;
-        var changeFold = false;
-        do{
-            constantProp.reset();
-            constantFold.reset();
-            constantProp.visit(semanticsResult.getRootNode(), semanticsResult.getSymbolTable());
-            changeProp = constantProp.isChanged();
-
-            constantFold.analyze(semanticsResult.getRootNode(), semanticsResult.getSymbolTable());
-            changeFold = constantFold.isChanged();
-
-        }while(changeProp || changeFold);
+        for (var method : methods) {
+            var changeProp = false;
+            var changeFold = false;
+            do{
+                constantProp.reset();
+                constantFold.reset();
+                metrics.pass("ConstantPropagation", () -> constantProp.visit(method, semanticsResult.getSymbolTable()));
+                changeProp = constantProp.isChanged();
+
+                metrics.pass("ConstantFolding", () -> constantFold.analyze(method, semanticsResult.getSymbolTable()));
+                changeFold = constantFold.isChanged();
+
+            }while(changeProp || changeFold);
+        }
 
     }
 }
@@ -4,11 +4,15 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.KindDispatch;
 
 import java.util.*;
+import java.util.function.BiFunction;
 
 public class ConstantPropagation extends AJmmVisitor<SymbolTable,Set<String>> {
 
+    private final KindDispatch<SymbolTable, Set<String>> dispatch = new KindDispatch<>();
+
     private Map<String, JmmNode> constants;
 
     private String currentMethod;
@@ -17,6 +21,11 @@ public class ConstantPropagation extends AJmmVisitor<SymbolTable,Set<String>> {
 
 
 
+    @Override
+    protected BiFunction<JmmNode, SymbolTable, Set<String>> getVisit(JmmNode node) {
+        return dispatch.getVisit(node, super::getVisit);
+    }
+
     @Override
     protected void buildVisitor() {
         addVisit(Kind.METHOD_DECL,this::visitMethodDecl);
@@ -33,16 +42,27 @@ public class ConstantPropagation extends AJmmVisitor<SymbolTable,Set<String>> {
         var cond = jmmNode.getChild(0);
         var thenBody = jmmNode.getChild(1);
         var elseBody = jmmNode.getChild(2);
-        var constantsCopy = new HashMap<String,JmmNode>(constants);
         visit(cond,table);
-        var assignmentsDone = new HashSet<String>(visit(thenBody,table));
+        var constantsCopy = new HashMap<String,JmmNode>(constants);
+        visit(thenBody,table);
         constants = new HashMap<>(constantsCopy);
-        assignmentsDone.addAll(visit(elseBody,table));
+        visit(elseBody,table);
         constants = new HashMap<>(constantsCopy);
+
+        // Includes the assignments of nested statements, which are not known to be constant after the if
+        var assignmentsDone = getAssignedVars(jmmNode);
         for( var reference: assignmentsDone){
             constants.remove(reference);
         }
-        return null;
+        return assignmentsDone;
+    }
+
+    private Set<String> getAssignedVars(JmmNode jmmNode){
+        var assignedVars = new HashSet<String>();
+        for( var node : jmmNode.getDescendants(Kind.ASSIGN_STMT)){
+            assignedVars.add(node.getChild(0).get("name"));
+        }
+        return assignedVars;
     }
 
     private Set<String> visitScopeStmt(JmmNode jmmNode, SymbolTable table){
@@ -60,12 +80,17 @@ public class ConstantPropagation extends AJmmVisitor<SymbolTable,Set<String>> {
     private Set<String> visitWhileStmt( JmmNode jmmNode, SymbolTable table){ // could be wrong ( maybe its just descendants )
         var cond = jmmNode.getChild(0);
         var body = jmmNode.getChild(1);
-        for( var node : jmmNode.getDescendants(Kind.ASSIGN_STMT)){
-            constants.remove(node.getChild(0).get("name"));
+        var assignmentsDone = getAssignedVars(jmmNode);
+        for( var reference: assignmentsDone){
+            constants.remove(reference);
         }
         visit(cond,table);
         visit(body,table);
-        return null;
+        // Constants found inside the body only hold for one iteration
+        for( var reference: assignmentsDone){
+            constants.remove(reference);
+        }
+        return assignmentsDone;
     }
 
 
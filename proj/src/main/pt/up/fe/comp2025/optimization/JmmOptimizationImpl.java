@@ -5,49 +5,111 @@ import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ollir.JmmOptimization;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.CompilerConfig;
 import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.cache.MethodCache;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.OLLIR;
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.OPTIMIZATION;
+
 public class JmmOptimizationImpl implements JmmOptimization {
 
+    private final CompilationContext context;
+
+    public JmmOptimizationImpl() {
+        this(null);
+    }
+
+    /**
+     * @param context the context of the compilation, or null to use a new context in each call
+     */
+    public JmmOptimizationImpl(CompilationContext context) {
+        this.context = context;
+    }
+
+    private CompilationContext getContext(Map<String, String> config) {
+        return context != null ? context : new CompilationContext(config);
+    }
+
+    /**
+     * In incremental compilations, looks up the methods of the class in the method cache. Methods found there are
+     * marked as reused in the context and skipped by the rest of the pipeline. Must run before the AST is optimized,
+     * since the fingerprint is computed over the AST as written.
+     */
+    private void reuseUnchangedMethods(JmmSemanticsResult semanticsResult) {
+        if (context == null || !context.isIncremental()) {
+            return;
+        }
+
+        for (var method : semanticsResult.getRootNode().getDescendants(Kind.METHOD_DECL)) {
+            var name = method.get("name");
+
+            // Already fingerprinted by an earlier step
+            if (context.getMethodFingerprint(name).isPresent()) {
+                continue;
+            }
+
+            var fingerprint = context.getMetrics().pass("MethodFingerprint",
+                    () -> MethodCache.fingerprint(method, semanticsResult.getSymbolTable(), semanticsResult.getConfig()));
+            context.putMethodFingerprint(name, fingerprint);
+
+            MethodCache.shared().get(fingerprint).ifPresent(code -> context.reuseMethod(name, code));
+        }
+    }
+
+    private List<JmmNode> getMethodsToCompile(JmmNode root) {
+        return root.getDescendants(Kind.METHOD_DECL).stream()
+                .filter(method -> context == null || !context.isReused(method.get("name")))
+                .toList();
+    }
+
     @Override
     public OllirResult toOllir(JmmSemanticsResult semanticsResult) {
+        reuseUnchangedMethods(semanticsResult);
+
+        var compilationContext = getContext(semanticsResult.getConfig());
+        var metrics = compilationContext.getMetrics();
+
         // Vararg optimization
         var opt = new VarargOpt(semanticsResult);
-        opt.optimize();
+        metrics.pass("VarargOpt", opt::optimize);
         // Create visitor that will generate the OLLIR code
-        var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable());
+        var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable(), compilationContext);
 
         // Visit the AST and obtain OLLIR code
-        var ollirCode = visitor.visit(semanticsResult.getRootNode());
+        var ollirCode = metrics.pass("OllirGenerator", () -> visitor.visit(semanticsResult.getRootNode()));
 
-        //System.out.println("\nOLLIR:\n\n" + ollirCode);
+        compilationContext.getTrace().debug(OLLIR, () -> "Generated OLLIR:\n" + ollirCode);
 
-        return new OllirResult(semanticsResult, ollirCode, Collections.emptyList());
+        // Parses the OLLIR code into a ClassUnit
+        return metrics.pass("OllirParser", () -> new OllirResult(semanticsResult, ollirCode, Collections.emptyList()));
     }
 
     @Override
     public JmmSemanticsResult optimize(JmmSemanticsResult semanticsResult) {
+        reuseUnchangedMethods(semanticsResult);
+
         boolean optimize = ConfigOptions.getOptimize(semanticsResult.getConfig());
+        var compilationContext = getContext(semanticsResult.getConfig());
+        var trace = compilationContext.getTrace();
 
-        System.out.println("--- Pre propFold ---");
-        System.out.println(semanticsResult.getRootNode().toTree());
-        if(!optimize)  System.out.println("not optmize");
-        ;
         if(!optimize) return semanticsResult;
 
+        trace.debug(OPTIMIZATION, () -> "AST before constant propagation:\n" + semanticsResult.getRootNode().toTree());
 
-        ConstantPropOpt opt = new ConstantPropOpt(semanticsResult);
+        ConstantPropOpt opt = new ConstantPropOpt(semanticsResult, getMethodsToCompile(semanticsResult.getRootNode()),
+                compilationContext.getMetrics());
 
         opt.optimize();
 
-        System.out.println("--- Post propFold ---");
-        System.out.println(semanticsResult.getRootNode().toTree());
-
-
+        trace.debug(OPTIMIZATION, () -> "AST after constant propagation:\n" + semanticsResult.getRootNode().toTree());
 
         return semanticsResult;
     }
@@ -56,18 +118,24 @@ public class JmmOptimizationImpl implements JmmOptimization {
     @Override
     public OllirResult optimize(OllirResult ollirResult) {
         int nRegisters = ConfigOptions.getRegisterAllocation(ollirResult.getConfig());
-
-        System.out.println("--- Pre regalloc ---");
-        System.out.println(ollirResult.getOllirCode());
+        boolean hotSlots = CompilerConfig.getHotSlots(ollirResult.getConfig());
 
         // Default Value no optimization
-        if (nRegisters == -1) return ollirResult;
+        if (nRegisters == -1 && !hotSlots) return ollirResult;
+
+        var compilationContext = getContext(ollirResult.getConfig());
 
-        RegisterAllocationOpt opt = new RegisterAllocationOpt(ollirResult.getOllirClass());
-        opt.allocateReg(nRegisters);
+        if (nRegisters != -1) {
+            RegisterAllocationOpt opt = new RegisterAllocationOpt(ollirResult.getOllirClass(),
+                    compilationContext.getMetrics(), compilationContext.getTrace());
+            opt.allocateReg(nRegisters);
+        }
 
-        System.out.println("--- Post regalloc ---");
-        System.out.println(ollirResult.getOllirCode());
+        // After register allocation, which decides the variables that share a slot
+        if (hotSlots) {
+            new LocalSlotOpt(ollirResult.getOllirClass(), compilationContext.getMetrics(),
+                    compilationContext.getTrace()).assignSlots();
+        }
 
         return ollirResult;
     }
@@ -1,5 +1,6 @@
 package pt.up.fe.comp2025.optimization;
 
+import org.specs.comp.ollir.ArrayOperand;
 import org.specs.comp.ollir.Element;
 import org.specs.comp.ollir.Method;
 import org.specs.comp.ollir.Operand;
@@ -47,49 +48,40 @@ public class LiveLinessAnalyser {
             for (int i = instructions.size()-1; i >= 0; i--) {
                 var instruction = instructions.get(i);
 
-                // Initialize the sets Live_in' and Live_out'
-                List<String> inVars = new ArrayList<>(in.get(instruction.getId()));
-                List<String> outVars = new ArrayList<>(out.get(instruction.getId()));
-
                 // Update the Live_out unifying all succ of Live in
-                out.put(instruction.getId(), getInVarsSuccessors(instruction));
+                var outVars = getInVarsSuccessors(instruction);
 
                 // Update the Live_in unifying use with the difference of Live_out and def
-                var live_out = new ArrayList<>(out.get(instruction.getId()));
-                var def_difference = def.get(instruction.getId());
-
-                if (def_difference != null)
-                    live_out.remove(def_difference);
-
-                Set<String> union = new HashSet<>();
-                union.addAll(live_out);
-                union.addAll(use.get(instruction.getId()));
-                var union_out = new ArrayList<>(union);
-
-                in.put(instruction.getId(),union_out);
-
-
-                // Intersection between Live_in with Live_out'
-                outVars.retainAll(in.get(instruction.getId()));
-
-                if (in.get(instruction.getId()).stream().anyMatch(inVars::contains))
-                {
-                    hasChanged = true;
-                    continue;
+                Set<String> inVars = new HashSet<>(outVars);
+                var defined = def.get(instruction.getId());
+                if (defined != null) {
+                    inVars.remove(defined);
                 }
+                inVars.addAll(use.get(instruction.getId()));
 
-                if (out.get(instruction.getId()).stream().anyMatch(outVars::contains)){
+                // Iterate until neither set changes
+                if (!inVars.equals(new HashSet<>(in.get(instruction.getId())))
+                        || !outVars.equals(new HashSet<>(out.get(instruction.getId())))) {
                     hasChanged = true;
                 }
+
+                in.put(instruction.getId(), new ArrayList<>(inVars));
+                out.put(instruction.getId(), new ArrayList<>(outVars));
             }
 
         } while (hasChanged);
 
-        return Arrays.asList(in, out);
+        // Variables that are defined interfere with what is live after the definition, even when never read
+        HashMap<Integer, List<String>> defs = new HashMap<>();
+        for (var entry : def.entrySet()) {
+            defs.put(entry.getKey(), entry.getValue() != null ? List.of(entry.getValue()) : List.of());
+        }
+
+        return Arrays.asList(in, out, defs);
     }
 
-    private List<String> getInVarsSuccessors(Instruction instruction) {
-        List<String> inVarsSuccessors = new ArrayList<>();
+    private Set<String> getInVarsSuccessors(Instruction instruction) {
+        Set<String> inVarsSuccessors = new HashSet<>();
 
         for (var suc : instruction.getSuccessors()) {
             var inVarSuc = in.get(suc.getId());
@@ -105,6 +97,10 @@ public class LiveLinessAnalyser {
     private String getVarsDefined(Instruction instruction, Method method) {
         if(instruction.getInstType().equals(ASSIGN)){
             var assignInstruction = (AssignInstruction) instruction;
+            // Storing an array element reads the array
+            if (assignInstruction.getDest() instanceof ArrayOperand) {
+                return null;
+            }
             String varName = ((Operand)assignInstruction.getDest()).getName();
             if (isLocalVariable(varName, method)) {
                 return varName;
@@ -130,28 +126,21 @@ public class LiveLinessAnalyser {
     }
 
     private List<String> getVarsUsedSpecific(SingleOpInstruction instruction, Method method) {
-        var opName = getOperandName(instruction.getSingleOperand());
-
-        if (opName == null || !isLocalVariable(opName, method)) return new ArrayList<>();
-
-        return Collections.singletonList(opName);
+        List<String> l = new ArrayList<>();
+        addVarsUsed(instruction.getSingleOperand(), method, l);
+        return l;
     }
 
     private List<String> getVarsUsedSpecific(CondBranchInstruction instruction, Method method){
-        if (instruction instanceof SingleOpCondInstruction) {
-            return getVarsUsedSpecific(((SingleOpCondInstruction) instruction).getCondition(), method);
-        }
-        return new ArrayList<>();
+        // Both 'if (a)' and 'if (a < b)' read the variables of their condition
+        return getVarsUsed(instruction.getCondition(), method);
     }
 
     private List<String> getVarsUsedSpecific(BinaryOpInstruction instruction, Method method) {
         List<String> l = new ArrayList<>();
 
-        var operand1 = getOperandName(instruction.getLeftOperand());
-        var operand2 = getOperandName(instruction.getRightOperand());
-
-        if (operand1 != null && isLocalVariable(operand1, method)) l.add(operand1);
-        if (operand2 != null && isLocalVariable(operand2, method)) l.add(operand2);
+        addVarsUsed(instruction.getLeftOperand(), method, l);
+        addVarsUsed(instruction.getRightOperand(), method, l);
 
         return l;
     }
@@ -165,32 +154,28 @@ public class LiveLinessAnalyser {
     }
 
     private List<String> getVarsUsedSpecific(UnaryOpInstruction instruction, Method method) {
-        var opName = getOperandName(instruction.getOperand());
-
-        if (opName == null || !isLocalVariable(opName, method)) return new ArrayList<>();
-
-        return Collections.singletonList(opName);
+        List<String> l = new ArrayList<>();
+        addVarsUsed(instruction.getOperand(), method, l);
+        return l;
     }
 
     private List<String> getVarsUsedSpecific(PutFieldInstruction instruction, Method method) {
         List<String> l = new ArrayList<>();
 
         var opName1 = getOperandName(instruction.getField());
-        var opName2 = getOperandName(instruction.getOperands().get(2));
 
         if (opName1 != null && isLocalVariable(opName1, method)) l.add(opName1);
-        if (opName2 != null && isLocalVariable(opName2, method)) l.add(opName2);
+        addVarsUsed(instruction.getValue(), method, l);
 
         return l;
     }
 
     private List<String> getVarsUsedSpecific(ReturnInstruction instruction, Method method) {
-        if (!instruction.hasReturnValue()) return new ArrayList<>();
-        var operandName = getOperandName(instruction.getOperand().orElse(null));
-
-        if (operandName == null || !isLocalVariable(operandName, method)) return new ArrayList<>();
-
-        return Collections.singletonList(operandName);
+        List<String> l = new ArrayList<>();
+        if (instruction.hasReturnValue()) {
+            addVarsUsed(instruction.getOperand().orElse(null), method, l);
+        }
+        return l;
     }
 
     private List<String> getVarsUsedSpecific(GotoInstruction instruction, Method method) {
@@ -198,22 +183,42 @@ public class LiveLinessAnalyser {
     }
 
     private List<String> getVarsUsedSpecific(AssignInstruction instruction, Method method) {
-        return getVarsUsed(instruction.getRhs(), method);
+        List<String> l = new ArrayList<>(getVarsUsed(instruction.getRhs(), method));
+
+        // The array and the index of an element that is stored
+        if (instruction.getDest() instanceof ArrayOperand arrayOperand) {
+            addVarsUsed(arrayOperand, method, l);
+        }
+
+        return l;
     }
 
     private List<String> getVarsUsedSpecific(CallInstruction instruction, Method method) {
         List<String> l = new ArrayList<>();
 
         for (var operand : instruction.getOperands()) {
-            var opName = getOperandName(operand);
-            if (opName != null && isLocalVariable(opName, method)) {
-                l.add(opName);
-            }
+            addVarsUsed(operand, method, l);
         }
 
         return l;
     }
 
+    /**
+     * Adds the local variables read by an operand, including the indexes of array accesses.
+     */
+    private void addVarsUsed(Element element, Method method, List<String> l) {
+        var opName = getOperandName(element);
+        if (opName != null && isLocalVariable(opName, method)) {
+            l.add(opName);
+        }
+
+        if (element instanceof ArrayOperand arrayOperand) {
+            for (var index : arrayOperand.getIndexOperands()) {
+                addVarsUsed(index, method, l);
+            }
+        }
+    }
+
     private String getOperandName(Element element) {
         if (element instanceof Operand) {
             return ((Operand) element).getName();
@@ -0,0 +1,158 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.*;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.GotoInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import pt.up.fe.comp2025.backend.BranchConditions;
+import pt.up.fe.comp2025.backend.StackTemporaries;
+import pt.up.fe.comp2025.metrics.CompilerMetrics;
+import pt.up.fe.comp2025.trace.CompilerTrace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.REGALLOC;
+
+/**
+ * Renumbers the local variable slots of each method so that the most accessed ones get the lowest numbers, which
+ * have the 1-byte forms of the loads and stores (e.g. iload_2) up to slot 3.
+ * <p>
+ * 'this' and the parameters keep their slots, as the calling convention requires. The slots of the other variables
+ * are only permuted between themselves, so a method uses the same number of locals and variables that share a slot
+ * after register allocation keep sharing it. Each access counts 8 times more for each loop around it, and accesses
+ * that the backend keeps on the stack (see {@link StackTemporaries}) do not count.
+ */
+public class LocalSlotOpt {
+
+    // Weight of an access inside a loop, relative to one just outside of it
+    private static final int LOOP_WEIGHT = 8;
+
+    private final ClassUnit classUnit;
+    private final CompilerMetrics metrics;
+    private final CompilerTrace trace;
+
+    LocalSlotOpt(ClassUnit classUnit, CompilerMetrics metrics, CompilerTrace trace) {
+        this.classUnit = classUnit;
+        this.metrics = metrics;
+        this.trace = trace;
+    }
+
+    public void assignSlots() {
+        for (var method : classUnit.getMethods()) {
+            metrics.pass("LocalSlotOpt", () -> assignSlots(method));
+        }
+    }
+
+    private void assignSlots(Method method) {
+        var varTable = method.getVarTable();
+        var frequencies = getFrequencies(method);
+
+        // Slots of the local variables, with the sum of the frequencies of the variables in each one
+        var slotFrequencies = new HashMap<Integer, Long>();
+        var fixedSlots = new TreeSet<Integer>();
+        for (var entry : varTable.entrySet()) {
+            var descriptor = entry.getValue();
+
+            if (isMovable(entry.getKey(), descriptor)) {
+                slotFrequencies.merge(descriptor.getVirtualReg(), frequencies.getOrDefault(entry.getKey(), 0L),
+                        Long::sum);
+            } else {
+                fixedSlots.add(descriptor.getVirtualReg());
+            }
+        }
+
+        // A slot shared with 'this' or a parameter is not moved
+        slotFrequencies.keySet().removeAll(fixedSlots);
+
+        // Hottest first, ties in the original order
+        var slots = new ArrayList<>(slotFrequencies.keySet());
+        slots.sort(null);
+        var byFrequency = new ArrayList<>(slots);
+        byFrequency.sort((a, b) -> Long.compare(slotFrequencies.get(b), slotFrequencies.get(a)));
+
+        var newSlots = new HashMap<Integer, Integer>();
+        for (int i = 0; i < byFrequency.size(); i++) {
+            newSlots.put(byFrequency.get(i), slots.get(i));
+        }
+
+        for (var entry : varTable.entrySet()) {
+            var descriptor = entry.getValue();
+            var newSlot = newSlots.get(descriptor.getVirtualReg());
+
+            if (newSlot != null && newSlot != descriptor.getVirtualReg() && isMovable(entry.getKey(), descriptor)) {
+                entry.setValue(new Descriptor(descriptor.getScope(), newSlot, descriptor.getVarType()));
+            }
+        }
+
+        trace.debug(REGALLOC, () -> "Slots of method " + method.getMethodName() + " by access frequency "
+                + slotFrequencies + ": " + newSlots);
+    }
+
+    private static boolean isMovable(String name, Descriptor descriptor) {
+        return descriptor.getScope() == VarScope.LOCAL && !name.equals("this");
+    }
+
+    /**
+     * @return the estimated number of accesses to each variable, weighted by the loops around them
+     */
+    private static Map<String, Long> getFrequencies(Method method) {
+        var instructions = method.getInstructions();
+        var loopDepths = getLoopDepths(method);
+
+        var branchConditions = new BranchConditions(method);
+        var stackTemporaries = new StackTemporaries(method, branchConditions);
+
+        var frequencies = new HashMap<String, Long>();
+        for (int i = 0; i < instructions.size(); i++) {
+            long weight = (long) Math.pow(LOOP_WEIGHT, Math.min(loopDepths[i], 6));
+
+            instructions.get(i).getDescendantsAndSelfStream()
+                    .filter(node -> node instanceof Operand)
+                    .map(node -> ((Operand) node).getName())
+                    // Never loaded from or stored to a local
+                    .filter(name -> !stackTemporaries.isStackResident(name)
+                            && !branchConditions.isComputedByBranch(name))
+                    .forEach(name -> frequencies.merge(name, weight, Long::sum));
+        }
+
+        return frequencies;
+    }
+
+    /**
+     * A jump back to an earlier label closes a loop, every instruction from the label to the jump is inside it.
+     *
+     * @return how many loops each instruction is inside
+     */
+    private static int[] getLoopDepths(Method method) {
+        var instructions = method.getInstructions();
+
+        var indexes = new IdentityHashMap<Instruction, Integer>();
+        for (int i = 0; i < instructions.size(); i++) {
+            indexes.put(instructions.get(i), i);
+        }
+
+        var loopDepths = new int[instructions.size()];
+        for (int i = 0; i < instructions.size(); i++) {
+            var label = switch (instructions.get(i)) {
+                case GotoInstruction gotoInstruction -> gotoInstruction.getLabel();
+                case CondBranchInstruction condBranch -> condBranch.getLabel();
+                default -> null;
+            };
+
+            var target = label == null ? null : indexes.get(method.getLabels().get(label));
+            if (target == null || target > i) {
+                continue;
+            }
+
+            for (int inside = target; inside <= i; inside++) {
+                loopDepths[inside]++;
+            }
+        }
+
+        return loopDepths;
+    }
+}
@@ -7,8 +7,11 @@ import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 
+import pt.up.fe.comp2025.ast.KindDispatch;
+import pt.up.fe.comp2025.ast.Operator;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
+import java.util.function.BiFunction;
 
 import static pt.up.fe.comp2025.ast.Kind.*;
 
@@ -23,12 +26,19 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 
     private final SymbolTable table;
 
+    private final KindDispatch<Void, OllirExprResult> dispatch = new KindDispatch<>();
+
     private final TypeUtils types;
     private final OptUtils ollirTypes;
 
     private String currentMethod;
     private boolean isDirectAssignment = false; // Flag to track direct assignment context
 
+    // Array access whose array and index were already computed, with their code
+    private JmmNode reusedAccess;
+    private String reusedArray;
+    private String reusedIndex;
+
     public OllirExprGeneratorVisitor(SymbolTable table, OptUtils ollirTypes) {
         this.table = table;
         this.types = new TypeUtils(table);
@@ -43,6 +53,21 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         this.isDirectAssignment = directAssignment;
     }
 
+    /**
+     * Makes the next visit of the array access read the element with the given array and index instead of computing
+     * them again.
+     */
+    public void reuseArrayAccess(JmmNode access, String arrayCode, String indexCode) {
+        this.reusedAccess = access;
+        this.reusedArray = arrayCode;
+        this.reusedIndex = indexCode;
+    }
+
+    @Override
+    protected BiFunction<JmmNode, Void, OllirExprResult> getVisit(JmmNode node) {
+        return dispatch.getVisit(node, super::getVisit);
+    }
+
     @Override
     protected void buildVisitor() {
         addVisit(VAR_REF_EXPR, this::visitVarRef);
@@ -117,26 +142,26 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         }
 
         String type = ".V";
-        if (caller.getKind().equals(THIS.toString())) {
+        if (THIS.check(caller)) {
             type = ollirTypes.toOllirType(types.getExprType(node,currentMethod));
-        } else if (node.getParent().getKind().equals(RETURN_STMT.toString())) {
+        } else if (RETURN_STMT.check(node.getParent())) {
             type = ollirTypes.toOllirType(table.getReturnType(currentMethod));
-        } else if (node.getParent().getKind().equals(ASSIGN_STMT.toString()) ) {
+        } else if (ASSIGN_STMT.check(node.getParent()) ) {
             type = ollirTypes.toOllirType(types.getExprType(node.getParent().getChild(0),currentMethod));
-        } else if (node.getParent().getKind().equals(ARRAY_ASSIGN_STMT.toString())) {
+        } else if (ARRAY_ASSIGN_STMT.check(node.getParent())) {
             type = ollirTypes.toOllirType(types.getVarRefType(node.getParent().get("name"), currentMethod));
         } else if (types.getExprType(caller,currentMethod).getName().equals(table.getClassName())) {
             type = ollirTypes.toOllirType(table.getReturnType(methodName));
         }
 
         String code = "";
-        if(!node.getParent().getKind().equals(EXPR_STMT.toString())){
+        if(!EXPR_STMT.check(node.getParent())){
             var temp = ollirTypes.nextTemp();
             code = temp + type;
             computation.append("%s :=%s ".formatted(code,type));
         }
 
-        var isVirtual = caller.getKind().equals(THIS.toString());
+        var isVirtual = THIS.check(caller);
         if(!isVirtual){
             Symbol symbol = new Symbol(types.getExprType(caller,currentMethod),caller.get("name"));
 
@@ -202,6 +227,14 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
     private OllirExprResult visitArrayAcess(JmmNode node, Void unused){
         StringBuilder computation = new StringBuilder();
 
+        if (node == reusedAccess) {
+            reusedAccess = null;
+
+            String code = ollirTypes.nextTemp() + ".i32";
+            computation.append("%s :=.i32 %s[%s].i32;\n".formatted(code, reusedArray, reusedIndex));
+            return new OllirExprResult(code, computation);
+        }
+
         var arrayName = visit(node.getChild(0));
         var acessIndex = visit(node.getChild(1));
 
@@ -239,7 +272,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 
     private OllirExprResult visitBinExpr(JmmNode node, Void unused) {
 
-        if(node.get("op").equals("&&")){
+        if(Operator.of(node) == Operator.AND){
             return visitShortCircuit(node,unused);
         }
 
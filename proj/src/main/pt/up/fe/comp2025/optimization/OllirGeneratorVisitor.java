@@ -5,9 +5,14 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.KindDispatch;
+import pt.up.fe.comp2025.ast.Operator;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
 import java.util.List;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import static pt.up.fe.comp2025.ast.Kind.*;
@@ -27,6 +32,10 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
     private final SymbolTable table;
 
+    private final KindDispatch<Void, String> dispatch = new KindDispatch<>();
+
+    private final CompilationContext context;
+
     private final TypeUtils types;
     private final OptUtils ollirTypes;
 
@@ -35,14 +44,20 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
     private final OllirExprGeneratorVisitor exprVisitor;
 
-    public OllirGeneratorVisitor(SymbolTable table) {
+    public OllirGeneratorVisitor(SymbolTable table, CompilationContext context) {
         this.table = table;
+        this.context = context;
         this.types = new TypeUtils(table);
-        this.ollirTypes = new OptUtils(types);
+        this.ollirTypes = new OptUtils(types, context);
         exprVisitor = new OllirExprGeneratorVisitor(table, ollirTypes);
     }
 
 
+    @Override
+    protected BiFunction<JmmNode, Void, String> getVisit(JmmNode node) {
+        return dispatch.getVisit(node, super::getVisit);
+    }
+
     @Override
     protected void buildVisitor() {
 
@@ -120,14 +135,23 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         StringBuilder code = new StringBuilder();
 
         var arrayName = node.get("name");
+        var arrayCode = arrayName + ".array.i32";
         Symbol symbol = new Symbol(TypeUtils.newIntArrayType(),arrayName);
         if (!table.getLocalVariables(currentMethod).contains(symbol) && !table.getParameters(currentMethod).contains(symbol) && table.getFields().contains(symbol)) {
             var tmp = ollirTypes.nextTemp();
             code.append("%s.array.i32 :=.array.i32 getfield(this, %s.array.i32).array.i32;\n".formatted(tmp,arrayName));
             arrayName = tmp + ".array.i32";
+            arrayCode = arrayName;
         }
 
         var lhs = exprVisitor.visit(node.getChild(0));
+
+        // 'a[i] = a[i] + x' reads the element with the same array and index, the backend can then duplicate them
+        var elementRead = findElementRead(node);
+        if (elementRead != null) {
+            exprVisitor.reuseArrayAccess(elementRead, arrayCode, lhs.getCode());
+        }
+
         var rhs = exprVisitor.visit(node.getChild(1));
 
         code.append(lhs.getComputation());
@@ -137,6 +161,79 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         return code.toString();
     }
 
+    /**
+     * Finds the read of the assigned element in 'a[i] = a[i] op x' or 'a[i] = x op a[i]'. The index must have no side
+     * effects, and neither may anything evaluated between the index and the read, so that reading the element again
+     * gives the same value.
+     *
+     * @return the ArrayAccess node, or null if the value of the assignment does not read the element
+     */
+    private JmmNode findElementRead(JmmNode node) {
+        var index = node.getChild(0);
+        var rhs = unwrapParen(node.getChild(1));
+
+        if (!isPure(index) || !BINARY_EXPR.check(rhs) || Operator.of(rhs) == Operator.AND) {
+            return null;
+        }
+
+        for (var operand : rhs.getChildren()) {
+            operand = unwrapParen(operand);
+
+            if (ARRAY_ACCESS.check(operand)
+                    && VAR_REF_EXPR.check(unwrapParen(operand.getChild(0)))
+                    && unwrapParen(operand.getChild(0)).get("name").equals(node.get("name"))
+                    && isSameExpr(operand.getChild(1), index)) {
+                return operand;
+            }
+
+            // The right operand is only reached after evaluating the left one
+            if (!isPure(operand)) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    private static JmmNode unwrapParen(JmmNode node) {
+        while (PAREN.check(node)) {
+            node = node.getChild(0);
+        }
+        return node;
+    }
+
+    /**
+     * @return true if evaluating the expression has no side effects (it calls no methods and allocates nothing)
+     */
+    private static boolean isPure(JmmNode node) {
+        return Kind.check(node, VAR_REF_EXPR, INTEGER_LITERAL, BOOLEAN_LITERAL, THIS, PAREN, BINARY_EXPR, NOT,
+                ARRAY_ACCESS, ARRAY_LENGTH)
+                && node.getChildren().stream().allMatch(OllirGeneratorVisitor::isPure);
+    }
+
+    private static boolean isSameExpr(JmmNode first, JmmNode second) {
+        first = unwrapParen(first);
+        second = unwrapParen(second);
+
+        if (!first.getKind().equals(second.getKind()) || first.getNumChildren() != second.getNumChildren()) {
+            return false;
+        }
+
+        for (var attribute : List.of("name", "value", "op")) {
+            if (!first.getOptional(attribute).equals(second.getOptional(attribute))) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < first.getNumChildren(); i++) {
+            if (!isSameExpr(first.getChild(i), second.getChild(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private String visitExprStmt(JmmNode node, Void unused) {
         var expr = exprVisitor.visit(node.getChild(0));
 
@@ -202,12 +299,12 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
      * without creating an unnecessary temporary variable.
      */
     private boolean isSimpleBinaryExpression(JmmNode node) {
-        if (!node.getKind().equals(BINARY_EXPR.toString())) {
+        if (!BINARY_EXPR.check(node)) {
             return false;
         }
 
         // Don't optimize short-circuit operations
-        if (node.get("op").equals("&&")) {
+        if (Operator.of(node) == Operator.AND) {
             return false;
         }
 
@@ -265,6 +362,9 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
     private String visitMethodDecl(JmmNode node, Void unused) {
 
+        // Temporaries and labels are numbered from zero in each method
+        context.startMethod();
+
         StringBuilder code = new StringBuilder(".method ");
 
         boolean isPublic = node.getBoolean("isPublic", false);
@@ -385,6 +485,11 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         code.append(NL);
 
         for (var child : node.getChildren(METHOD_DECL)) {
+            // Code reused from an earlier compilation, the backend emits it directly
+            if (context.isReused(child.get("name"))) {
+                continue;
+            }
+
             var result = visit(child);
             code.append(result);
         }
@@ -424,7 +529,6 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
                 .map(this::visit)
                 .forEach(code::append);
 
-        System.out.println(code.toString());
         return code.toString();
     }
 
@@ -2,8 +2,8 @@ package pt.up.fe.comp2025.optimization;
 
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.CompilationContext;
 import pt.up.fe.comp2025.ast.TypeUtils;
-import pt.up.fe.specs.util.collections.AccumulatorMap;
 
 import static pt.up.fe.comp2025.ast.Kind.TYPE;
 
@@ -12,41 +12,44 @@ import static pt.up.fe.comp2025.ast.Kind.TYPE;
  */
 public class OptUtils {
 
+    // Prefix of the temporaries, numbered from zero in each method
+    public static final String TEMP_PREFIX = "tmp";
 
-    private final AccumulatorMap<String> temporaries;
-    private final AccumulatorMap<String> thenLabels;
-    private final AccumulatorMap<String> endLabels;
-    private final AccumulatorMap<String> whileLabels;
-    private final AccumulatorMap<String> andLabels;
+    // Counters belong to the compilation, each label kind uses its own prefix
+    private final CompilationContext context;
 
     private final TypeUtils types;
 
-    public OptUtils(TypeUtils types) {
+    public OptUtils(TypeUtils types, CompilationContext context) {
         this.types = types;
-        this.temporaries = new AccumulatorMap<>();
-        this.thenLabels = new AccumulatorMap<>();
-        this.endLabels = new AccumulatorMap<>();
-        this.whileLabels = new AccumulatorMap<>();
-        this.andLabels = new AccumulatorMap<>();
+        this.context = context;
     }
 
 
     public String nextTemp() {
 
-        return nextTemp("tmp");
+        return nextTemp(TEMP_PREFIX);
+    }
+
+    /**
+     * @return true if the variable is a temporary created by {@link #nextTemp()}
+     */
+    public static boolean isTemp(String name) {
+        return name.startsWith(TEMP_PREFIX) && name.length() > TEMP_PREFIX.length()
+                && name.substring(TEMP_PREFIX.length()).chars().allMatch(Character::isDigit);
     }
 
     public String nextTemp(String prefix) {
 
         // Subtract 1 because the base is 1
-        var nextTempNum = temporaries.add(prefix) - 1;
+        var nextTempNum = context.getTemporaries().add(prefix) - 1;
 
         return prefix + nextTempNum;
     }
     public void revertTemp(String prefix ){
-        int currentCount = temporaries.getCount(prefix);
+        int currentCount = context.getTemporaries().getCount(prefix);
         if(currentCount > 0){
-            temporaries.remove("tmp");
+            context.getTemporaries().remove(TEMP_PREFIX);
         }
 
     }
@@ -59,7 +62,7 @@ public class OptUtils {
     public String nextThenLabel(String prefix) {
 
         // Subtract 1 because the base is 1
-        var nextLabel = thenLabels.add(prefix) - 1;
+        var nextLabel = context.getLabels().add(prefix) - 1;
 
         return prefix + nextLabel;
     }
@@ -72,7 +75,7 @@ public class OptUtils {
     public String nextEndLabel(String prefix) {
 
         // Subtract 1 because the base is 1
-        var nextLabel = endLabels.add(prefix) - 1;
+        var nextLabel = context.getLabels().add(prefix) - 1;
 
         return prefix + nextLabel;
     }
@@ -85,7 +88,7 @@ public class OptUtils {
     public String nextWhileLabel(String prefix) {
 
         // Subtract 1 because the base is 1
-        var nextLabel = whileLabels.add(prefix) - 1;
+        var nextLabel = context.getLabels().add(prefix) - 1;
 
         return prefix + nextLabel;
     }
@@ -98,7 +101,7 @@ public class OptUtils {
     public String nextAndLabel(String prefix) {
 
         // Subtract 1 because the base is 1
-        var nextLabel = andLabels.add(prefix) - 1;
+        var nextLabel = context.getLabels().add(prefix) - 1;
 
         return prefix + nextLabel;
     }
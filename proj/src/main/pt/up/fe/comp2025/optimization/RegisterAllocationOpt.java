@@ -1,37 +1,51 @@
 package pt.up.fe.comp2025.optimization;
 
 import org.specs.comp.ollir.*;
+import pt.up.fe.comp2025.metrics.CompilerMetrics;
 import pt.up.fe.comp2025.optimization.graph_utils.GraphColoringAlgorithm;
 import pt.up.fe.comp2025.optimization.graph_utils.InterferenceGraph;
+import pt.up.fe.comp2025.trace.CompilerTrace;
+
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.REGALLOC;
 
 
 public class RegisterAllocationOpt {
 
     private ClassUnit classUnit;
     private LiveLinessAnalyser liveLinessAnalyser;
+    private CompilerMetrics metrics;
+    private CompilerTrace trace;
 
     RegisterAllocationOpt(ClassUnit classUnit) {
+        this(classUnit, CompilerMetrics.disabled(), CompilerTrace.defaults());
+    }
+
+    RegisterAllocationOpt(ClassUnit classUnit, CompilerMetrics metrics, CompilerTrace trace) {
         this.classUnit = classUnit;
         this.liveLinessAnalyser = new LiveLinessAnalyser();
+        this.metrics = metrics;
+        this.trace = trace;
     }
 
     public void allocateReg(int nRegisters) {
-        try {
-            classUnit.checkMethodLabels();
-            classUnit.buildCFGs();
-            classUnit.buildVarTables();
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-        }
+        metrics.pass("BuildCFGs", () -> {
+            try {
+                classUnit.checkMethodLabels();
+                classUnit.buildCFGs();
+                classUnit.buildVarTables();
+            }
+            catch (Exception e) {
+                trace.warn(REGALLOC, () -> "Could not build the CFGs of class " + classUnit.getClassName() + ": " + e);
+            }
+        });
 
         for (var method : classUnit.getMethods()) {
             // Compute liveliness
-            var liveliness = liveLinessAnalyser.computeAnalysis(method);
+            var liveliness = metrics.pass("LiveLinessAnalyser", () -> liveLinessAnalyser.computeAnalysis(method));
             // Gen Interference Graph
-            var graph = new InterferenceGraph(liveliness, method);
+            var graph = metrics.pass("InterferenceGraph", () -> new InterferenceGraph(liveliness, method));
             // Apply Coloring
-            GraphColoringAlgorithm.compute(graph,nRegisters, nRegisters == 0);
+            metrics.pass("GraphColoringAlgorithm", () -> GraphColoringAlgorithm.compute(graph,nRegisters, nRegisters == 0, trace));
         }
 
     }
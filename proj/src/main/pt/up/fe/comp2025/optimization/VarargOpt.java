@@ -3,7 +3,7 @@ package pt.up.fe.comp2025.optimization;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
-import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp2025.ast.CompactJmmNode;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
 import java.util.List;
@@ -32,7 +32,7 @@ public class VarargOpt {
 
         // get current method
         var parent = node.getParent();
-        while(!parent.getKind().equals(METHOD_DECL.toString())){
+        while(!METHOD_DECL.check(parent)){
             parent = parent.getParent();
         }
         var currentMethod = parent.get("name");
@@ -51,9 +51,9 @@ public class VarargOpt {
         if(params.isEmpty() || !TypeUtils.isVararg(params.getLast().getType())) return;
 
         // last arg already array
-        if(!(args.size() < params.size()) && args.getLast().getKind().equals(ARRAY_INIT.toString())) return;
+        if(!(args.size() < params.size()) && ARRAY_INIT.check(args.getLast())) return;
 
-        JmmNode arrayNode = new JmmNodeImpl(List.of("ArrayInit", "Expr"));
+        JmmNode arrayNode = new CompactJmmNode(List.of("ArrayInit", "Expr"));
 
         // Last arguments are for VarArg
         for (int i = params.size()-1; i<args.size(); i++)
@@ -2,47 +2,54 @@ package pt.up.fe.comp2025.optimization.graph_utils;
 
 import org.specs.comp.ollir.Descriptor;
 import org.specs.comp.ollir.VarScope;
+import pt.up.fe.comp2025.trace.CompilerTrace;
 
 import java.util.*;
+import java.util.function.Supplier;
+
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.REGALLOC;
+import static pt.up.fe.comp2025.trace.CompilerTrace.Level.TRACE;
 
 public class GraphColoringAlgorithm {
 
     public static void compute(final InterferenceGraph graph, int kRegisters, boolean minimizeNumRegs) {
+        compute(graph, kRegisters, minimizeNumRegs, CompilerTrace.defaults());
+    }
+
+    /**
+     * Colors the interference graph and updates the registers of its var table. Each step of the allocation is
+     * described at the trace level of the 'regalloc' category, the final allocation at the debug level.
+     */
+    public static void compute(final InterferenceGraph graph, int kRegisters, boolean minimizeNumRegs,
+                               CompilerTrace trace) {
         // Initialization
         var varTable = graph.getVarTable();
         var isStaticMethod = graph.isStaticMethod();
-        var nodes = graph.getNodes();
+        // Each attempt simplifies its own copy, a failed attempt must not leave nodes out of the graph
+        var nodes = new HashMap<>(graph.getNodes());
+        for (var node : nodes.values()) {
+            node.setHasColor(true);
+        }
         var liveliness = graph.getLiveliness();
 
+        // The steps are only described when they are traced
+        var steps = trace.isEnabled(REGALLOC, TRACE) ? new StringBuilder() : null;
+
         for (var lively : liveliness) {
-            System.out.println(lively);
+            line(steps, lively::toString);
         }
 
-        System.out.println("\n=== GRAPH COLORING VISUALIZATION ===");
-        System.out.println("Method type: " + (isStaticMethod ? "Static" : "Instance"));
-        System.out.println("K registers requested: " + kRegisters);
-        System.out.println("Minimizing registers: " + minimizeNumRegs);
+        line(steps, "\n=== GRAPH COLORING VISUALIZATION ===");
+        line(steps, "Method type: " + (isStaticMethod ? "Static" : "Instance"));
+        line(steps, "K registers requested: " + kRegisters);
+        line(steps, "Minimizing registers: " + minimizeNumRegs);
 
-        // Print initial variable table
-        System.out.println("\n--- Initial Variable Table ---");
-        for (var entry : varTable.entrySet()) {
-            Descriptor desc = entry.getValue();
-            System.out.println(String.format("%-10s | %-10s | reg: %d",
-                    entry.getKey(),
-                    desc.getScope(),
-                    desc.getVirtualReg()));
-        }
+        line(steps, "\n--- Initial Variable Table ---");
+        appendVarTable(steps, varTable);
 
-        // Print interference graph
-        System.out.println("\n--- Interference Graph ---");
-        for (var entry : nodes.entrySet()) {
-            Node node = entry.getValue();
-            System.out.print(node.getId() + " interferes with: ");
-            List<String> neighbors = new ArrayList<>();
-            for (Edge edge : node.getEdges()) {
-                neighbors.add(edge.getDest().getId());
-            }
-            System.out.println(String.join(", ", neighbors));
+        line(steps, "\n--- Interference Graph ---");
+        for (var node : nodes.values()) {
+            line(steps, () -> node.getId() + " interferes with: " + describeInterferences(node));
         }
 
         HashMap<String, Descriptor> newVarTable = new HashMap<>();
@@ -50,14 +57,14 @@ public class GraphColoringAlgorithm {
         int baseRegisterCount = 0;
 
         // STEP 1: Handle special registers first
-        System.out.println("\n--- Register Allocation Steps ---");
-        System.out.println("STEP 1: Special registers");
+        line(steps, "\n--- Register Allocation Steps ---");
+        line(steps, "STEP 1: Special registers");
 
         if (!isStaticMethod) {
             for (var identifier : varTable.keySet()) {
                 if (identifier.equals("this")) {
                     newVarTable.put("this", new Descriptor(VarScope.LOCAL, 0, varTable.get("this").getVarType()));
-                    System.out.println("  Assigned 'this' to register 0");
+                    line(steps, "  Assigned 'this' to register 0");
                     break;
                 }
             }
@@ -65,57 +72,57 @@ public class GraphColoringAlgorithm {
         }
 
         // STEP 2: Assign parameters to sequential registers starting from appropriate index
-        System.out.println("STEP 2: Parameter registers");
+        line(steps, "STEP 2: Parameter registers");
         int nextParamRegister = isStaticMethod ? 0 : 1;
         for (var identifier : varTable.keySet()) {
             Descriptor descriptor = varTable.get(identifier);
             if (descriptor.getScope() == VarScope.PARAMETER) {
-                newVarTable.put(identifier, new Descriptor(VarScope.PARAMETER, nextParamRegister, descriptor.getVarType()));
-                System.out.println("  Assigned parameter '" + identifier + "' to register " + nextParamRegister);
-                nextParamRegister++;
+                int register = nextParamRegister++;
+                newVarTable.put(identifier, new Descriptor(VarScope.PARAMETER, register, descriptor.getVarType()));
+                line(steps, () -> "  Assigned parameter '" + identifier + "' to register " + register);
                 baseRegisterCount++;
             }
         }
 
         // STEP 3: Handle fields if any
-        System.out.println("STEP 3: Field registers");
+        line(steps, "STEP 3: Field registers");
         int nextFieldRegister = nextParamRegister;
         for (var identifier : varTable.keySet()) {
             Descriptor descriptor = varTable.get(identifier);
             if (descriptor.getScope() == VarScope.FIELD) {
-                newVarTable.put(identifier, new Descriptor(VarScope.FIELD, nextFieldRegister, descriptor.getVarType()));
-                System.out.println("  Assigned field '" + identifier + "' to register " + nextFieldRegister);
-                nextFieldRegister++;
+                int register = nextFieldRegister++;
+                newVarTable.put(identifier, new Descriptor(VarScope.FIELD, register, descriptor.getVarType()));
+                line(steps, () -> "  Assigned field '" + identifier + "' to register " + register);
             }
         }
 
         // STEP 4: Calculate total available registers (base + k)
         int totalAvailableRegisters = baseRegisterCount + kRegisters;
 
-        System.out.println("STEP 4: Register calculations");
-        System.out.println("  Base register count: " + baseRegisterCount);
-        System.out.println("  Additional registers (k): " + kRegisters);
-        System.out.println("  Total available registers: " + totalAvailableRegisters);
+        line(steps, "STEP 4: Register calculations");
+        line(steps, "  Base register count: " + baseRegisterCount);
+        line(steps, "  Additional registers (k): " + kRegisters);
+        line(steps, "  Total available registers: " + totalAvailableRegisters);
 
         // STEP 5: Apply graph coloring to LOCAL variables only
-        System.out.println("STEP 5: Graph coloring for local variables");
+        line(steps, "STEP 5: Graph coloring for local variables");
         HashMap<Integer, List<String>> availableColors = new HashMap<>();
         for (int i = nextFieldRegister; i < totalAvailableRegisters; i++) {
             availableColors.put(i, new ArrayList<>());
         }
 
-        System.out.println("  Available registers for locals: " + availableColors.keySet());
+        line(steps, () -> "  Available registers for locals: " + availableColors.keySet());
 
         Stack<Node> stack = new Stack<>();
         boolean nodeRemoval;
 
-        System.out.println("\n--- Simplification Phase ---");
+        line(steps, "\n--- Simplification Phase ---");
         int iteration = 1;
         do {
             nodeRemoval = false;
             var nodeL = nodes.entrySet().iterator();
 
-            System.out.println("Iteration " + iteration + ":");
+            line(steps, "Iteration " + iteration + ":");
 
             while (nodeL.hasNext()) {
                 Node node = nodeL.next().getValue();
@@ -130,14 +137,14 @@ public class GraphColoringAlgorithm {
 
                 int degree = node.getColoredNeighbours().size();
                 if (degree < availableColors.size()) {
-                    System.out.println("  Node '" + nodeId + "' has degree " + degree + " < " +
+                    line(steps, () -> "  Node '" + nodeId + "' has degree " + degree + " < " +
                             availableColors.size() + ", removing and pushing to stack");
                     node.setHasColor(false);
                     stack.push(node);
                     nodeL.remove();
                     nodeRemoval = true;
                 } else {
-                    System.out.println("  Node '" + nodeId + "' has degree " + degree + " >= " +
+                    line(steps, () -> "  Node '" + nodeId + "' has degree " + degree + " >= " +
                             availableColors.size() + ", keeping for now");
                 }
             }
@@ -153,20 +160,23 @@ public class GraphColoringAlgorithm {
                 continue;
             }
 
-            System.err.println("Cannot color graph - uncolorable node: " + nodeId);
+            line(steps, () -> "Cannot color graph - uncolorable node: " + nodeId);
             uncolorableNodesExist = true;
         }
 
         if (uncolorableNodesExist) {
-            System.out.println("\n--- Graph Coloring Failed ---");
+            line(steps, "\n--- Graph Coloring Failed ---");
+            traceSteps(trace, steps);
             if(minimizeNumRegs){
-                compute(graph,kRegisters + 1, true);
+                compute(graph,kRegisters + 1, true, trace);
+            } else {
+                trace.warn(REGALLOC, () -> "Cannot color graph with " + kRegisters + " registers");
             }
             return;
         }
 
-        System.out.println("\n--- Coloring Phase ---");
-        System.out.println("Stack size: " + stack.size());
+        line(steps, "\n--- Coloring Phase ---");
+        line(steps, "Stack size: " + stack.size());
 
         while (!stack.isEmpty()) {
             Node node = stack.pop();
@@ -181,18 +191,8 @@ public class GraphColoringAlgorithm {
                 continue;
             }
 
-            System.out.println("Processing node: " + nodeId);
-
-            System.out.print("  Neighbors: ");
-            for (var neighbor : node.getColoredNeighbours()) {
-                String neighborId = neighbor.getId();
-                if (newVarTable.containsKey(neighborId)) {
-                    System.out.print(neighborId + "(reg:" + newVarTable.get(neighborId).getVirtualReg() + ") ");
-                } else {
-                    System.out.print(neighborId + "(uncolored) ");
-                }
-            }
-            System.out.println();
+            line(steps, () -> "Processing node: " + nodeId);
+            line(steps, () -> "  Neighbors: " + describeNeighbours(node, newVarTable));
 
             boolean coloredSuccessfully = false;
 
@@ -202,7 +202,7 @@ public class GraphColoringAlgorithm {
                 for (var neighbour : node.getColoredNeighbours()) {
                     if (availableColors.get(reg).contains(neighbour.getId())) {
                         isAvailableForColoring = false;
-                        System.out.println("  Register " + reg + " not available (used by " +
+                        line(steps, () -> "  Register " + reg + " not available (used by " +
                                 neighbour.getId() + ")");
                         break;
                     }
@@ -212,27 +212,26 @@ public class GraphColoringAlgorithm {
                     availableColors.get(reg).add(nodeId);
                     coloredSuccessfully = true;
                     newVarTable.put(nodeId, new Descriptor(VarScope.LOCAL, reg, varTable.get(nodeId).getVarType()));
-                    System.out.println("  Assigned register " + reg + " to " + nodeId);
+                    line(steps, () -> "  Assigned register " + reg + " to " + nodeId);
                     break;
                 }
             }
 
             if (!coloredSuccessfully) {
                 if (minimizeNumRegs) {
-                    totalAvailableRegisters++;
-                    availableColors.put(totalAvailableRegisters - 1, new ArrayList<>());
+                    int newReg = totalAvailableRegisters++;
+                    availableColors.put(newReg, new ArrayList<>());
                     stack.push(node);
-                    System.out.println("  No available register, adding new register " +
-                            (totalAvailableRegisters - 1) + " and trying again");
+                    line(steps, () -> "  No available register, adding new register " + newReg + " and trying again");
                 } else {
-                    System.err.println("Not enough registers for: " + nodeId);
+                    trace.warn(REGALLOC, () -> "Not enough registers for: " + nodeId);
                     return;
                 }
             }
         }
 
         // STEP 6: Handle local variables that are NOT in the interference graph
-        System.out.println("\nSTEP 6: Handling non-interfering local variables");
+        line(steps, "\nSTEP 6: Handling non-interfering local variables");
 
         for (var identifier : varTable.keySet()) {
             Descriptor descriptor = varTable.get(identifier);
@@ -241,13 +240,13 @@ public class GraphColoringAlgorithm {
                     !newVarTable.containsKey(identifier) &&
                     !identifier.equals("this")) {
 
-                System.out.println("Processing non-interfering variable: " + identifier);
+                line(steps, () -> "Processing non-interfering variable: " + identifier);
 
                 boolean assigned = false;
                 for (var reg : availableColors.keySet()) {
                     availableColors.get(reg).add(identifier);
                     newVarTable.put(identifier, new Descriptor(VarScope.LOCAL, reg, descriptor.getVarType()));
-                    System.out.println("  Assigned register " + reg + " to " + identifier);
+                    line(steps, () -> "  Assigned register " + reg + " to " + identifier);
                     assigned = true;
                     break;
                 }
@@ -259,9 +258,9 @@ public class GraphColoringAlgorithm {
                         availableColors.put(newReg, new ArrayList<>());
                         availableColors.get(newReg).add(identifier);
                         newVarTable.put(identifier, new Descriptor(VarScope.LOCAL, newReg, descriptor.getVarType()));
-                        System.out.println("  Added new register " + newReg + " for " + identifier);
+                        line(steps, () -> "  Added new register " + newReg + " for " + identifier);
                     } else {
-                        System.err.println("Not enough registers for: " + identifier);
+                        trace.warn(REGALLOC, () -> "Not enough registers for: " + identifier);
                         return;
                     }
                 }
@@ -281,31 +280,92 @@ public class GraphColoringAlgorithm {
 
         Collections.sort(usedRegs);
 
-        System.out.println("\n=== FINAL REGISTER ALLOCATION ===");
-        System.out.println("Number of registers allocated: " + usedRegs.size());
-        System.out.println("Used registers: " + usedRegs);
+        traceSteps(trace, steps);
 
-        System.out.println("\n--- Final Variable Table ---");
-        for (var entry : varTable.entrySet()) {
-            Descriptor desc = entry.getValue();
-            System.out.println(String.format("%-10s | %-10s | reg: %d",
-                    entry.getKey(),
-                    desc.getScope(),
-                    desc.getVirtualReg()));
-        }
+        trace.debug(REGALLOC, () -> describeAllocation(varTable, usedRegs));
+    }
+
+    private static String describeAllocation(Map<String, Descriptor> varTable, List<Integer> usedRegs) {
+        var description = new StringBuilder();
+
+        line(description, "\n=== FINAL REGISTER ALLOCATION ===");
+        line(description, "Number of registers allocated: " + usedRegs.size());
+        line(description, "Used registers: " + usedRegs);
+
+        line(description, "\n--- Final Variable Table ---");
+        appendVarTable(description, varTable);
 
-        System.out.println("\n--- Visual Register Allocation ---");
+        line(description, "\n--- Visual Register Allocation ---");
         for (int reg : usedRegs) {
-            System.out.print("Register " + reg + ": ");
             List<String> varsInReg = new ArrayList<>();
             for (var entry : varTable.entrySet()) {
                 if (entry.getValue().getVirtualReg() == reg) {
                     varsInReg.add(entry.getKey());
                 }
             }
-            System.out.println(String.join(", ", varsInReg));
+            line(description, "Register " + reg + ": " + String.join(", ", varsInReg));
         }
 
-        System.out.println("\n=== END VISUALIZATION ===\n");
+        line(description, "\n=== END VISUALIZATION ===");
+
+        return description.toString();
+    }
+
+    private static String describeInterferences(Node node) {
+        List<String> neighbors = new ArrayList<>();
+        for (Edge edge : node.getEdges()) {
+            neighbors.add(edge.getDest().getId());
+        }
+        return String.join(", ", neighbors);
+    }
+
+    private static String describeNeighbours(Node node, Map<String, Descriptor> newVarTable) {
+        var description = new StringBuilder();
+        for (var neighbor : node.getColoredNeighbours()) {
+            String neighborId = neighbor.getId();
+            if (newVarTable.containsKey(neighborId)) {
+                description.append(neighborId + "(reg:" + newVarTable.get(neighborId).getVirtualReg() + ") ");
+            } else {
+                description.append(neighborId + "(uncolored) ");
+            }
+        }
+        return description.toString();
+    }
+
+    private static void appendVarTable(StringBuilder text, Map<String, Descriptor> varTable) {
+        if (text == null) {
+            return;
+        }
+        for (var entry : varTable.entrySet()) {
+            Descriptor desc = entry.getValue();
+            line(text, String.format("%-10s | %-10s | reg: %d",
+                    entry.getKey(),
+                    desc.getScope(),
+                    desc.getVirtualReg()));
+        }
+    }
+
+    private static void traceSteps(CompilerTrace trace, StringBuilder steps) {
+        if (steps != null) {
+            trace.trace(REGALLOC, steps::toString);
+        }
+    }
+
+    /**
+     * Appends a line to the steps, which are null when they are not traced.
+     */
+    private static void line(StringBuilder text, String line) {
+        if (text != null) {
+            text.append(line).append('\n');
+        }
+    }
+
+    /**
+     * Appends a line that is only built when the steps are traced.
+     */
+    private static void line(StringBuilder text, Supplier<String> line) {
+        if (text != null) {
+            text.append(line.get()).append('\n');
+        }
     }
-}
\ No newline at end of file
+}
@@ -64,13 +64,16 @@ public class InterferenceGraph {
         List<Pair<Integer,Integer>> livelinessRange = new ArrayList<>();
         var in = liveliness.get(0);
         var out = liveliness.get(1);
+        var def = liveliness.get(2);
 
 
         int currentRangeStart = -1;
         List<Integer> instructionIds = new ArrayList<>(in.keySet());
 
         for (var instructionId : instructionIds){
-            boolean isLiveAtEndOfThisInstruction = out.get(instructionId) != null && out.get(instructionId).contains(identifier);
+            // A definition also occupies the register, even if the value is never read
+            boolean isLiveAtEndOfThisInstruction = (out.get(instructionId) != null && out.get(instructionId).contains(identifier))
+                    || (def.get(instructionId) != null && def.get(instructionId).contains(identifier));
 
             if (currentRangeStart == -1) {
                 if (isLiveAtEndOfThisInstruction) {
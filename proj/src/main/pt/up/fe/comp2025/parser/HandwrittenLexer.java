@@ -0,0 +1,284 @@
+package pt.up.fe.comp2025.parser;
+
+import java.util.Arrays;
+
+/**
+ * Splits Java-- code into the same tokens as the lexer rules of Javamm.g4, for {@link HandwrittenParser}.
+ * <p>
+ * The whole input is tokenized up front. Tokens are kept in parallel arrays (kind, offsets, line and column) instead of
+ * one object each, and their text is only extracted when the parser needs it. Lines and columns are counted like
+ * ANTLR does: lines start at 1, columns at 0, and every character, tabs included, is one column.
+ */
+class HandwrittenLexer {
+
+    enum TokenKind {
+        // Keywords
+        CLASS("class"), INT("int"), PUBLIC("public"), RETURN("return"), IMPORT("import"), EXTENDS("extends"),
+        BOOLEAN("boolean"), ELSE("else"), TRUE("true"), FALSE("false"), THIS("this"), IF("if"), WHILE("while"),
+        STATIC("static"), VOID("void"), STRING("String"), NEW("new"),
+        // Symbols
+        DOTS("..."), SEMI(";"), DOT("."), COMMA(","), LBRACE("{"), RBRACE("}"), LPAREN("("), RPAREN(")"),
+        LBRACKET("["), RBRACKET("]"), ASSIGN("="), STAR("*"), SLASH("/"), PLUS("+"), MINUS("-"), LESS("<"),
+        GREATER(">"), AND("&&"), NOT("!"),
+        // Tokens with variable text
+        INTEGER("integer"), ID("identifier"), EOF("<EOF>");
+
+        private final String text;
+
+        TokenKind(String text) {
+            this.text = text;
+        }
+
+        /**
+         * @return the text of the token, or a description of it for the tokens with variable text
+         */
+        String getText() {
+            return text;
+        }
+    }
+
+    private static final TokenKind[] KINDS = TokenKind.values();
+
+    private static final TokenKind[] KEYWORDS = Arrays.copyOfRange(KINDS, TokenKind.CLASS.ordinal(),
+            TokenKind.NEW.ordinal() + 1);
+
+    private final CharSequence code;
+
+    private byte[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private int[] lines;
+    private int[] columns;
+    private int size;
+
+    // Position of the next character
+    private int offset;
+    private int line;
+    private int column;
+
+    /**
+     * Tokenizes the code.
+     *
+     * @param code
+     * @throws HandwrittenParser.SyntaxError with the LEXICAL stage at the first character that starts no token
+     */
+    HandwrittenLexer(CharSequence code) {
+        this.code = code;
+
+        // Roughly one token every 4 characters
+        var capacity = Math.max(16, code.length() / 4);
+        this.kinds = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.line = 1;
+
+        tokenize();
+    }
+
+    /**
+     * @return the number of tokens, the last one is always EOF
+     */
+    int size() {
+        return size;
+    }
+
+    TokenKind getKind(int token) {
+        return KINDS[kinds[token]];
+    }
+
+    String getText(int token) {
+        return code.subSequence(starts[token], ends[token]).toString();
+    }
+
+    boolean hasText(int token, String text) {
+        var length = ends[token] - starts[token];
+        if (length != text.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (code.charAt(starts[token] + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    int getLine(int token) {
+        return lines[token];
+    }
+
+    int getColumn(int token) {
+        return columns[token];
+    }
+
+    private void tokenize() {
+        while (true) {
+            skipWhitespaceAndComments();
+
+            if (offset >= code.length()) {
+                add(TokenKind.EOF, offset, line, column);
+                return;
+            }
+
+            var start = offset;
+            var startLine = line;
+            var startColumn = column;
+            var c = code.charAt(offset);
+
+            TokenKind kind;
+            if (isIdentifierStart(c)) {
+                advance();
+                while (offset < code.length() && isIdentifierPart(code.charAt(offset))) {
+                    advance();
+                }
+                kind = getKeyword(start, offset);
+            } else if (c >= '0' && c <= '9') {
+                advance();
+                // INTEGER : [0-9] | [1-9][0-9]+, a leading 0 is a token of its own
+                if (c != '0') {
+                    while (offset < code.length() && isDigit(code.charAt(offset))) {
+                        advance();
+                    }
+                }
+                kind = TokenKind.INTEGER;
+            } else {
+                kind = getSymbol(c);
+                if (kind == null) {
+                    throw new HandwrittenParser.SyntaxError(true, startLine, startColumn,
+                            "token recognition error at: '" + c + "'");
+                }
+                for (int i = 0; i < kind.getText().length(); i++) {
+                    advance();
+                }
+            }
+
+            add(kind, start, startLine, startColumn);
+        }
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (offset < code.length()) {
+            var c = code.charAt(offset);
+
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+                advance();
+            } else if (c == '/' && peek(1) == '/') {
+                while (offset < code.length() && code.charAt(offset) != '\n' && code.charAt(offset) != '\r') {
+                    advance();
+                }
+            } else if (c == '/' && peek(1) == '*') {
+                var end = indexOf("*/", offset + 2);
+                // Without its end, '/*' is not a comment but a division and a multiplication
+                if (end < 0) {
+                    return;
+                }
+                while (offset < end + 2) {
+                    advance();
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private TokenKind getSymbol(char c) {
+        return switch (c) {
+            case '.' -> peek(1) == '.' && peek(2) == '.' ? TokenKind.DOTS : TokenKind.DOT;
+            case ';' -> TokenKind.SEMI;
+            case ',' -> TokenKind.COMMA;
+            case '{' -> TokenKind.LBRACE;
+            case '}' -> TokenKind.RBRACE;
+            case '(' -> TokenKind.LPAREN;
+            case ')' -> TokenKind.RPAREN;
+            case '[' -> TokenKind.LBRACKET;
+            case ']' -> TokenKind.RBRACKET;
+            case '=' -> TokenKind.ASSIGN;
+            case '*' -> TokenKind.STAR;
+            case '/' -> TokenKind.SLASH;
+            case '+' -> TokenKind.PLUS;
+            case '-' -> TokenKind.MINUS;
+            case '<' -> TokenKind.LESS;
+            case '>' -> TokenKind.GREATER;
+            case '!' -> TokenKind.NOT;
+            case '&' -> peek(1) == '&' ? TokenKind.AND : null;
+            default -> null;
+        };
+    }
+
+    private TokenKind getKeyword(int start, int end) {
+        for (var keyword : KEYWORDS) {
+            var text = keyword.getText();
+            if (text.length() == end - start && text.charAt(0) == code.charAt(start) && matches(text, start)) {
+                return keyword;
+            }
+        }
+
+        return TokenKind.ID;
+    }
+
+    private boolean matches(String text, int start) {
+        for (int i = 1; i < text.length(); i++) {
+            if (code.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(String text, int from) {
+        for (int i = from; i + text.length() <= code.length(); i++) {
+            if (code.charAt(i) == text.charAt(0) && matches(text, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private char peek(int distance) {
+        return offset + distance < code.length() ? code.charAt(offset + distance) : '\0';
+    }
+
+    private void advance() {
+        if (code.charAt(offset) == '\n') {
+            line++;
+            column = 0;
+        } else {
+            column++;
+        }
+        offset++;
+    }
+
+    private void add(TokenKind kind, int start, int startLine, int startColumn) {
+        if (size == kinds.length) {
+            var capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+
+        kinds[size] = (byte) kind.ordinal();
+        starts[size] = start;
+        ends[size] = offset;
+        lines[size] = startLine;
+        columns[size] = startColumn;
+        size++;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c == '$';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,661 @@
+package pt.up.fe.comp2025.parser;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.CompactJmmNode;
+import pt.up.fe.comp2025.parser.HandwrittenLexer.TokenKind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser for Javamm.g4, with a Pratt parser for the left-recursive expression rule.
+ * <p>
+ * Builds the same JmmNode AST as ANTLR followed by AntlrParser: nodes have the kinds of the rules and labels of the
+ * grammar (e.g. [IfStmt, Stmt]), the attributes of their labeled tokens, rules and locals, and the positions of their
+ * first and last tokens, but no parse tree is built in between. Like an ANTLR rule, a starting rule other than
+ * 'program' stops where the rule ends and ignores the remaining tokens.
+ * <p>
+ * The parser stops at the first error, with a {@link SyntaxError}.
+ */
+class HandwrittenParser {
+
+    // Binding power of the binary operators, higher binds tighter, like the order of the alternatives of 'expr'
+    private static final int AND_PRECEDENCE = 1;
+    private static final int COMPARISON_PRECEDENCE = 2;
+    private static final int ADDITIVE_PRECEDENCE = 3;
+    private static final int MULTIPLICATIVE_PRECEDENCE = 4;
+    // The operand of '!' includes array accesses, lengths and calls, but no binary operation
+    private static final int NOT_PRECEDENCE = 5;
+
+    private final HandwrittenLexer tokens;
+
+    // Index of the next token
+    private int next;
+
+    HandwrittenParser(HandwrittenLexer tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * An error that stops the parse, in the lexer or in the parser.
+     */
+    static class SyntaxError extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean lexical;
+        private final int line;
+        private final int column;
+
+        SyntaxError(boolean lexical, int line, int column, String message) {
+            super(message);
+            this.lexical = lexical;
+            this.line = line;
+            this.column = column;
+        }
+
+        boolean isLexical() {
+            return lexical;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        int getColumn() {
+            return column;
+        }
+    }
+
+    /**
+     * @param rule the name of a rule of the grammar
+     * @return the node of the rule
+     * @throws SyntaxError
+     */
+    JmmNode parse(String rule) {
+        return switch (rule) {
+            case "program" -> program();
+            case "importDecl" -> importDecl();
+            case "classDecl" -> classDecl();
+            case "varDecl" -> varDecl();
+            case "type" -> type();
+            case "methodDecl" -> methodDecl();
+            case "returnStmt" -> returnStmt();
+            case "param" -> param();
+            case "stmt" -> stmt();
+            case "expr" -> expr(0);
+            default -> throw new RuntimeException("Rule '" + rule + "' does not exist in the grammar");
+        };
+    }
+
+    private JmmNode program() {
+        var start = next;
+
+        var imports = new ArrayList<JmmNode>();
+        while (peek() == TokenKind.IMPORT) {
+            imports.add(importDecl());
+        }
+
+        var classNode = classDecl();
+        expect(TokenKind.EOF);
+
+        var node = newNode("Program", null, start);
+        imports.forEach(node::add);
+        node.add(classNode);
+        node.putObject("classNode", classNode);
+        return node;
+    }
+
+    private JmmNode importDecl() {
+        var start = next;
+        expect(TokenKind.IMPORT);
+
+        var packageName = new ArrayList<String>();
+        packageName.add(tokens.getText(expect(TokenKind.ID)));
+        while (accept(TokenKind.DOT)) {
+            packageName.add(tokens.getText(expect(TokenKind.ID)));
+        }
+        expect(TokenKind.SEMI);
+
+        var node = newNode("ImportDecl", null, start);
+        node.put("ID", packageName.getLast());
+        node.putObject("packageName", packageName);
+        return node;
+    }
+
+    private JmmNode classDecl() {
+        var start = next;
+        expect(TokenKind.CLASS);
+        var name = tokens.getText(expect(TokenKind.ID));
+
+        String superName = null;
+        if (accept(TokenKind.EXTENDS)) {
+            superName = tokens.getText(expect(TokenKind.ID));
+        }
+
+        expect(TokenKind.LBRACE);
+
+        var children = new ArrayList<JmmNode>();
+        // Fields, until the first method
+        while (isTypeStart() && peek(2) != TokenKind.LPAREN && !isMethodStart()) {
+            children.add(varDecl());
+        }
+        while (peek() != TokenKind.RBRACE) {
+            children.add(methodDecl());
+        }
+        expect(TokenKind.RBRACE);
+
+        var node = newNode("ClassDecl", null, start);
+        children.forEach(node::add);
+        node.put("name", name);
+        if (superName != null) {
+            node.put("superName", superName);
+        }
+        return node;
+    }
+
+    private JmmNode varDecl() {
+        var start = next;
+        var type = type();
+        var name = tokens.getText(expect(TokenKind.ID));
+        expect(TokenKind.SEMI);
+
+        var node = newNode("VarDecl", null, start);
+        node.add(type);
+        node.put("name", name);
+        return node;
+    }
+
+    private JmmNode type() {
+        var start = next;
+        var isArray = false;
+        var isVararg = false;
+
+        if (peek() == TokenKind.INT && peek(1) == TokenKind.DOTS) {
+            next += 2;
+            isArray = true;
+            isVararg = true;
+        } else {
+            switch (peek()) {
+                case INT, BOOLEAN, ID, STRING -> next++;
+                default -> throw error("a type");
+            }
+
+            if (peek() == TokenKind.LBRACKET && peek(1) == TokenKind.RBRACKET) {
+                next += 2;
+                isArray = true;
+            }
+        }
+
+        var node = newNode("Type", null, start);
+        node.putObject("isArray", isArray);
+        node.putObject("isVararg", isVararg);
+        node.put("name", tokens.getText(start));
+        return node;
+    }
+
+    private JmmNode methodDecl() {
+        var start = next;
+        var isPublic = accept(TokenKind.PUBLIC);
+
+        if (accept(TokenKind.STATIC)) {
+            return mainMethod(start, isPublic);
+        }
+
+        var returnType = type();
+        var name = tokens.getText(expect(TokenKind.ID));
+
+        var children = new ArrayList<JmmNode>();
+        children.add(returnType);
+
+        expect(TokenKind.LPAREN);
+        if (peek() != TokenKind.RPAREN) {
+            children.add(param());
+            while (accept(TokenKind.COMMA)) {
+                children.add(param());
+            }
+        }
+        expect(TokenKind.RPAREN);
+
+        expect(TokenKind.LBRACE);
+        methodBody(children);
+        children.add(returnStmt());
+        expect(TokenKind.RBRACE);
+
+        var node = newNode("MethodDecl", null, start);
+        children.forEach(node::add);
+        node.putObject("isPublic", isPublic);
+        node.putObject("isStatic", false);
+        node.put("name", name);
+        return node;
+    }
+
+    private JmmNode mainMethod(int start, boolean isPublic) {
+        expect(TokenKind.VOID);
+        var nameToken = expect(TokenKind.ID);
+        if (!tokens.hasText(nameToken, "main")) {
+            throw error(nameToken, "rule methodDecl failed predicate: {$name.text.equals(\"main\")}?");
+        }
+
+        expect(TokenKind.LPAREN);
+        expect(TokenKind.STRING);
+        expect(TokenKind.LBRACKET);
+        expect(TokenKind.RBRACKET);
+        var args = tokens.getText(expect(TokenKind.ID));
+        expect(TokenKind.RPAREN);
+
+        expect(TokenKind.LBRACE);
+        var children = new ArrayList<JmmNode>();
+        methodBody(children);
+        expect(TokenKind.RBRACE);
+
+        var node = newNode("MethodDecl", null, start);
+        children.forEach(node::add);
+        node.putObject("isPublic", isPublic);
+        node.putObject("isStatic", true);
+        node.put("name", "main");
+        node.put("args", args);
+        return node;
+    }
+
+    /**
+     * Parses the declarations and statements of a method, up to its return or closing brace.
+     */
+    private void methodBody(List<JmmNode> children) {
+        while (isVarDeclStart()) {
+            children.add(varDecl());
+        }
+        while (peek() != TokenKind.RETURN && peek() != TokenKind.RBRACE) {
+            children.add(stmt());
+        }
+    }
+
+    private JmmNode returnStmt() {
+        var start = next;
+        expect(TokenKind.RETURN);
+        var expr = expr(0);
+        expect(TokenKind.SEMI);
+
+        var node = newNode("ReturnStmt", null, start);
+        node.add(expr);
+        return node;
+    }
+
+    private JmmNode param() {
+        var start = next;
+        var type = type();
+        var name = tokens.getText(expect(TokenKind.ID));
+
+        var node = newNode("Param", null, start);
+        node.add(type);
+        node.putObject("typeNode", type);
+        node.put("name", name);
+        return node;
+    }
+
+    private JmmNode stmt() {
+        var start = next;
+
+        switch (peek()) {
+            case LBRACE -> {
+                next++;
+                var children = new ArrayList<JmmNode>();
+                while (peek() != TokenKind.RBRACE) {
+                    children.add(stmt());
+                }
+                next++;
+
+                var node = newNode("ScopeStmt", "Stmt", start);
+                children.forEach(node::add);
+                return node;
+            }
+            case IF -> {
+                next++;
+                expect(TokenKind.LPAREN);
+                var cond = expr(0);
+                expect(TokenKind.RPAREN);
+                var then = stmt();
+                expect(TokenKind.ELSE);
+                var elseStmt = stmt();
+
+                var node = newNode("IfStmt", "Stmt", start);
+                node.add(cond);
+                node.add(then);
+                node.add(elseStmt);
+                node.putObject("cond", cond);
+                node.putObject("then", then);
+                node.putObject("elseStmt", elseStmt);
+                return node;
+            }
+            case WHILE -> {
+                next++;
+                expect(TokenKind.LPAREN);
+                var cond = expr(0);
+                expect(TokenKind.RPAREN);
+                var body = stmt();
+
+                var node = newNode("WhileStmt", "Stmt", start);
+                node.add(cond);
+                node.add(body);
+                node.putObject("cond", cond);
+                node.putObject("body", body);
+                return node;
+            }
+            default -> {
+                // 'a[i] = x;' is an ArrayAssignStmt, 'a[i][j] = x;' and 'a[i].length;' are not
+                var arrayAssign = peek() == TokenKind.ID && peek(1) == TokenKind.LBRACKET ? arrayAssignStmt() : null;
+                if (arrayAssign != null) {
+                    return arrayAssign;
+                }
+                next = start;
+
+                var expr = expr(0);
+                if (accept(TokenKind.SEMI)) {
+                    var node = newNode("ExprStmt", "Stmt", start);
+                    node.add(expr);
+                    return node;
+                }
+
+                expect(TokenKind.ASSIGN);
+                var value = expr(0);
+                expect(TokenKind.SEMI);
+
+                var node = newNode("AssignStmt", "Stmt", start);
+                node.add(expr);
+                node.add(value);
+                return node;
+            }
+        }
+    }
+
+    /**
+     * @return the statement, or null if the tokens after the index are not '=', then the statement is something else
+     */
+    private JmmNode arrayAssignStmt() {
+        var start = next;
+        var name = tokens.getText(next);
+        next += 2;
+
+        var index = expr(0);
+        expect(TokenKind.RBRACKET);
+        if (!accept(TokenKind.ASSIGN)) {
+            return null;
+        }
+        var value = expr(0);
+        expect(TokenKind.SEMI);
+
+        var node = newNode("ArrayAssignStmt", "Stmt", start);
+        node.add(index);
+        node.add(value);
+        node.put("name", name);
+        return node;
+    }
+
+    /**
+     * Parses an expression whose binary operations bind at least as tightly as the given precedence.
+     */
+    private JmmNode expr(int minPrecedence) {
+        var start = next;
+        var left = primary();
+
+        while (true) {
+            var kind = peek();
+
+            // Postfix operations bind tighter than everything else
+            if (kind == TokenKind.LBRACKET) {
+                next++;
+                var inside = expr(0);
+                expect(TokenKind.RBRACKET);
+
+                var node = newNode("ArrayAccess", "Expr", start);
+                node.add(left);
+                node.add(inside);
+                node.putObject("expression", left);
+                node.putObject("inside", inside);
+                left = node;
+                continue;
+            }
+
+            if (kind == TokenKind.DOT) {
+                next++;
+                left = member(start, left);
+                continue;
+            }
+
+            var precedence = getPrecedence(kind);
+            if (precedence < minPrecedence || precedence == 0) {
+                return left;
+            }
+
+            var op = tokens.getText(next);
+            next++;
+            // Left associative, the right operand only takes operations that bind tighter
+            var right = expr(precedence + 1);
+
+            var node = newNode("BinaryExpr", "Expr", start);
+            node.add(left);
+            node.add(right);
+            node.putObject("left", left);
+            node.put("op", op);
+            node.putObject("right", right);
+            left = node;
+        }
+    }
+
+    /**
+     * Parses what follows the '.' after an expression, a length or a method call.
+     */
+    private JmmNode member(int start, JmmNode object) {
+        var nameToken = expect(TokenKind.ID);
+        var name = tokens.getText(nameToken);
+
+        if (accept(TokenKind.LPAREN)) {
+            var arguments = new ArrayList<JmmNode>();
+            if (peek() != TokenKind.RPAREN) {
+                arguments.add(expr(0));
+                while (accept(TokenKind.COMMA)) {
+                    arguments.add(expr(0));
+                }
+            }
+            expect(TokenKind.RPAREN);
+
+            var node = newNode("MethodCall", "Expr", start);
+            node.add(object);
+            arguments.forEach(node::add);
+            node.put("name", name);
+            return node;
+        }
+
+        if (!name.equals("length")) {
+            throw error(nameToken, "rule expr failed predicate: {$name.text.equals(\"length\")}?");
+        }
+
+        var node = newNode("ArrayLength", "Expr", start);
+        node.add(object);
+        node.put("name", name);
+        return node;
+    }
+
+    private JmmNode primary() {
+        var start = next;
+
+        switch (peek()) {
+            case INTEGER -> {
+                next++;
+                var node = newNode("IntegerLiteral", "Expr", start);
+                node.put("value", tokens.getText(start));
+                return node;
+            }
+            case TRUE, FALSE -> {
+                next++;
+                var node = newNode("BooleanLiteral", "Expr", start);
+                node.put("value", tokens.getText(start));
+                return node;
+            }
+            case ID -> {
+                next++;
+                var node = newNode("VarRefExpr", "Expr", start);
+                node.put("name", tokens.getText(start));
+                return node;
+            }
+            case THIS -> {
+                next++;
+                var node = newNode("This", "Expr", start);
+                node.put("value", "this");
+                return node;
+            }
+            case LBRACKET -> {
+                next++;
+                var elements = new ArrayList<JmmNode>();
+                if (peek() != TokenKind.RBRACKET) {
+                    elements.add(expr(0));
+                    while (accept(TokenKind.COMMA)) {
+                        elements.add(expr(0));
+                    }
+                }
+                expect(TokenKind.RBRACKET);
+
+                var node = newNode("ArrayInit", "Expr", start);
+                elements.forEach(node::add);
+                node.put("value", "[");
+                return node;
+            }
+            case LPAREN -> {
+                next++;
+                var expression = expr(0);
+                expect(TokenKind.RPAREN);
+
+                var node = newNode("Paren", "Expr", start);
+                node.add(expression);
+                node.putObject("expression", expression);
+                return node;
+            }
+            case NEW -> {
+                next++;
+                if (accept(TokenKind.INT)) {
+                    expect(TokenKind.LBRACKET);
+                    var expression = expr(0);
+                    expect(TokenKind.RBRACKET);
+
+                    var node = newNode("NewArray", "Expr", start);
+                    node.add(expression);
+                    node.putObject("expression", expression);
+                    return node;
+                }
+
+                var name = tokens.getText(expect(TokenKind.ID));
+                expect(TokenKind.LPAREN);
+                expect(TokenKind.RPAREN);
+
+                var node = newNode("NewClass", "Expr", start);
+                node.put("name", name);
+                return node;
+            }
+            case NOT -> {
+                next++;
+                var expression = expr(NOT_PRECEDENCE);
+
+                var node = newNode("Not", "Expr", start);
+                node.add(expression);
+                node.putObject("expression", expression);
+                return node;
+            }
+            default -> throw error("an expression");
+        }
+    }
+
+    private static int getPrecedence(TokenKind kind) {
+        return switch (kind) {
+            case STAR, SLASH -> MULTIPLICATIVE_PRECEDENCE;
+            case PLUS, MINUS -> ADDITIVE_PRECEDENCE;
+            case LESS, GREATER -> COMPARISON_PRECEDENCE;
+            case AND -> AND_PRECEDENCE;
+            default -> 0;
+        };
+    }
+
+    /**
+     * @return true if the next tokens are a declaration, 'type name', and not a statement
+     */
+    private boolean isVarDeclStart() {
+        return switch (peek()) {
+            case INT, BOOLEAN, STRING -> true;
+            // 'A a' or 'A[] a', 'a[i]' always has an index
+            case ID -> peek(1) == TokenKind.ID || peek(1) == TokenKind.LBRACKET && peek(2) == TokenKind.RBRACKET;
+            default -> false;
+        };
+    }
+
+    private boolean isTypeStart() {
+        return switch (peek()) {
+            case INT, BOOLEAN, STRING, ID -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return true if the declaration that starts at the next token has parameters
+     */
+    private boolean isMethodStart() {
+        var token = next;
+        // Type, with '[]' or '...'
+        token++;
+        if (tokens.getKind(token) == TokenKind.LBRACKET) {
+            token += 2;
+        } else if (tokens.getKind(token) == TokenKind.DOTS) {
+            token++;
+        }
+        // Name
+        return tokens.getKind(Math.min(token + 1, tokens.size() - 1)) == TokenKind.LPAREN;
+    }
+
+    private TokenKind peek() {
+        return tokens.getKind(next);
+    }
+
+    private TokenKind peek(int distance) {
+        return tokens.getKind(Math.min(next + distance, tokens.size() - 1));
+    }
+
+    private boolean accept(TokenKind kind) {
+        if (peek() != kind) {
+            return false;
+        }
+
+        next++;
+        return true;
+    }
+
+    /**
+     * @return the index of the token
+     */
+    private int expect(TokenKind kind) {
+        if (peek() != kind) {
+            throw error("'" + kind.getText() + "'");
+        }
+
+        return next++;
+    }
+
+    private SyntaxError error(String expected) {
+        var found = peek() == TokenKind.EOF ? "<EOF>" : tokens.getText(next);
+        return error(next, "expected " + expected + ", found '" + found + "'");
+    }
+
+    private SyntaxError error(int token, String message) {
+        return new SyntaxError(false, tokens.getLine(token), tokens.getColumn(token), message);
+    }
+
+    /**
+     * Creates the node of the tokens from the start up to the last one consumed.
+     */
+    private CompactJmmNode newNode(String kind, String superKind, int start) {
+        var node = new CompactJmmNode(superKind == null ? List.of(kind) : List.of(kind, superKind));
+        var end = next - 1;
+
+        node.setStart(tokens.getLine(start), tokens.getColumn(start));
+        node.setEnd(tokens.getLine(end), tokens.getColumn(end));
+
+        return node;
+    }
+}
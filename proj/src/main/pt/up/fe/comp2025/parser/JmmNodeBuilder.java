@@ -0,0 +1,236 @@
+package pt.up.fe.comp2025.parser;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.CompactJmmNode;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the JmmNode AST while ANTLR parses, as a parse listener, so that the parser does not have to build the parse
+ * tree (see {@link Parser#setBuildParseTree(boolean)}).
+ * <p>
+ * The nodes are the same AntlrToJmmNodeConverter creates from the parse tree, as {@link CompactJmmNode}: the kind and
+ * hierarchy come from the class of the context, the attributes from its public fields (labels and locals), and the
+ * children are the nodes of the rules invoked inside it. Each node is created when its rule exits, from the nodes of
+ * the rules that exited while it was open. ANTLR still adds the tokens to the context of their rule, but not the
+ * contexts of the rules invoked inside it, so once its parent exits, nothing refers to the context anymore.
+ * <p>
+ * Left-recursive rules are the exception: the context of a left operand exits before the context that contains it is
+ * entered, and ANTLR only sets its stop token afterwards. When that context is entered, the node of the operand is
+ * moved into it and its end position updated.
+ * <p>
+ * After a syntax error, or once the parse is cancelled, the events are ignored, the tree is not used.
+ */
+class JmmNodeBuilder implements ParseTreeListener {
+
+    // Read-only once computed, can be safely shared between parsers
+    private static final Map<Class<?>, List<String>> hierarchies = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, List<Field>> fields = new ConcurrentHashMap<>();
+
+    private final Parser parser;
+
+    // The rules that exited inside each open rule, innermost last
+    private final Deque<Frame> frames;
+
+    private boolean failed;
+
+    JmmNodeBuilder(Parser parser) {
+        this.parser = parser;
+        this.frames = new ArrayDeque<>();
+        this.frames.push(new Frame());
+    }
+
+    /**
+     * @return the node of the starting rule
+     */
+    JmmNode getRoot() {
+        var frame = frames.getLast();
+        if (frames.size() != 1 || frame.nodes.size() != 1) {
+            throw new RuntimeException("Parse finished with " + frames.size() + " open rules and " + frame.nodes.size()
+                    + " root nodes");
+        }
+
+        return frame.nodes.getFirst();
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        if (isFailed(ctx)) {
+            return;
+        }
+
+        var parent = frames.peek();
+        var frame = new Frame();
+
+        // A left-recursive alternative, the left operand already exited and now belongs to this context
+        var last = parent.contexts.size() - 1;
+        if (last >= 0 && parent.contexts.get(last).parent == ctx) {
+            var operand = parent.contexts.remove(last);
+            var node = parent.nodes.remove(last);
+            setEnd(node, operand);
+
+            frame.add(operand, node);
+        }
+
+        frames.push(frame);
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        if (isFailed(ctx)) {
+            return;
+        }
+
+        var frame = frames.pop();
+
+        var node = new CompactJmmNode(getHierarchy(ctx.getClass()));
+        setStart(node, ctx);
+        setEnd(node, ctx);
+        addAttributes(node, ctx, frame);
+        frame.nodes.forEach(node::add);
+
+        frames.peek().add(ctx, node);
+    }
+
+    /**
+     * @return true if the parse reported a syntax error, or is being cancelled by BailErrorStrategy
+     */
+    private boolean isFailed(ParserRuleContext ctx) {
+        failed |= ctx.exception != null || parser.getNumberOfSyntaxErrors() > 0;
+        return failed;
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+        // Tokens are not nodes of the AST
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        // Only after a syntax error, when the tree is not used
+    }
+
+    private void setStart(CompactJmmNode node, ParserRuleContext ctx) {
+        var start = parser.getTokenStream().get(ctx.getSourceInterval().a);
+
+        node.setStart(start.getLine(), start.getCharPositionInLine());
+    }
+
+    private void setEnd(CompactJmmNode node, ParserRuleContext ctx) {
+        // A left operand exits before ANTLR sets its stop token, its end is set again when it is moved
+        var interval = ctx.getSourceInterval();
+        var end = parser.getTokenStream().get(Math.max(interval.a, interval.b));
+
+        node.setEnd(end.getLine(), end.getCharPositionInLine());
+    }
+
+    private static void addAttributes(CompactJmmNode node, ParserRuleContext ctx, Frame frame) {
+        for (var field : getFields(ctx.getClass())) {
+            Object value;
+            try {
+                value = field.get(ctx);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Could not access field '" + field.getName() + "' from node " + ctx);
+            }
+
+            if (field.getType().isAssignableFrom(Token.class)) {
+                // If no token for the given field, skip
+                if (value != null) {
+                    node.put(field.getName(), ((Token) value).getText());
+                }
+                continue;
+            }
+
+            // Labeled rules are always invoked directly inside the rule
+            if (value instanceof ParserRuleContext child) {
+                var index = frame.indexOf(child);
+                if (index >= 0) {
+                    value = frame.nodes.get(index);
+                }
+            }
+
+            node.putObject(field.getName(), processValue(value));
+        }
+    }
+
+    private static Object processValue(Object value) {
+        if (value instanceof Token token) {
+            return token.getText();
+        }
+
+        if (value instanceof List<?> list) {
+            return list.stream().map(JmmNodeBuilder::processValue).collect(Collectors.toList());
+        }
+
+        return value;
+    }
+
+    private static List<String> getHierarchy(Class<?> contextClass) {
+        return hierarchies.computeIfAbsent(contextClass, aClass -> getContextClasses(aClass).stream()
+                .map(JmmNodeBuilder::getKind)
+                .toList());
+    }
+
+    private static List<Field> getFields(Class<?> contextClass) {
+        return fields.computeIfAbsent(contextClass, aClass -> getContextClasses(aClass).stream()
+                .flatMap(nodeClass -> List.of(nodeClass.getDeclaredFields()).stream())
+                .filter(field -> Modifier.isPublic(field.getModifiers()))
+                .toList());
+    }
+
+    /**
+     * @return the class of the context and its superclasses up to ParserRuleContext, exclusive
+     */
+    private static List<Class<?>> getContextClasses(Class<?> contextClass) {
+        var classes = new ArrayList<Class<?>>();
+        for (var current = contextClass; !current.equals(ParserRuleContext.class); current = current.getSuperclass()) {
+            classes.add(current);
+        }
+        return classes;
+    }
+
+    private static String getKind(Class<?> contextClass) {
+        var className = contextClass.getSimpleName();
+
+        // Rules end with context
+        if (!className.endsWith("Context")) {
+            throw new RuntimeException("Expected classname to end with 'Context' " + className);
+        }
+
+        return className.substring(0, className.length() - "Context".length());
+    }
+
+    private static class Frame {
+
+        private final List<ParserRuleContext> contexts = new ArrayList<>();
+        private final List<CompactJmmNode> nodes = new ArrayList<>();
+
+        void add(ParserRuleContext context, CompactJmmNode node) {
+            contexts.add(context);
+            nodes.add(node);
+        }
+
+        int indexOf(ParserRuleContext context) {
+            for (int i = 0; i < contexts.size(); i++) {
+                if (contexts.get(i) == context) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package pt.up.fe.comp2025.parser;
 
 import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
-import pt.up.fe.comp.jmm.ast.antlr.AntlrParser;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import pt.up.fe.comp.jmm.ast.antlr.JmmErrorListener;
 import pt.up.fe.comp.jmm.parser.JmmParser;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.CompilerConfig;
 import pt.up.fe.comp2025.JavammLexer;
 import pt.up.fe.comp2025.JavammParser;
 
+import java.lang.reflect.InvocationTargetException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Copyright 2022 SPeCS.
@@ -25,8 +36,40 @@ import java.util.Map;
  * specific language governing permissions and limitations under the License. under the License.
  */
 
+/**
+ * Parses in two stages: first with SLL prediction and an error strategy that gives up at the first syntax error, which
+ * is much cheaper for the left-recursive expression rule, and only if that fails again with full LL prediction and
+ * the usual error reporting. When SLL prediction parses the code it builds the same tree as LL prediction, so only
+ * code with syntax errors, or that needs the full LL prediction, is parsed twice.
+ * <p>
+ * Neither stage builds the parse tree, {@link JmmNodeBuilder} builds the AST as the rules exit. With the profile parser
+ * option, both stages record the statistics of their decisions in {@link #getProfile()}.
+ * <p>
+ * With the handwritten parser option, ANTLR is not used at all: {@link HandwrittenParser} builds the AST directly and
+ * reports only the first error.
+ */
 public class JmmParserImpl implements JmmParser {
 
+    // Parses in this JVM finished by each stage
+    private static final AtomicLong sllParses = new AtomicLong();
+    private static final AtomicLong llParses = new AtomicLong();
+
+    // Decisions of the parses in this JVM with profiling enabled
+    private static final ParserProfile profile = new ParserProfile();
+
+    private final CompilationContext context;
+
+    public JmmParserImpl() {
+        this(null);
+    }
+
+    /**
+     * @param context the context of the compilation, or null if the parser is not part of a larger compilation
+     */
+    public JmmParserImpl(CompilationContext context) {
+        this.context = context;
+    }
+
     @Override
     public String getDefaultRule() {
         return "program";
@@ -34,30 +77,183 @@ public class JmmParserImpl implements JmmParser {
 
     @Override
     public JmmParserResult parse(String jmmCode, String startingRule, Map<String, String> config) {
+        return parse((CharSequence) jmmCode, startingRule, config);
+    }
+
+    /**
+     * Same as {@link #parse(String, Map)}, for code that is not a String, such as the buffer of
+     * {@link SourceReader#read(java.io.File)}.
+     */
+    public JmmParserResult parse(CharSequence jmmCode, Map<String, String> config) {
+        return parse(jmmCode, getDefaultRule(), config);
+    }
+
+    /**
+     * Same as {@link #parse(String, String, Map)}. A CharBuffer backed by an array is lexed in place, without copying.
+     */
+    public JmmParserResult parse(CharSequence jmmCode, String startingRule, Map<String, String> config) {
 
         try {
-            // Convert code string into a character stream
-            var input = new ANTLRInputStream(jmmCode);
-            // Transform characters into tokens using the lexer
-            var lex = new JavammLexer(input);
-            // Wrap lexer around a token stream
-            var tokens = new CommonTokenStream(lex);
-            // Transforms tokens into a parse tree
-            var parser = new JavammParser(tokens);
+            if (CompilerConfig.getParser(config).equals(CompilerConfig.HANDWRITTEN_PARSER)) {
+                count("handwritten");
+                return parseHandwritten(jmmCode, startingRule, config);
+            }
 
+            if (CompilerConfig.getPrediction(config).equals(CompilerConfig.SLL_PREDICTION)) {
+                var result = parseSll(jmmCode, startingRule, config);
 
-            // Convert ANTLR CST to JmmNode AST
-            var r = AntlrParser.parse(lex, parser, startingRule, config);
+                if (result != null) {
+                    sllParses.incrementAndGet();
+                    count("sll");
+                    return result;
+                }
 
-            //if (r.getRootNode() != null) {
-            //    System.out.println("AST:\n" + r.getRootNode().toTree());
-            //}
+                count("llFallback");
+            }
 
-            return r;
+            var result = parseLl(jmmCode, startingRule, config);
+            llParses.incrementAndGet();
+            count("ll");
+            return result;
 
         } catch (Exception e) {
             // There was an uncaught exception during parsing, create an error JmmParserResult without root node
             return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, "Exception during parsing", e), config);
         }
     }
+
+    /**
+     * @return the result of the parse, or null if SLL prediction could not parse the code
+     */
+    private static JmmParserResult parseSll(CharSequence jmmCode, String startingRule, Map<String, String> config)
+            throws ReflectiveOperationException {
+        var lex = new JavammLexer(newCharStream(jmmCode));
+        var parser = new JavammParser(new CommonTokenStream(lex));
+
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        // Throws at the first syntax error instead of reporting it and recovering
+        parser.setErrorHandler(new BailErrorStrategy());
+
+        try {
+            return parse(lex, parser, startingRule, config);
+        } catch (ParseCancellationException e) {
+            return null;
+        }
+    }
+
+    private static JmmParserResult parseLl(CharSequence jmmCode, String startingRule, Map<String, String> config)
+            throws ReflectiveOperationException {
+        // The code is lexed again, so that lexical errors are reported only once, by this parse
+        // Convert code string into a character stream
+        var input = newCharStream(jmmCode);
+        // Transform characters into tokens using the lexer
+        var lex = new JavammLexer(input);
+        // Wrap lexer around a token stream
+        var tokens = new CommonTokenStream(lex);
+        // Transforms tokens into a parse tree
+        var parser = new JavammParser(tokens);
+
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+        // Parse and build the JmmNode AST
+        return parse(lex, parser, startingRule, config);
+    }
+
+    private static CharStream newCharStream(CharSequence jmmCode) {
+        // ANTLRInputStream reads the array it is given, a String has to be copied into one
+        if (jmmCode instanceof CharBuffer buffer && buffer.hasArray() && buffer.arrayOffset() + buffer.position() == 0) {
+            return new ANTLRInputStream(buffer.array(), buffer.limit());
+        }
+
+        return new ANTLRInputStream(jmmCode.toString());
+    }
+
+    private static JmmParserResult parseHandwritten(CharSequence jmmCode, String startingRule, Map<String, String> config) {
+        try {
+            var root = new HandwrittenParser(new HandwrittenLexer(jmmCode)).parse(startingRule);
+            return new JmmParserResult(root, new ArrayList<>(), config);
+        } catch (HandwrittenParser.SyntaxError e) {
+            var stage = e.isLexical() ? Stage.LEXICAL : Stage.SYNTATIC;
+            return JmmParserResult.newError(Report.newError(stage, e.getLine(), e.getColumn(), e.getMessage(), null),
+                    config);
+        }
+    }
+
+    private void count(String name) {
+        if (context != null) {
+            context.getMetrics().count(name, 1);
+        }
+    }
+
+    /**
+     * @return how many parses in this JVM were finished by each prediction mode
+     */
+    public static Stats getStats() {
+        return new Stats(sllParses.get(), llParses.get());
+    }
+
+    /**
+     * @return the decisions of the ANTLR parses in this JVM that had profiling enabled
+     */
+    public static ParserProfile getProfile() {
+        return profile;
+    }
+
+    private static JmmParserResult parse(JavammLexer lex, JavammParser parser, String startingRule,
+                                         Map<String, String> config) throws ReflectiveOperationException {
+        lex.removeErrorListeners();
+        var lexerListener = new JmmErrorListener(Stage.LEXICAL);
+        lex.addErrorListener(lexerListener);
+
+        parser.removeErrorListeners();
+        var parserListener = new JmmErrorListener(Stage.SYNTATIC);
+        parser.addErrorListener(parserListener);
+
+        // The AST is built as the rules exit, instead of converting the parse tree afterward
+        parser.setBuildParseTree(false);
+        var builder = new JmmNodeBuilder(parser);
+        parser.addParseListener(builder);
+
+        var isProfiled = CompilerConfig.getProfileParser(config);
+        if (isProfiled) {
+            // Keeps the prediction mode
+            parser.setProfile(true);
+        }
+
+        try {
+            parser.getClass().getMethod(startingRule).invoke(parser);
+        } catch (InvocationTargetException e) {
+            // Rethrows what the rule threw, such as the cancellation of BailErrorStrategy
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            if (isProfiled) {
+                profile.add(parser);
+            }
+        }
+
+        var reports = new ArrayList<Report>();
+        reports.addAll(lexerListener.getReports());
+        reports.addAll(parserListener.getReports());
+
+        if (reports.stream().anyMatch(r -> r.getType().equals(ReportType.ERROR))) {
+            return new JmmParserResult(null, reports, config);
+        }
+
+        return new JmmParserResult(builder.getRoot(), reports, config);
+    }
+
+    /**
+     * @param sll parses finished with SLL prediction
+     * @param ll  parses with LL prediction, after SLL failed or because it was disabled
+     */
+    public record Stats(long sll, long ll) {
+
+        @Override
+        public String toString() {
+            return "Parser: %d parsed with SLL, %d with LL".formatted(sll, ll);
+        }
+    }
 }
@@ -0,0 +1,139 @@
+package pt.up.fe.comp2025.parser;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Statistics of the decisions of the ANTLR parser, collected by its profiling ATN simulator (see
+ * {@link Parser#setProfile(boolean)}) and accumulated over parses.
+ * <p>
+ * Each decision is a point of the grammar where the parser predicts which alternative to take, and is reported with
+ * the rule it belongs to and the kind of its ATN state (a block of alternatives, or the entry of a loop such as the
+ * one of a left-recursive rule). For each one: how many times it was predicted and the time spent, the lookahead of
+ * SLL prediction, how many times SLL prediction found a conflict and fell back to full LL prediction (only in the LL
+ * stage, the SLL stage gives up instead) and its lookahead, and the ambiguities, context sensitivities and syntax errors
+ * found. Ambiguities and context sensitivities are only detected by full LL prediction.
+ * <p>
+ * The DFA that caches predictions is shared by every parser in the JVM, so the first parses pay for filling it and
+ * later ones mostly show the lookahead of the cached DFA.
+ */
+public class ParserProfile {
+
+    // By decision number, in the order of the grammar
+    private final Map<Integer, DecisionStats> decisions = new TreeMap<>();
+
+    private long parses;
+
+    /**
+     * Adds the decisions of a parser that finished (or gave up on) a parse with profiling enabled.
+     *
+     * @param parser
+     */
+    public synchronized void add(Parser parser) {
+        var parseInfo = parser.getParseInfo();
+        if (parseInfo == null) {
+            return;
+        }
+
+        parses++;
+
+        for (var info : parseInfo.getDecisionInfo()) {
+            if (info.invocations == 0) {
+                continue;
+            }
+
+            decisions.computeIfAbsent(info.decision, decision -> new DecisionStats(parser, decision)).add(info);
+        }
+    }
+
+    public synchronized long getParses() {
+        return parses;
+    }
+
+    /**
+     * @param rule the name of a rule of the grammar
+     * @return how many times the decisions of the rule were predicted
+     */
+    public synchronized long getInvocations(String rule) {
+        return decisions.values().stream()
+                .filter(stats -> stats.rule.equals(rule))
+                .mapToLong(stats -> stats.invocations)
+                .sum();
+    }
+
+    /**
+     * @return a table of the decisions, the most expensive first
+     */
+    @Override
+    public synchronized String toString() {
+        var rows = new ArrayList<>(decisions.values());
+        rows.sort(Comparator.comparingLong((DecisionStats stats) -> stats.timeNanos).reversed());
+
+        var totalNanos = rows.stream().mapToLong(stats -> stats.timeNanos).sum();
+
+        var table = new StringBuilder();
+        table.append("Parser profile: %d parsed, %.3f ms in prediction%n".formatted(parses, totalNanos / 1e6));
+        table.append("%-12s %8s %-16s %12s %10s %8s %8s %10s %8s %8s %6s %6s %6s%n".formatted("rule", "decision",
+                "state", "invocations", "time (ms)", "SLL avg", "SLL max", "LL", "LL avg", "LL max", "ambig",
+                "ctxSen", "errors"));
+
+        for (var stats : rows) {
+            table.append("%-12s %8d %-16s %12d %10.3f %8.2f %8d %10d %8.2f %8d %6d %6d %6d%n".formatted(stats.rule,
+                    stats.decision, stats.state, stats.invocations, stats.timeNanos / 1e6,
+                    average(stats.sllTotalLook, stats.invocations), stats.sllMaxLook, stats.llFallbacks,
+                    average(stats.llTotalLook, stats.llFallbacks), stats.llMaxLook, stats.ambiguities,
+                    stats.contextSensitivities, stats.errors));
+        }
+
+        return table.toString();
+    }
+
+    private static double average(long total, long count) {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    private static class DecisionStats {
+
+        private final int decision;
+        private final String rule;
+        private final String state;
+
+        private long invocations;
+        private long timeNanos;
+        private long sllTotalLook;
+        private long sllMaxLook;
+        private long llFallbacks;
+        private long llTotalLook;
+        private long llMaxLook;
+        private long ambiguities;
+        private long contextSensitivities;
+        private long errors;
+
+        DecisionStats(Parser parser, int decision) {
+            var decisionState = parser.getATN().getDecisionState(decision);
+
+            this.decision = decision;
+            this.rule = parser.getRuleNames()[decisionState.ruleIndex];
+            // e.g. StarLoopEntry for the loop of a left-recursive rule
+            this.state = decisionState.getClass().getSimpleName().replace("State", "");
+        }
+
+        void add(DecisionInfo info) {
+            invocations += info.invocations;
+            timeNanos += info.timeInPrediction;
+            sllTotalLook += info.SLL_TotalLook;
+            sllMaxLook = Math.max(sllMaxLook, info.SLL_MaxLook);
+            llFallbacks += info.LL_Fallback;
+            llTotalLook += info.LL_TotalLook;
+            llMaxLook = Math.max(llMaxLook, info.LL_MaxLook);
+            ambiguities += info.ambiguities.size();
+            contextSensitivities += info.contextSensitivities.size();
+            errors += info.errors.size();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package pt.up.fe.comp2025.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads Java-- source files for the parser.
+ * <p>
+ * The file is memory-mapped and decoded from UTF-8 in a single pass into a char array, the only copy of the code in the
+ * heap: {@link JmmParserImpl} lexes that array in place instead of copying a String into an ANTLRInputStream, and the
+ * hand-written lexer reads any CharSequence. Like SpecsIo.read, malformed input is replaced instead of failing.
+ */
+public class SourceReader {
+
+    private SourceReader() {
+    }
+
+    /**
+     * @param file
+     * @return the code of the file, backed by an array
+     */
+    public static CharBuffer read(File file) {
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            // UTF-8 never has more chars than bytes, the decoder allocates the buffer once
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read the input file '" + file + "'", e);
+        }
+    }
+}
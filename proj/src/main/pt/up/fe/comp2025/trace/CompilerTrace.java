@@ -0,0 +1,180 @@
+package pt.up.fe.comp2025.trace;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Debug output of the compiler, with a level for each stage.
+ * <p>
+ * Messages are given as suppliers and only built when their level is enabled for their category, so dumps of whole
+ * trees or programs cost nothing when they are not printed. Output that needs more than one message (e.g. a loop over
+ * a table) should be guarded with {@link #isEnabled}.
+ * <p>
+ * The levels are given with the 'trace' option, a comma separated list of '[category:]level' entries, where an entry
+ * without a category sets the level of every category, e.g. '--trace=debug' or '--trace=info,regalloc:trace'. Without
+ * the option only warnings are printed. Messages go to the standard error, so they never mix with the output of the
+ * compiler itself.
+ */
+public class CompilerTrace {
+
+    public enum Level {
+        OFF,
+        WARN,
+        INFO,
+        DEBUG,
+        TRACE
+    }
+
+    public enum Category {
+        ANALYSIS,
+        OPTIMIZATION,
+        OLLIR,
+        REGALLOC,
+        JASMIN;
+
+        private String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final CompilerTrace DEFAULT = new CompilerTrace(toLevels(Level.WARN), null);
+
+    private final Map<Category, Level> levels;
+
+    // Null to use the standard error at the time of each message
+    private final PrintStream out;
+
+    private CompilerTrace(Map<Category, Level> levels, PrintStream out) {
+        this.levels = new EnumMap<>(levels);
+        this.out = out;
+    }
+
+    /**
+     * @return a trace that only prints warnings, can be shared
+     */
+    public static CompilerTrace defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param spec the value of the 'trace' option, or null
+     * @return
+     */
+    public static CompilerTrace parse(String spec) {
+        return parse(spec, null);
+    }
+
+    /**
+     * @param spec the value of the 'trace' option, or null
+     * @param out  where the messages are printed
+     * @return
+     */
+    public static CompilerTrace parse(String spec, PrintStream out) {
+        if (spec == null && out == null) {
+            return DEFAULT;
+        }
+
+        var levels = toLevels(Level.WARN);
+
+        if (spec == null) {
+            return new CompilerTrace(levels, out);
+        }
+
+        // Option given without a value
+        if (spec.equals("true")) {
+            return new CompilerTrace(toLevels(Level.DEBUG), out);
+        }
+
+        for (var entry : spec.split(",")) {
+            entry = entry.strip();
+            if (entry.isEmpty()) {
+                continue;
+            }
+
+            var colon = entry.indexOf(':');
+            if (colon == -1) {
+                levels.putAll(toLevels(parseLevel(entry)));
+                continue;
+            }
+
+            levels.put(parseCategory(entry.substring(0, colon)), parseLevel(entry.substring(colon + 1)));
+        }
+
+        return new CompilerTrace(levels, out);
+    }
+
+    private static Map<Category, Level> toLevels(Level level) {
+        var levels = new EnumMap<Category, Level>(Category.class);
+        for (var category : Category.values()) {
+            levels.put(category, level);
+        }
+        return levels;
+    }
+
+    private static Level parseLevel(String level) {
+        try {
+            return Level.valueOf(level.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unknown trace level '" + level + "', expected one of "
+                    + Arrays.toString(Level.values()).toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static Category parseCategory(String category) {
+        try {
+            return Category.valueOf(category.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unknown trace category '" + category + "', expected one of "
+                    + Arrays.toString(Category.values()).toLowerCase(Locale.ROOT));
+        }
+    }
+
+    public Level getLevel(Category category) {
+        return levels.get(category);
+    }
+
+    /**
+     * @param category
+     * @param level
+     * @return true if messages of the given level are printed for the given category
+     */
+    public boolean isEnabled(Category category, Level level) {
+        return level != Level.OFF && level.compareTo(levels.get(category)) <= 0;
+    }
+
+    public void warn(Category category, Supplier<String> message) {
+        log(category, Level.WARN, message);
+    }
+
+    public void info(Category category, Supplier<String> message) {
+        log(category, Level.INFO, message);
+    }
+
+    public void debug(Category category, Supplier<String> message) {
+        log(category, Level.DEBUG, message);
+    }
+
+    public void trace(Category category, Supplier<String> message) {
+        log(category, Level.TRACE, message);
+    }
+
+    /**
+     * Prints a message if its level is enabled for its category, the message is only built in that case.
+     *
+     * @param category
+     * @param level
+     * @param message
+     */
+    public void log(Category category, Level level, Supplier<String> message) {
+        if (!isEnabled(category, level)) {
+            return;
+        }
+
+        var line = "[" + category.getName() + "] " + message.get();
+        (out != null ? out : System.err).println(line);
+    }
+}
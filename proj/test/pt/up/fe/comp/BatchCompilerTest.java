@@ -0,0 +1,75 @@
+package pt.up.fe.comp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp2025.BatchCompiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchCompilerTest {
+
+    private static final List<String> RESOURCES = List.of(
+            "pt/up/fe/comp/cp3/jasmin/arithmetic/OllirToJasminArithmetics.jmm",
+            "pt/up/fe/comp/cp3/jasmin/calls/ConditionArgsFuncCall.jmm",
+            "pt/up/fe/comp/cp3/jasmin/control_flow/IfWhileNested.jmm",
+            "pt/up/fe/comp/cp3/jasmin/arrays/ComplexArrayAccess.jmm"
+    );
+
+    private static final String UNDECLARED_VARIABLE = """
+            class Invalid {
+                public static void main(String[] args) {
+                    a = 1;
+                }
+            }
+            """;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void keepsInputOrderAndCountsFailures() throws Exception {
+        // Valid and invalid files interleaved, so that workers finish out of order
+        var inputs = new ArrayList<File>();
+        var expectedSuccess = new ArrayList<Boolean>();
+        for (int i = 0; i < RESOURCES.size(); i++) {
+            var valid = temp.newFile("Valid" + i + ".jmm");
+            SpecsIo.write(valid, SpecsIo.getResource(RESOURCES.get(i)));
+            inputs.add(valid);
+            expectedSuccess.add(true);
+
+            if (i % 2 == 0) {
+                var invalid = temp.newFile("Invalid" + i + ".jmm");
+                SpecsIo.write(invalid, UNDECLARED_VARIABLE);
+                inputs.add(invalid);
+                expectedSuccess.add(false);
+            }
+        }
+        inputs.add(new File(temp.getRoot(), "Missing.jmm"));
+        expectedSuccess.add(false);
+
+        var result = new BatchCompiler(inputs, 4, Collections.emptyMap()).run();
+
+        assertEquals(inputs.size(), result.files().size());
+        for (int i = 0; i < inputs.size(); i++) {
+            var file = result.files().get(i);
+            assertEquals(inputs.get(i), file.file());
+            assertEquals(file.toString(), expectedSuccess.get(i), file.success());
+            if (!file.success()) {
+                assertFalse(file.error().isEmpty());
+            }
+        }
+
+        assertEquals(3, result.getNumFailed());
+        assertEquals(4, result.workers());
+        assertTrue(result.getSummary().contains("(3 failed)"));
+    }
+}
@@ -0,0 +1,194 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.backend.ClassFileBackendImpl;
+import pt.up.fe.comp2025.backend.ClassFileResult;
+import pt.up.fe.comp2025.backend.JasminBackendImpl;
+import pt.up.fe.comp2025.generator.ProgramGenerator;
+import pt.up.fe.comp2025.generator.ProgramGenerator.Settings;
+import pt.up.fe.specs.util.SpecsIo;
+import pt.up.fe.specs.util.system.ProcessOutputAsString;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFileBackendTest {
+
+    private static final File JASMIN_TESTS = new File("test/pt/up/fe/comp/cp3/jasmin");
+
+    private static final File OPTIMIZATION_TESTS = new File("test/pt/up/fe/comp/cp3/optimizations");
+
+    private static final Map<String, String> CLASS_FILE = Map.of("backend", "classfile");
+
+    private static boolean isRejected(ProcessOutputAsString output) {
+        return output.getStdErr().contains("VerifyError") || output.getStdErr().contains("ClassFormatError");
+    }
+
+    /**
+     * Runs both results, which must be accepted by the JVM, and checks that they print the same and exit with the same
+     * value.
+     */
+    private static void assertSameExecution(String name, JasminResult jasmin, JasminResult classFile) {
+        var expected = jasmin.runWithFullOutput();
+        var output = classFile.runWithFullOutput();
+
+        assertFalse(name + " was rejected by the JVM:\n" + output.getStdErr(), isRejected(output));
+        assertFalse("Jasmin of " + name + " was rejected by the JVM:\n" + expected.getStdErr(), isRejected(expected));
+
+        assertEquals(name + " printed something else", expected.getStdOut(), output.getStdOut());
+        assertEquals(name + " exited with another value", expected.getReturnValue(), output.getReturnValue());
+    }
+
+    private static Map<String, String> withClassFile(Map<String, String> config) {
+        var classFileConfig = new HashMap<>(config);
+        classFileConfig.putAll(CLASS_FILE);
+        return classFileConfig;
+    }
+
+    @Test
+    public void runsLikeJasminTests() {
+        var files = SpecsIo.getFilesRecursive(JASMIN_TESTS, "ollir");
+        assertFalse(files.isEmpty());
+
+        for (var file : files) {
+            var ollirResult = new OllirResult(SpecsIo.read(file), Collections.emptyMap());
+
+            var jasmin = new JasminBackendImpl().toJasmin(ollirResult);
+            var classFile = new ClassFileBackendImpl().toJasmin(ollirResult);
+            assertTrue(classFile instanceof ClassFileResult);
+
+            assertSameExecution(file.getName(), jasmin, classFile);
+        }
+    }
+
+    @Test
+    public void runsLikeOptimizedJasmin() {
+        var config = Map.of("optimize", "true", "registerAllocation", "0");
+
+        for (var file : SpecsIo.getFilesRecursive(OPTIMIZATION_TESTS, "jmm")) {
+            var code = SpecsIo.read(file);
+            assertSameExecution(file.getName(), Launcher.compile(code, config),
+                    Launcher.compile(code, withClassFile(config)));
+        }
+    }
+
+    @Test
+    public void mergesSubclassesIntoTheirSuperclass() {
+        // q is a T3 in one branch and a Quicksort in the other, the call needs a Quicksort after both
+        var code = """
+                import io;
+                import Quicksort;
+                class T3 extends Quicksort {
+                    public static void main(String[] args) {
+                        int[] a;
+                        boolean c;
+                        boolean r;
+                        Quicksort q;
+                        a = [3, 1, 2];
+                        c = a.length < 5;
+                        if (c) {
+                            q = new T3();
+                        } else {
+                            q = new Quicksort();
+                        }
+                        r = q.quicksort(a);
+                        io.println(a[0]);
+                    }
+                }
+                """;
+
+        for (var config : List.of(Map.<String, String>of(), Map.of("optimize", "true", "registerAllocation", "0"))) {
+            assertSameExecution("T3 with " + config, Launcher.compile(code, config),
+                    Launcher.compile(code, withClassFile(config)));
+        }
+    }
+
+    @Test
+    public void extendsImportedClassesWithTheirPackage() {
+        var code = """
+                import io;
+                import foo.bar.A;
+                class Sub extends A {
+                    public static void main(String[] args) {
+                        Sub s;
+                        s = new Sub();
+                        io.println(1);
+                    }
+                }
+                """;
+
+        var jasmin = Launcher.compile(code, Map.of());
+        assertTrue(jasmin.getJasminCode(), jasmin.getJasminCode().contains(".super foo/bar/A"));
+        assertSameExecution("Sub", jasmin, Launcher.compile(code, CLASS_FILE));
+    }
+
+    @Test
+    public void widensLongJumps() {
+        // A loop body of about 40KB, both the exit branch and the goto back are too far for a 16-bit offset
+        var body = "a = a + b;\n".repeat(10000);
+        var code = """
+                import io;
+                class LongLoop {
+                    public static void main(String[] args) {
+                        int a;
+                        int b;
+                        int i;
+                        a = 0;
+                        b = 1;
+                        i = 0;
+                        while (i < 2) {
+                            %s
+                            i = i + 1;
+                        }
+                        io.println(a);
+                    }
+                }
+                """.formatted(body);
+
+        var output = Launcher.compile(code, CLASS_FILE).runWithFullOutput();
+
+        assertFalse(output.getStdErr(), isRejected(output));
+        assertEquals("20000", output.getStdOut().strip());
+    }
+
+    @Test
+    public void appliesThePeepholeOptimizer() {
+        var config = Map.of("peephole", "true");
+        var removed = false;
+
+        for (var file : SpecsIo.getFilesRecursive(OPTIMIZATION_TESTS, "jmm")) {
+            var code = SpecsIo.read(file);
+            var classFile = (ClassFileResult) Launcher.compile(code, withClassFile(config));
+            assertSameExecution(file.getName(), Launcher.compile(code, config), classFile);
+
+            var unoptimized = (ClassFileResult) Launcher.compile(code, CLASS_FILE);
+            removed |= classFile.getClassFile().length < unoptimized.getClassFile().length;
+        }
+
+        assertTrue("The peephole optimizer removed no instructions", removed);
+    }
+
+    @Test
+    public void runsGeneratedPrograms() {
+        for (long seed = 0; seed < 4; seed++) {
+            var code = ProgramGenerator.generate(new Settings(4, 6, 40, 3, 4, seed));
+
+            assertSameExecution("Seed " + seed, Launcher.compile(code, Map.of()),
+                    Launcher.compile(code, CLASS_FILE));
+
+            var optimized = Map.of("optimize", "true", "registerAllocation", "0");
+            assertSameExecution("Optimized seed " + seed, Launcher.compile(code, optimized),
+                    Launcher.compile(code, withClassFile(optimized)));
+        }
+    }
+}
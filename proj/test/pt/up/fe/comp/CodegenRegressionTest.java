@@ -0,0 +1,69 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Programs that were compiled into wrong code, run with the configurations that exposed each bug.
+ */
+public class CodegenRegressionTest {
+
+    private static final Map<String, String> REGISTER_ALLOCATION = Map.of("registerAllocation", "0");
+
+    /**
+     * Compiles and runs the program, which must not fail (e.g. in the verifier), and returns what it printed.
+     */
+    private static String run(String filename, Map<String, String> config) {
+        var code = SpecsIo.getResource("pt/up/fe/comp/regression/" + filename);
+        var output = Launcher.compile(code, config).runWithFullOutput();
+        assertEquals(filename + " with " + config, "", output.getStdErr().strip());
+        return output.getStdOut().strip().replace("\r", "");
+    }
+
+    /**
+     * 'a = a - 3' is an iinc by -3, and 'b = 5 - b' is not an increment.
+     */
+    @Test
+    public void subtractsWithIinc() {
+        assertEquals("7\n3", run("IincSub.jmm", Map.of()));
+        assertEquals("7\n3", run("IincSub.jmm", REGISTER_ALLOCATION));
+    }
+
+    /**
+     * Only comparisons have a form that compares with zero, 'a * 0' still loads the zero.
+     */
+    @Test
+    public void keepsZeroOperands() {
+        assertEquals("0\n6\n-6", run("ZeroOperand.jmm", Map.of()));
+    }
+
+    /** Two registers are not enough, the retry with three must start from the whole graph again. */
+    @Test
+    public void retriesRegisterAllocationOnTheWholeGraph() {
+        assertEquals("6\n6", run("RegAllocRetry.jmm", REGISTER_ALLOCATION));
+    }
+
+    /** 'a[i] = x' reads 'a', 'i' and 'x', so none of them can share a register with 'y'. */
+    @Test
+    public void keepsArrayAndIndexLiveOnStores() {
+        assertEquals("12", run("ArrayStoreLiveness.jmm", REGISTER_ALLOCATION));
+    }
+
+    /** 'b' is never read, but storing it must not overwrite 'a'. */
+    @Test
+    public void keepsUnreadDefinitionsApart() {
+        assertEquals("5", run("UnreadDefinition.jmm", REGISTER_ALLOCATION));
+        assertEquals("5", run("UnreadDefinition.jmm", Map.of("registerAllocation", "1")));
+    }
+
+    /** Assignments in a nested if or in a while that never runs are not constants after them. */
+    @Test
+    public void forgetsConstantsAssignedInNestedStatements() {
+        assertEquals("2\n1", run("NestedConstants.jmm", Map.of("optimize", "true")));
+    }
+}
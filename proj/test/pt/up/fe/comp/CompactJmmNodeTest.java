@@ -0,0 +1,118 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp2025.analysis.AnalysisVisitor;
+import pt.up.fe.comp2025.ast.CompactJmmNode;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.Operator;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The parsers build CompactJmmNodes, which behave like JmmNodeImpl through the JmmNode interface.
+ */
+public class CompactJmmNodeTest {
+
+    private static final String CODE = """
+            class A {
+                public int f(int a) {
+                    return a + 40 * 2;
+                }
+            }
+            """;
+
+    @Test
+    public void keepsTheAttributesInFields() {
+        for (var parser : new String[]{"antlr", "handwritten"}) {
+            var root = new JmmParserImpl().parse(CODE, Map.of("parser", parser)).getRootNode();
+            var add = root.getDescendants(Kind.BINARY_EXPR).get(0);
+            var literal = add.getChild(1).getChild(0);
+
+            assertTrue(parser, add instanceof CompactJmmNode);
+            assertEquals(parser, Kind.BINARY_EXPR, Kind.of(add));
+            assertEquals(parser, Operator.ADD, Operator.of(add));
+            assertEquals(parser, "+", add.get("op"));
+            assertEquals(parser, 3, add.getLine());
+            assertEquals(parser, "15", add.get("colStart"));
+
+            assertEquals(parser, 40, CompactJmmNode.intValueOf(literal));
+            assertEquals(parser, "40", literal.get("value"));
+
+            // Names are interned
+            var param = root.getDescendants(Kind.PARAM).get(0).get("name");
+            assertSame(parser, param, root.getDescendants(Kind.VAR_REF_EXPR).get(0).get("name"));
+        }
+    }
+
+    @Test
+    public void behavesLikeJmmNodeImpl() {
+        var compact = new CompactJmmNode(List.of("IntegerLiteral", "Expr"));
+        var impl = new JmmNodeImpl(List.of("IntegerLiteral", "Expr"));
+
+        for (var node : List.of(compact, impl)) {
+            node.put("lineStart", "2");
+            node.put("value", "99999999999");
+            node.put("name", "x");
+            node.putObject("op", "%");
+            node.putObject("type", 1);
+            assertEquals("x", node.put("name", "y"));
+        }
+
+        assertEquals(new TreeSet<>(impl.getAttributes()), new TreeSet<>(compact.getAttributes()));
+        for (var attribute : impl.getAttributes()) {
+            assertEquals(attribute, impl.getObject(attribute), compact.getObject(attribute));
+        }
+
+        assertEquals(2, compact.getLine());
+        assertNull(compact.getOperator());
+        assertFalse(compact.hasAttribute("colStart"));
+        assertEquals(impl.getHierarchy(), compact.getHierarchy());
+        assertTrue(compact.isInstance(Kind.EXPR));
+        assertTrue(Kind.EXPR.check(compact));
+        assertFalse(Kind.STMT.check(compact));
+
+        var copy = compact.copy(List.of("BooleanLiteral", "Expr"));
+        assertEquals(Kind.BOOLEAN_LITERAL, Kind.of(copy));
+        assertEquals("99999999999", copy.get("value"));
+    }
+
+    @Test
+    public void dispatchesByKind() {
+        var root = new JmmParserImpl().parse(CODE, Map.of()).getRootNode();
+        var visited = new ArrayList<String>();
+
+        var visitor = new AnalysisVisitor() {
+            @Override
+            protected void buildVisitor() {
+                addVisit(Kind.EXPR, (node, table) -> {
+                    visited.add(node.getKind());
+                    return null;
+                });
+            }
+        };
+
+        visitor.analyze(root, null);
+        assertEquals(List.of("BinaryExpr", "VarRefExpr", "BinaryExpr", "IntegerLiteral", "IntegerLiteral"), visited);
+
+        // The visit methods found for each kind are forgotten when a visit method is added
+        visited.clear();
+        visitor.addVisit(Kind.BINARY_EXPR, (node, table) -> {
+            visited.add(Operator.of(node).name());
+            return null;
+        });
+
+        visitor.analyze(root, null);
+        assertEquals(List.of("ADD", "VarRefExpr", "MUL", "IntegerLiteral", "IntegerLiteral"), visited);
+    }
+}
@@ -0,0 +1,84 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp2025.Launcher;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Conditions that are only tested by a branch jump directly to its target.
+ */
+public class CompareAndBranchTest {
+
+    private static final String LOOP = """
+            import io;
+            class Loop {
+                public int sum(int n, boolean b) {
+                    int i;
+                    int s;
+                    i = 0;
+                    s = 0;
+                    while (i < n) {
+                        if (!(s < 10)) { s = s - 1; } else { s = s + i; }
+                        if (!b) { s = s + 3; } else {}
+                        i = i + 1;
+                    }
+                    return s;
+                }
+                public static void main(String[] args) {
+                    Loop l;
+                    l = new Loop();
+                    io.println(l.sum(20, false));
+                    io.println(l.sum(7, true));
+                }
+            }
+            """;
+
+    private static final String KEPT = """
+            import io;
+            class Kept {
+                public static void main(String[] args) {
+                    boolean c;
+                    int a;
+                    a = 3;
+                    c = a < 5;
+                    if (c) { io.println(1); } else { io.println(0); }
+                    if (c) { io.println(2); } else { io.println(0); }
+                }
+            }
+            """;
+
+    private static String run(JasminResult result) {
+        var output = result.runWithFullOutput();
+        assertEquals("", output.getStdErr().strip());
+        return output.getStdOut().strip();
+    }
+
+    @Test
+    public void fusesComparisonsAndNegations() {
+        var result = Launcher.compile(LOOP, Map.of());
+        var code = result.getJasminCode();
+
+        // No boolean is computed, stored and tested again
+        assertFalse(code, code.contains("j_true"));
+        assertFalse(code, code.contains("ixor"));
+        assertTrue(code, code.contains("if_icmpge"));
+        assertTrue(code, code.contains("ifeq"));
+
+        assertEquals("46\n15", run(result).replace("\r", ""));
+    }
+
+    @Test
+    public void keepsBooleansUsedAgain() {
+        var result = Launcher.compile(KEPT, Map.of());
+        assertEquals("1\n2", run(result).replace("\r", ""));
+
+        var optimized = Launcher.compile(KEPT, Map.of("registerAllocation", "0"));
+        assertEquals("1\n2", run(optimized).replace("\r", ""));
+    }
+}
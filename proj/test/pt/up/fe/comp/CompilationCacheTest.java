@@ -0,0 +1,116 @@
+package pt.up.fe.comp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.cache.CompilationCache;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompilationCacheTest {
+
+    private static final String ARITHMETIC = "pt/up/fe/comp/cp3/jasmin/arithmetic/OllirToJasminArithmetics.jmm";
+    private static final String IF_WHILE = "pt/up/fe/comp/cp3/jasmin/control_flow/IfWhileNested.jmm";
+    private static final String SWITCH = "pt/up/fe/comp/cp3/jasmin/control_flow/SwitchStat.jmm";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static JasminResult compile(CompilationCache cache, String resource, Map<String, String> config,
+                                        AtomicInteger compilations) {
+        var code = SpecsIo.getResource(resource);
+
+        return cache.getOrCompile(code, config, () -> {
+            compilations.incrementAndGet();
+            return Launcher.compile(code, config);
+        });
+    }
+
+    @Test
+    public void hitSkipsCompilation() throws Exception {
+        var cache = CompilationCache.open(temp.newFolder(), 1024 * 1024);
+        var compilations = new AtomicInteger();
+
+        var first = compile(cache, ARITHMETIC, Map.of(), compilations);
+        var second = compile(cache, ARITHMETIC, Map.of(), compilations);
+
+        assertEquals(1, compilations.get());
+        assertEquals(first.getJasminCode(), second.getJasminCode());
+        assertEquals(first.getClassName(), second.getClassName());
+        assertEquals(first.getReports().size(), second.getReports().size());
+
+        var stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(first.getJasminCode().length(), stats.bytesSaved());
+
+        // The cached code still runs
+        assertEquals(first.run(), second.run());
+    }
+
+    @Test
+    public void codegenOptionsAreKeyed() throws Exception {
+        var cache = CompilationCache.open(temp.newFolder(), 1024 * 1024);
+        var compilations = new AtomicInteger();
+
+        compile(cache, ARITHMETIC, Map.of(), compilations);
+        compile(cache, ARITHMETIC, Map.of("optimize", "true"), compilations);
+        compile(cache, ARITHMETIC, Map.of("registerAllocation", "1"), compilations);
+        assertEquals(3, compilations.get());
+
+        // Defaults, and options that do not change the code, hit the same entry
+        var config = new HashMap<String, String>();
+        config.put("optimize", "false");
+        config.put("registerAllocation", "-1");
+        config.put("inputFile", "/some/where/Arithmetic.jmm");
+        compile(cache, ARITHMETIC, config, compilations);
+        assertEquals(3, compilations.get());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        var compilations = new AtomicInteger();
+
+        // Size the cache so that the two largest entries fit, but not three
+        var probeFolder = temp.newFolder();
+        var probe = CompilationCache.open(probeFolder, Long.MAX_VALUE);
+        for (var resource : new String[]{ARITHMETIC, IF_WHILE, SWITCH}) {
+            compile(probe, resource, Map.of(), compilations);
+        }
+        var sizes = Arrays.stream(probeFolder.listFiles()).mapToLong(File::length).sorted().toArray();
+
+        var folder = temp.newFolder();
+        var cache = CompilationCache.open(folder, sizes[1] + sizes[2]);
+
+        compile(cache, ARITHMETIC, Map.of(), compilations);
+        Thread.sleep(20);
+        compile(cache, IF_WHILE, Map.of(), compilations);
+        Thread.sleep(20);
+
+        // Uses the first entry again, the second becomes the least recently used
+        compile(cache, ARITHMETIC, Map.of(), compilations);
+        Thread.sleep(20);
+        compile(cache, SWITCH, Map.of(), compilations);
+
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals(2, folder.listFiles((dir, name) -> name.endsWith(".json")).length);
+
+        compilations.set(0);
+        compile(cache, ARITHMETIC, Map.of(), compilations);
+        compile(cache, SWITCH, Map.of(), compilations);
+        assertEquals(0, compilations.get());
+
+        compile(cache, IF_WHILE, Map.of(), compilations);
+        assertEquals(1, compilations.get());
+    }
+}
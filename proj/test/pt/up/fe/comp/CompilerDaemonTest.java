@@ -0,0 +1,149 @@
+package pt.up.fe.comp;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.backend.ClassFileResult;
+import pt.up.fe.comp2025.daemon.CompilerClient;
+import pt.up.fe.comp2025.daemon.CompilerDaemon;
+import pt.up.fe.comp2025.daemon.DaemonRequest;
+import pt.up.fe.comp2025.daemon.DaemonResponse;
+import pt.up.fe.specs.util.SpecsIo;
+import pt.up.fe.specs.util.SpecsSystem;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompilerDaemonTest {
+
+    private static final String RESOURCE = "pt/up/fe/comp/cp3/jasmin/control_flow/IfWhileNested.jmm";
+
+    private static int getFreePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Test
+    public void compileThroughDaemon() throws Exception {
+        var port = getFreePort();
+        var daemon = new CompilerDaemon(port, 2);
+        var daemonThread = new Thread(daemon::run);
+        daemonThread.start();
+
+        var client = new CompilerClient(port);
+        try {
+            // Wait for the daemon to start listening
+            for (int i = 0; i < 50 && client.stats().isEmpty(); i++) {
+                SpecsSystem.sleep(100);
+            }
+
+            var input = File.createTempFile("daemon", ".jmm");
+            input.deleteOnExit();
+            SpecsIo.write(input, SpecsIo.getResource(RESOURCE));
+
+            var expected = Launcher.compile(SpecsIo.getResource(RESOURCE), Collections.emptyMap()).getJasminCode();
+
+            for (int i = 0; i < 3; i++) {
+                var response = client.compile(input.getAbsolutePath(), Collections.emptyMap()).orElseThrow();
+                assertTrue(response.error(), response.success());
+                assertEquals(expected, response.jasminCode());
+            }
+
+            var failed = client.compile(new File(input.getParentFile(), "missing.jmm").getAbsolutePath(),
+                    Collections.emptyMap()).orElseThrow();
+            assertFalse(failed.success());
+
+            var stats = client.stats().orElseThrow().stats();
+            assertEquals(4, stats.requests());
+            assertTrue(stats.p50Ms() <= stats.p99Ms());
+        } finally {
+            client.shutdown();
+            daemonThread.join(5000);
+        }
+
+        // Nothing listening anymore, callers fall back to in-process compilation
+        assertTrue(client.stats().isEmpty());
+    }
+
+    @Test
+    public void sendsTheClassFileOfTheClassFileBackend() throws Exception {
+        var port = getFreePort();
+        var daemon = new CompilerDaemon(port, 1);
+        var daemonThread = new Thread(daemon::run);
+        daemonThread.start();
+
+        var client = new CompilerClient(port);
+        try {
+            // Wait for the daemon to start listening
+            for (int i = 0; i < 50 && client.stats().isEmpty(); i++) {
+                SpecsSystem.sleep(100);
+            }
+
+            var input = File.createTempFile("daemon", ".jmm");
+            input.deleteOnExit();
+            SpecsIo.write(input, SpecsIo.getResource(RESOURCE));
+
+            var config = Map.of("backend", "classfile");
+            var expected = (ClassFileResult) Launcher.compile(SpecsIo.getResource(RESOURCE), config);
+
+            var response = client.compile(input.getAbsolutePath(), config).orElseThrow();
+            assertTrue(response.error(), response.success());
+            assertNull(response.jasminCode());
+            assertArrayEquals(expected.getClassFile(), response.getClassFileBytes());
+        } finally {
+            client.shutdown();
+            daemonThread.join(5000);
+        }
+    }
+
+    @Test
+    public void malformedRequestKeepsConnectionOpen() throws Exception {
+        var port = getFreePort();
+        var daemon = new CompilerDaemon(port, 1);
+        var daemonThread = new Thread(daemon::run);
+        daemonThread.start();
+
+        var client = new CompilerClient(port);
+        try {
+            // Wait for the daemon to start listening
+            for (int i = 0; i < 50 && client.stats().isEmpty(); i++) {
+                SpecsSystem.sleep(100);
+            }
+
+            var gson = new Gson();
+            try (var socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                 var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 var out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+
+                out.println("{not json");
+                var malformed = gson.fromJson(in.readLine(), DaemonResponse.class);
+                assertFalse(malformed.success());
+                assertTrue(malformed.error(), malformed.error().startsWith("Malformed request"));
+
+                // The same connection still serves requests
+                out.println(gson.toJson(DaemonRequest.stats()));
+                var stats = gson.fromJson(in.readLine(), DaemonResponse.class);
+                assertTrue(stats.success());
+            }
+        } finally {
+            client.shutdown();
+            daemonThread.join(5000);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.metrics.CompilerMetrics;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompilerMetricsTest {
+
+    private static final String RESOURCE = "pt/up/fe/comp/cp2/optimizations/reg_alloc/regalloc.jmm";
+
+    @Test
+    public void recordsStagesAndPasses() {
+        var context = new CompilationContext(Map.of("metrics", "true", "optimize", "true", "registerAllocation", "2"));
+        Launcher.compile(SpecsIo.getResource(RESOURCE), context);
+
+        var report = context.getMetrics().getReport(RESOURCE);
+
+        var stages = report.stages().stream().map(CompilerMetrics.Measurement::name).toList();
+        assertEquals(List.of("parse", "semanticAnalysis", "optimizeAst", "toOllir", "optimizeOllir", "toJasmin"),
+                stages);
+
+        var passes = report.passes().stream().map(pass -> pass.stage() + "/" + pass.name()).toList();
+        assertTrue(passes.contains("semanticAnalysis/TypeCheck"));
+        assertTrue(passes.contains("optimizeAst/ConstantPropagation"));
+        assertTrue(passes.contains("optimizeOllir/GraphColoringAlgorithm"));
+        assertTrue(passes.contains("toJasmin/JasminGenerator"));
+
+        for (var measurement : report.stages()) {
+            assertEquals(1, measurement.calls());
+            assertTrue(measurement.wallNanos() > 0);
+        }
+
+        // Machine-readable report
+        var json = CompilerMetrics.toJson(List.of(report));
+        assertTrue(json.contains("\"allocatedBytes\""));
+    }
+
+    @Test
+    public void disabledByDefault() {
+        var context = new CompilationContext(Map.of());
+        Launcher.compile(SpecsIo.getResource(RESOURCE), context);
+
+        assertFalse(context.getMetrics().isEnabled());
+        assertTrue(context.getMetrics().getReport(RESOURCE).stages().isEmpty());
+        assertTrue(context.getMetrics().getReport(RESOURCE).passes().isEmpty());
+    }
+
+    @Test
+    public void falseTurnsMetricsOff() {
+        assertFalse(CompilerConfig.getMetrics(Map.of("metrics", "false")));
+        assertTrue(CompilerConfig.getMetricsFile(Map.of("metrics", "false")).isEmpty());
+
+        var input = "-i=test/" + RESOURCE;
+        assertTrue(CompilerConfig.getMetrics(CompilerConfig.parseArgs(new String[]{input, "-m"})));
+        assertTrue(CompilerConfig.getMetrics(CompilerConfig.parseArgs(new String[]{input, "--metrics"})));
+        assertEquals(Optional.of(new File("out.json")),
+                CompilerConfig.getMetricsFile(CompilerConfig.parseArgs(new String[]{input, "--metrics=out.json"})));
+    }
+
+    @Test
+    public void addsTheWorkOfOtherThreads() {
+        var metrics = CompilerMetrics.enabled();
+        var size = 1 << 20;
+
+        // Whichever threads run them, the allocations of the workers are attributed to the stage
+        metrics.stage("parallel", () -> IntStream.range(0, 8).parallel()
+                .mapToObj(i -> metrics.worker(() -> new byte[size]))
+                .toList());
+
+        var stage = metrics.getReport("parallel").stages().get(0);
+        assertTrue(stage.allocatedBytes() + " bytes", stage.allocatedBytes() >= 8L * size);
+    }
+}
@@ -0,0 +1,69 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.trace.CompilerTrace;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.JASMIN;
+import static pt.up.fe.comp2025.trace.CompilerTrace.Category.REGALLOC;
+import static pt.up.fe.comp2025.trace.CompilerTrace.Level.DEBUG;
+import static pt.up.fe.comp2025.trace.CompilerTrace.Level.INFO;
+import static pt.up.fe.comp2025.trace.CompilerTrace.Level.TRACE;
+import static pt.up.fe.comp2025.trace.CompilerTrace.Level.WARN;
+
+public class CompilerTraceTest {
+
+    private static final String RESOURCE = "pt/up/fe/comp/cp2/optimizations/reg_alloc/regalloc.jmm";
+
+    private static final Map<String, String> CONFIG = Map.of("optimize", "true", "registerAllocation", "0");
+
+    private static String compile(String trace) {
+        var out = new ByteArrayOutputStream();
+        var context = new CompilationContext(CONFIG, CompilerTrace.parse(trace, new PrintStream(out)));
+        Launcher.compile(SpecsIo.getResource(RESOURCE), context);
+        return out.toString();
+    }
+
+    @Test
+    public void parsesLevels() {
+        var trace = CompilerTrace.parse("info,regalloc:trace");
+        assertEquals(TRACE, trace.getLevel(REGALLOC));
+        assertEquals(INFO, trace.getLevel(JASMIN));
+        assertTrue(trace.isEnabled(JASMIN, WARN));
+        assertFalse(trace.isEnabled(JASMIN, DEBUG));
+
+        assertEquals(WARN, CompilerTrace.defaults().getLevel(JASMIN));
+        assertEquals(DEBUG, CompilerTrace.parse("true").getLevel(JASMIN));
+    }
+
+    @Test
+    public void messagesAreBuiltOnlyWhenEnabled() {
+        var trace = CompilerTrace.defaults();
+        trace.debug(JASMIN, () -> {
+            throw new AssertionError("Message of a disabled level was built");
+        });
+    }
+
+    @Test
+    public void printsOnlyEnabledCategories() {
+        assertEquals("", compile(null));
+
+        var jasmin = compile("jasmin:debug");
+        assertTrue(jasmin.contains("[jasmin] Generated Jasmin"));
+        assertFalse(jasmin.contains("[regalloc]"));
+
+        var regalloc = compile("regalloc:trace");
+        assertTrue(regalloc.contains("FINAL REGISTER ALLOCATION"));
+        assertTrue(regalloc.contains("Simplification Phase"));
+        assertFalse(regalloc.contains("[jasmin]"));
+    }
+}
@@ -0,0 +1,82 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compiles the same inputs from several threads at once and checks that every compilation produces exactly the same
+ * code as a sequential one.
+ */
+public class ConcurrentCompilationTest {
+
+    private static final List<String> RESOURCES = List.of(
+            "pt/up/fe/comp/cp3/jasmin/arithmetic/OllirToJasminArithmetics.jmm",
+            "pt/up/fe/comp/cp3/jasmin/calls/ConditionArgsFuncCall.jmm",
+            "pt/up/fe/comp/cp3/jasmin/control_flow/IfWhileNested.jmm",
+            "pt/up/fe/comp/cp3/jasmin/control_flow/SwitchStat.jmm",
+            "pt/up/fe/comp/cp3/jasmin/arrays/ComplexArrayAccess.jmm",
+            "pt/up/fe/comp/cp2/optimizations/extra_tests/NestedLoops.jmm",
+            "pt/up/fe/comp/cp2/optimizations/reg_alloc/regalloc.jmm"
+    );
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 4;
+
+    private static void testConcurrent(Map<String, String> config) throws Exception {
+        // Reference output, compiled sequentially
+        var expected = new HashMap<String, String>();
+        for (var resource : RESOURCES) {
+            expected.put(resource, Launcher.compile(SpecsIo.getResource(resource), config).getJasminCode());
+        }
+
+        var pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            var tasks = new ArrayList<Callable<Map<String, String>>>();
+            for (int i = 0; i < THREADS; i++) {
+                var order = new ArrayList<>(RESOURCES);
+                Collections.shuffle(order, new Random(i));
+
+                tasks.add(() -> {
+                    var results = new HashMap<String, String>();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (var resource : order) {
+                            var code = Launcher.compile(SpecsIo.getResource(resource), config).getJasminCode();
+                            assertEquals("Output of " + resource + " changed", expected.get(resource), code);
+                            results.put(resource, code);
+                        }
+                    }
+                    return results;
+                });
+            }
+
+            for (Future<Map<String, String>> future : pool.invokeAll(tasks)) {
+                assertEquals(expected, future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentDefault() throws Exception {
+        testConcurrent(Collections.emptyMap());
+    }
+
+    @Test
+    public void concurrentOptimized() throws Exception {
+        testConcurrent(Map.of("optimize", "true", "registerAllocation", "2"));
+    }
+}
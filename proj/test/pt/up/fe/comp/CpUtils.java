@@ -552,6 +552,19 @@ public class CpUtils {
         return getJasminMethod(jasminResult, null);
     }
 
+    /**
+     * Unlike {@link #getJasminMethod(JasminResult, String)}, the code of the public method is returned as it was
+     * generated, with its header and indentation.
+     */
+    public static String getJasminMethodCode(JasminResult jasminResult, String methodName) {
+        var code = jasminResult.getJasminCode();
+        var start = code.indexOf(".method public " + methodName + "(");
+
+        assertTrue("Could not find method '" + methodName + "'", start != -1, jasminResult);
+
+        return code.substring(start, code.indexOf(".end method", start));
+    }
+
     public static Integer getBytecodeIndex(String instructionPrefix, String jasminCode) {
         try (var lines = LineStream.newInstance(cleanJasmin(jasminCode))) {
 
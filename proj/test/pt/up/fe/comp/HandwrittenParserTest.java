@@ -0,0 +1,165 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The hand-written parser builds the same AST as the ANTLR parser, and rejects the same code.
+ */
+public class HandwrittenParserTest {
+
+    private static final Map<String, String> HANDWRITTEN = Map.of("parser", "handwritten");
+
+    // Code of the grammar tests, with their starting rule
+    private static final String[][] FRAGMENTS = {
+            {"import bar.foo.a;", "importDecl"},
+            {"class Foo extends Bar {}", "program"},
+            {"class Foo {int a; int[] b; int c; boolean d; Bar e;}", "program"},
+            {"int main;", "varDecl"},
+            {"static void main(String[] args) {}", "methodDecl"},
+            {"int foo(int anInt, int[] anArray, boolean aBool, String aString) {return a;}", "methodDecl"},
+            {"int foo(int... ints) {return 0;}", "methodDecl"},
+            {"{a; b; c;}", "stmt"},
+            {"if(a){ifStmt1;ifStmt2;}else{elseStmt1;elseStmt2;}", "stmt"},
+            {"while(a)whileStmt1;", "stmt"},
+            {"a=b;", "stmt"},
+            {"anArray[a]=b;", "stmt"},
+            {"anArray[a][b]=c;", "stmt"},
+            {"anArray[a].length;", "stmt"},
+            {"callee.level1().level2(false, 10).level3(true)", "expr"},
+            {"a.length.length", "expr"},
+            {"(a)[10]", "expr"},
+            {"callee.foo()[10].length", "expr"},
+            {"!a.b()[0] && !true", "expr"},
+            {"new int[!a]", "expr"},
+            {"new Foo()", "expr"},
+            {"1 && 2 < 3 + 4 - 5 * 6 / 7 < 8", "expr"},
+            {"[10, 20, 30]", "expr"},
+            {"[]", "expr"},
+            {"$balls_1 + _a", "expr"},
+    };
+
+    private static final String[] INVALID = {
+            "class A { public int f() { return 1 + ; } }",
+            "class A { public int f() { return 1; }",
+            "class A { public static void notMain(String[] args) {} }",
+            "class A { public int f(int[] a) { return a.size; } }",
+            "class A { public int f() { return 0 & 1; } }",
+            "class A { public int f() { return 01; } }",
+            "class A {} class B {}",
+    };
+
+    /**
+     * Describes the node and its subtree: the hierarchy, every attribute sorted by name (the order of the attributes
+     * depends on the class of the node), and the nodes in attributes by their kind and position.
+     */
+    static String describe(JmmNode node) {
+        var description = new StringBuilder();
+        describe(node, "", description);
+        return description.toString();
+    }
+
+    private static void describe(JmmNode node, String indent, StringBuilder description) {
+        description.append(indent).append(node.getHierarchy());
+        for (var attribute : new TreeSet<>(node.getAttributes())) {
+            var value = node.getObject(attribute);
+            description.append(' ').append(attribute).append('=');
+            if (value instanceof JmmNode child) {
+                description.append('<').append(child.getKind()).append('@').append(child.get("lineStart"))
+                        .append(':').append(child.get("colStart")).append('>');
+            } else {
+                description.append(value).append(':').append(value.getClass().getSimpleName());
+            }
+        }
+        description.append('\n');
+
+        for (var child : node.getChildren()) {
+            describe(child, indent + "  ", description);
+        }
+    }
+
+    private static void assertSameTree(String name, String code, String rule) {
+        var antlr = new JmmParserImpl().parse(code, rule, Map.of());
+        var handwritten = new JmmParserImpl().parse(code, rule, HANDWRITTEN);
+
+        if (antlr.getRootNode() == null) {
+            assertNull(name, handwritten.getRootNode());
+            return;
+        }
+
+        assertTrue(name + ": " + handwritten.getReports(), handwritten.getReports().isEmpty());
+        assertEquals(name, describe(antlr.getRootNode()), describe(handwritten.getRootNode()));
+    }
+
+    @Test
+    public void buildsTheSameTreeAsAntlr() {
+        var files = SpecsIo.getFilesRecursive(new File("test"), "jmm");
+        assertTrue(files.size() > 100);
+
+        for (var file : files) {
+            assertSameTree(file.getPath(), SpecsIo.read(file), "program");
+        }
+    }
+
+    @Test
+    public void parsesEveryStartingRule() {
+        for (var fragment : FRAGMENTS) {
+            assertSameTree(fragment[0], fragment[0], fragment[1]);
+        }
+    }
+
+    @Test
+    public void rejectsInvalidCode() {
+        for (var code : INVALID) {
+            assertNull(code, new JmmParserImpl().parse(code, Map.of()).getRootNode());
+
+            var result = new JmmParserImpl().parse(code, HANDWRITTEN);
+            assertNull(code, result.getRootNode());
+            assertEquals(code, 1, result.getReports().size());
+        }
+    }
+
+    @Test
+    public void reportsTheFirstError() {
+        var code = """
+                class A {
+                    public int f() {
+                        return 1 + ;
+                    }
+                }
+                """;
+
+        JmmParserResult result = new JmmParserImpl().parse(code, HANDWRITTEN);
+        var report = result.getReports().get(0);
+
+        assertEquals(Stage.SYNTATIC, report.getStage());
+        assertEquals(3, report.getLine());
+        assertEquals(19, report.getColumn());
+
+        var lexical = new JmmParserImpl().parse("class A { # }", HANDWRITTEN).getReports().get(0);
+        assertEquals(Stage.LEXICAL, lexical.getStage());
+        assertEquals(10, lexical.getColumn());
+    }
+
+    @Test
+    public void countsHandwrittenParses() {
+        var context = new CompilationContext(Map.of("metrics", "true"));
+
+        context.getMetrics().stage("parse", () -> new JmmParserImpl(context).parse("class A {}", HANDWRITTEN));
+
+        assertEquals(Map.of("parse/handwritten", 1L), context.getMetrics().getReport("test").counts());
+    }
+}
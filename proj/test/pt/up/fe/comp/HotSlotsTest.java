@@ -0,0 +1,70 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.Launcher;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The most accessed locals get the slots with short load and store instructions.
+ */
+public class HotSlotsTest {
+
+    private static final String CODE = """
+            import io;
+            class Hot {
+                public int f(int n, int[] data) {
+                    int a;
+                    int b;
+                    int i;
+                    int s;
+                    a = n + 1;
+                    b = a * 2;
+                    i = 0;
+                    s = 0;
+                    while (i < n) {
+                        s = s + data[i];
+                        i = i + 1;
+                    }
+                    return s + a + b;
+                }
+                public static void main(String[] args) {
+                    Hot h;
+                    int[] d;
+                    h = new Hot();
+                    d = new int[5];
+                    d[2] = 7;
+                    io.println(h.f(5, d));
+                }
+            }
+            """;
+
+    @Test
+    public void givesTheLoopTheShortSlot() {
+        var plain = CpUtils.getJasminMethodCode(Launcher.compile(CODE, Map.of()), "f");
+        assertTrue(plain, plain.contains("istore_3"));
+        assertFalse(plain, plain.contains("iinc 3"));
+
+        // 'this' and the parameters take slots 0 to 2, the loop counter gets the last short one
+        var hot = CpUtils.getJasminMethodCode(Launcher.compile(CODE, Map.of("hotSlots", "true")), "f");
+        assertTrue(hot, hot.contains("iinc 3 1"));
+        assertTrue(hot, hot.contains("aload_2\n   iload_3\n   iaload"));
+    }
+
+    private static void assertRuns(Map<String, String> config) {
+        var output = Launcher.compile(CODE, config).runWithFullOutput();
+
+        assertEquals("", output.getStdErr().strip());
+        assertEquals("25", output.getStdOut().strip());
+    }
+
+    @Test
+    public void runsTheSame() {
+        assertRuns(Map.of("hotSlots", "true"));
+        assertRuns(Map.of("hotSlots", "true", "backend", "classfile"));
+    }
+}
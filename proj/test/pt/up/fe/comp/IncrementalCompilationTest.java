@@ -0,0 +1,63 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.cache.MethodCache;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalCompilationTest {
+
+    private static final String RESOURCE = "pt/up/fe/comp/cp2/ollir/basic/BasicClassWithFields.jmm";
+
+    private static final Map<String, String> INCREMENTAL = Map.of("incremental", "true");
+
+    /**
+     * Compiles the code incrementally, checks that the result is the same as a full compilation and returns how many
+     * methods were reused and generated.
+     */
+    private static MethodCache.Stats compile(String code, Map<String, String> config) {
+        var before = MethodCache.shared().getStats();
+
+        var incremental = Launcher.compile(code, config).getJasminCode();
+        var full = Launcher.compile(code, Map.of()).getJasminCode();
+        assertEquals(full, incremental);
+
+        var after = MethodCache.shared().getStats();
+        return new MethodCache.Stats(after.hits() - before.hits(), after.misses() - before.misses());
+    }
+
+    @Test
+    public void reusesUnchangedMethods() {
+        var code = SpecsIo.getResource(RESOURCE);
+        compile(code, INCREMENTAL);
+
+        // Same code, every method is reused
+        assertEquals(new MethodCache.Stats(4, 0), compile(code, INCREMENTAL));
+
+        // Edit the body of one method, only that one is generated again
+        var edited = code.replace("intField = value;", "intField = value + 1;");
+        assertEquals(new MethodCache.Stats(3, 1), compile(edited, INCREMENTAL));
+
+        // A new field can change how names are resolved in any method
+        var newField = edited.replace("int intField;", "int intField;\n    int otherField;");
+        assertEquals(new MethodCache.Stats(0, 4), compile(newField, INCREMENTAL));
+    }
+
+    @Test
+    public void optionsAreFingerprinted() {
+        var code = SpecsIo.getResource(RESOURCE).replace("class CompileBasic", "class CompileBasicOptions");
+        compile(code, INCREMENTAL);
+
+        var optimized = Map.of("incremental", "true", "optimize", "true", "registerAllocation", "0");
+        var before = MethodCache.shared().getStats();
+        var optimizedCode = Launcher.compile(code, optimized).getJasminCode();
+        assertEquals(before.hits(), MethodCache.shared().getStats().hits());
+
+        assertEquals(Launcher.compile(code, Map.of("optimize", "true", "registerAllocation", "0")).getJasminCode(),
+                optimizedCode);
+    }
+}
@@ -0,0 +1,84 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.backend.JasminStackAnalysis;
+
+import static org.junit.Assert.assertEquals;
+
+public class JasminStackAnalysisTest {
+
+    @Test
+    public void straightLine() {
+        assertEquals(3, JasminStackAnalysis.getMaxStack("""
+                   iload_1
+                   iload_2
+                   iload_3
+                   iadd
+                   iadd
+                   istore_1
+                   return
+                """));
+    }
+
+    @Test
+    public void invokeArguments() {
+        // The receiver and two arguments, replaced by the result
+        assertEquals(3, JasminStackAnalysis.getMaxStack("""
+                   aload_0
+                   iload_1
+                   aload_2
+                   invokevirtual Foo/bar(I[I)I
+                   iconst_1
+                   iadd
+                   ireturn
+                """));
+
+        assertEquals(2, JasminStackAnalysis.getMaxStack("""
+                   aload_1
+                   iconst_0
+                   invokestatic io/print(Ljava/lang/String;I)V
+                   return
+                """));
+    }
+
+    @Test
+    public void followsBranches() {
+        // The deepest path is only reached through the jump
+        assertEquals(4, JasminStackAnalysis.getMaxStack("""
+                   iload_1
+                   iflt deep
+                   iconst_0
+                   ireturn
+                deep:
+                   iconst_1
+                   iconst_2
+                   iconst_3
+                   iconst_4
+                   iadd
+                   iadd
+                   iadd
+                   ireturn
+                """));
+    }
+
+    @Test
+    public void comparisonMerge() {
+        assertEquals(2, JasminStackAnalysis.getMaxStack("""
+                   iload_1
+                   iload_2
+                   if_icmplt j_true_0
+                   iconst_0
+                   goto  j_end0
+                j_true_0:
+                   iconst_1
+                j_end0:
+                   istore_3
+                   return
+                """));
+    }
+
+    @Test
+    public void emptyMethod() {
+        assertEquals(0, JasminStackAnalysis.getMaxStack(""));
+    }
+}
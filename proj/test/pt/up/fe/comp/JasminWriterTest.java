@@ -0,0 +1,66 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.backend.JasminGenerator;
+import pt.up.fe.comp2025.backend.JasminWriter;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class JasminWriterTest {
+
+    @Test
+    public void indentsInstructionsButNotLabels() {
+        var code = new StringBuilder();
+        new JasminWriter(code)
+                .append(".method foo()V").newLine()
+                .indent()
+                .append("iconst_").append(1).newLine()
+                .label("loop")
+                .append("goto ").append("loop").newLine()
+                .unindent()
+                .append(".end method").newLine();
+
+        assertEquals("""
+                .method foo()V
+                   iconst_1
+                loop:
+                   goto loop
+                .end method
+                """, code.toString());
+    }
+
+    @Test
+    public void appendsFormattedCodeAsItIs() {
+        var code = new StringBuilder();
+        new JasminWriter(code).indent()
+                .append("iconst_0")
+                .appendFormatted("  aload_0\n")
+                .append("pop").newLine();
+
+        assertEquals("   iconst_0\n  aload_0\n   pop\n", code.toString());
+    }
+
+    @Test
+    public void streamsTheSameCodeAsBuild() {
+        var files = SpecsIo.getFilesRecursive(new File("test/pt/up/fe/comp/cp3/jasmin"), "ollir");
+        assertFalse(files.isEmpty());
+
+        for (var file : files) {
+            var ollirResult = new OllirResult(SpecsIo.read(file), Collections.emptyMap());
+            var expected = new JasminGenerator(ollirResult, new CompilationContext(Collections.emptyMap())).build();
+
+            var out = new StringWriter();
+            new JasminGenerator(ollirResult, new CompilationContext(Collections.emptyMap())).build(out);
+
+            assertEquals(file.getName(), expected, out.toString());
+        }
+    }
+}
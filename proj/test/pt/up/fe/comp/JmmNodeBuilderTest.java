@@ -0,0 +1,78 @@
+package pt.up.fe.comp;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.antlr.AntlrParser;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.JavammParser;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The parser builds the AST during the parse, without a parse tree, and it is the same AST that AntlrParser converts
+ * from the parse tree.
+ */
+public class JmmNodeBuilderTest {
+
+    private static JmmParserResult parseTree(String code, String rule) {
+        var lex = new JavammLexer(new ANTLRInputStream(code));
+        return AntlrParser.parse(lex, new JavammParser(new CommonTokenStream(lex)), rule);
+    }
+
+    private static void assertSameTree(String name, String code, String rule) {
+        var expected = parseTree(code, rule);
+
+        for (var prediction : new String[]{"sll", "ll"}) {
+            var result = new JmmParserImpl().parse(code, rule, Map.of("prediction", prediction));
+
+            if (expected.getRootNode() == null) {
+                assertNull(name, result.getRootNode());
+                assertEquals(name, expected.getReports().toString(), result.getReports().toString());
+                continue;
+            }
+
+            assertEquals(name, HandwrittenParserTest.describe(expected.getRootNode()),
+                    HandwrittenParserTest.describe(result.getRootNode()));
+        }
+    }
+
+    @Test
+    public void buildsTheSameTreeAsTheConverter() {
+        var files = SpecsIo.getFilesRecursive(new File("test"), "jmm");
+        assertTrue(files.size() > 100);
+
+        for (var file : files) {
+            assertSameTree(file.getPath(), SpecsIo.read(file), "program");
+        }
+    }
+
+    @Test
+    public void buildsLeftRecursiveExpressions() {
+        var expressions = new String[]{
+                "1 && 2 < 3 + 4 - 5 * 6 / 7 < 8",
+                "a.b(c[0].length, !d.e()[1])[2].f().length",
+                "(1 + 2) * new int[3 - x][0]",
+                "!a && !b.c(d + e * f)",
+        };
+
+        for (var expression : expressions) {
+            assertSameTree(expression, expression, "expr");
+            assertSameTree(expression, "a[0] = " + expression + ";", "stmt");
+        }
+    }
+
+    @Test
+    public void reportsTheSameErrors() {
+        assertSameTree("missing operand", "class A { public int f() { return 1 + ; } }", "program");
+        assertSameTree("unknown character", "class A { public int f() { return 1 # 2; } }", "program");
+    }
+}
@@ -0,0 +1,66 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.backend.JasminGenerator;
+import pt.up.fe.comp2025.generator.ProgramGenerator;
+import pt.up.fe.comp2025.generator.ProgramGenerator.Settings;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Classes with many methods have them generated in parallel.
+ */
+public class ParallelJasminTest {
+
+    private static final Map<String, String> CONFIG = Map.of("optimize", "true", "registerAllocation", "0");
+
+    // Enough methods to be generated in parallel
+    private static final String CODE = ProgramGenerator.generate(new Settings(40, 4, 20, 2, 3, 7));
+
+    private static final Pattern METHOD = Pattern.compile("^\\.method .*? (\\w+)\\(", Pattern.MULTILINE);
+
+    private static String build(OllirResult ollirResult) {
+        return new JasminGenerator(ollirResult, new CompilationContext(CONFIG)).build();
+    }
+
+    @Test
+    public void isDeterministic() {
+        var ollirResult = TestUtils.optimize(CODE, CONFIG);
+        var expected = build(ollirResult);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected, build(ollirResult));
+        }
+    }
+
+    @Test
+    public void keepsDeclarationOrder() {
+        var ollirResult = TestUtils.optimize(CODE, CONFIG);
+
+        var expected = ollirResult.getOllirClass().getMethods().stream()
+                .filter(method -> !method.isConstructMethod())
+                .map(method -> method.getMethodName())
+                .toList();
+
+        var matcher = METHOD.matcher(build(ollirResult));
+        var methods = matcher.results()
+                .map(result -> result.group(1))
+                .filter(name -> !name.equals("<init>"))
+                .toList();
+
+        assertEquals(expected, methods);
+    }
+
+    @Test
+    public void runs() {
+        var output = Launcher.compile(CODE, CONFIG).runWithFullOutput();
+        assertEquals("", output.getStdErr().strip());
+        assertEquals(Launcher.compile(CODE, Map.of()).run().strip(), output.getStdOut().strip());
+    }
+}
@@ -0,0 +1,115 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.CompilationContext;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The parser tries SLL prediction first and falls back to LL prediction when it fails.
+ */
+public class ParserPredictionTest {
+
+    private static final String VALID = """
+            class Valid {
+                public int f(int[] a, int i) {
+                    return a[i] * (i + 1) - a.length;
+                }
+            }
+            """;
+
+    private static final String INVALID = """
+            class Invalid {
+                public int f(int a) {
+                    return a + * 2;
+                }
+            }
+            """;
+
+    private static JmmParserResult parse(String code, Map<String, String> config, CompilationContext context) {
+        return context.getMetrics().stage("parse", () -> new JmmParserImpl(context).parse(code, config));
+    }
+
+    private static Map<String, Long> getCounts(CompilationContext context) {
+        return context.getMetrics().getReport("test").counts();
+    }
+
+    @Test
+    public void parsesValidCodeWithSll() {
+        var before = JmmParserImpl.getStats();
+        var context = new CompilationContext(Map.of("metrics", "true"));
+
+        var result = parse(VALID, Map.of(), context);
+
+        assertNotNull(result.getRootNode());
+        assertEquals(Map.of("parse/sll", 1L), getCounts(context));
+        assertTrue(JmmParserImpl.getStats().sll() > before.sll());
+    }
+
+    @Test
+    public void fallsBackToLlOnSyntaxErrors() {
+        var context = new CompilationContext(Map.of("metrics", "true"));
+
+        var result = parse(INVALID, Map.of(), context);
+        var llResult = new JmmParserImpl().parse(INVALID, Map.of("prediction", "ll"));
+
+        // The errors are reported by the LL parse, as without the SLL stage
+        assertNull(result.getRootNode());
+        assertEquals(llResult.getReports().stream().map(Report::toString).toList(),
+                result.getReports().stream().map(Report::toString).toList());
+        assertEquals(Map.of("parse/llFallback", 1L, "parse/ll", 1L), getCounts(context));
+    }
+
+    @Test
+    public void buildsTheSameTreeAsLl() {
+        var files = SpecsIo.getFilesRecursive(new File("test"), "jmm");
+        assertTrue(files.size() > 100);
+
+        for (var file : files) {
+            var code = SpecsIo.read(file);
+            var ll = new JmmParserImpl().parse(code, Map.of("prediction", "ll"));
+            var sll = new JmmParserImpl().parse(code, Map.of("prediction", "sll"));
+
+            if (ll.getRootNode() == null) {
+                assertNull(file.getPath(), sll.getRootNode());
+                continue;
+            }
+
+            assertNotNull(file.getPath(), sll.getRootNode());
+            assertEquals(file.getPath(), ll.getRootNode().toTree(), sll.getRootNode().toTree());
+        }
+    }
+
+    @Test
+    public void profilesTheDecisions() {
+        var profile = JmmParserImpl.getProfile();
+        var parses = profile.getParses();
+        var stmtInvocations = profile.getInvocations("stmt");
+
+        var code = """
+                class Profiled {
+                    public int f(int[] a, int i) {
+                        a[i] = i;
+                        i = a[i] + 1;
+                        return i;
+                    }
+                }
+                """;
+        new JmmParserImpl().parse(code, Map.of("prediction", "ll", "profileParser", "true"));
+        new JmmParserImpl().parse(code, Map.of("prediction", "ll"));
+
+        assertEquals(parses + 1, profile.getParses());
+        assertTrue(profile.getInvocations("stmt") >= stmtInvocations + 2);
+        assertTrue(profile.toString().lines().anyMatch(line -> line.startsWith("stmt ")));
+    }
+}
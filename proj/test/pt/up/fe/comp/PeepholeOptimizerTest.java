@@ -0,0 +1,192 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.backend.JasminInstruction;
+import pt.up.fe.comp2025.backend.JasminWriter;
+import pt.up.fe.comp2025.backend.peephole.PeepholeOptimizer;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PeepholeOptimizerTest {
+
+    private static final String CODE = """
+            import io;
+            class Loop {
+                public int sum(int n) {
+                    int i;
+                    int s;
+                    int r;
+                    i = 0;
+                    s = 0;
+                    while (i < n) {
+                        if (s < 10) { s = s + i * 2; } else { s = s - 1; }
+                        i = i + 1;
+                    }
+                    r = s - 1;
+                    return r;
+                }
+                public static void main(String[] args) {
+                    Loop l;
+                    l = new Loop();
+                    io.println(l.sum(20));
+                    io.println(l.sum(3));
+                }
+            }
+            """;
+
+    private static String optimize(String instructions, String... rules) {
+        var optimizer = new PeepholeOptimizer(rules.length == 0 ? PeepholeOptimizer.getRuleNames() : List.of(rules));
+        var code = JasminInstruction.parse(instructions);
+        optimizer.optimize(code);
+
+        var optimized = new StringBuilder();
+        JasminInstruction.write(code, new JasminWriter(optimized).indent());
+        return optimized.toString();
+    }
+
+    @Test
+    public void removesDeadStoreLoad() {
+        // Slot 2 is only read right after the store, slot 1 is read again later
+        assertEquals("""
+                   iload_1
+                   iconst_1
+                   iadd
+                   istore_1
+                   iload_1
+                   iload_1
+                   iadd
+                   ireturn
+                """, optimize("""
+                   iload_1
+                   iconst_1
+                   iadd
+                   istore_2
+                   iload_2
+                   istore_1
+                   iload_1
+                   iload_1
+                   iadd
+                   ireturn
+                """, "deadStoreLoad"));
+    }
+
+    @Test
+    public void decidesConstantBranches() {
+        // The labels are left for the other rules
+        assertEquals("""
+                   goto else0
+                then0:
+                   return
+                else0:
+                   return
+                """, optimize("""
+                   iconst_0
+                   ifne then0
+                   iconst_0
+                   ifeq else0
+                then0:
+                   return
+                else0:
+                   return
+                """, "constantBranch"));
+    }
+
+    @Test
+    public void removesPopAfterPush() {
+        assertEquals("""
+                   invokestatic io/read()I
+                   pop
+                   return
+                """, optimize("""
+                   iload_1
+                   pop
+                   invokestatic io/read()I
+                   aload_0
+                   dup
+                   pop
+                   pop
+                   pop
+                   return
+                """, "popAfterPush"));
+    }
+
+    @Test
+    public void threadsJumpsToAFixedPoint() {
+        // The branch skips the chain of gotos, which then become unreachable
+        assertEquals("""
+                   iload_1
+                   ifeq end
+                   iinc 1 -1
+                end:
+                   return
+                """, optimize("""
+                   iload_1
+                   ifeq first
+                   iinc 1 -1
+                   goto end
+                   iconst_0
+                   pop
+                first:
+                   goto second
+                second:
+                   goto end
+                end:
+                   return
+                """));
+    }
+
+    @Test
+    public void keepsLoopsOfGotos() {
+        var loop = """
+                loop:
+                   goto loop
+                """;
+
+        assertEquals(loop, optimize(loop));
+    }
+
+    @Test
+    public void countsRemovedInstructionsByRule() {
+        var optimizer = new PeepholeOptimizer(List.of("gotoNext", "unusedLabel"));
+        optimizer.optimize(JasminInstruction.parse("""
+                   goto next
+                next:
+                   return
+                """));
+
+        // Labels are not instructions
+        assertEquals(Map.of("gotoNext", 1L, "unusedLabel", 0L), optimizer.getRemoved());
+    }
+
+    @Test
+    public void selectsRulesByName() {
+        assertEquals(PeepholeOptimizer.getRuleNames(), CompilerConfig.getPeephole(Map.of("peephole", "true")));
+        assertEquals(List.of(), CompilerConfig.getPeephole(Map.of()));
+        assertEquals(List.of("gotoNext", "jumpToJump"),
+                CompilerConfig.getPeephole(Map.of("peephole", "gotoNext,jumpToJump")));
+
+        try {
+            CompilerConfig.getPeephole(Map.of("peephole", "gotoNext,noSuchRule"));
+            throw new AssertionError("Expected an unknown rule to be rejected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("noSuchRule"));
+        }
+    }
+
+    @Test
+    public void runsTheSameAndShorter() {
+        var plain = Launcher.compile(CODE, Map.of());
+        var optimized = Launcher.compile(CODE, Map.of("peephole", "true"));
+
+        var output = optimized.runWithFullOutput();
+        assertEquals("", output.getStdErr().strip());
+        assertEquals(plain.run().strip(), output.getStdOut().strip());
+        assertTrue(optimized.getJasminCode().length() < plain.getJasminCode().length());
+    }
+}
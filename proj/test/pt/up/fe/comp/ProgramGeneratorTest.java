@@ -0,0 +1,76 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.generator.ProgramGenerator;
+import pt.up.fe.comp2025.generator.ProgramGenerator.Settings;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgramGeneratorTest {
+
+    private static final List<Settings> SETTINGS = List.of(
+            Settings.defaults(),
+            new Settings(1, 1, 0, 0, 0, 1),
+            new Settings(3, 8, 40, 3, 2, 2),
+            new Settings(6, 2, 30, 1, 6, 3),
+            new Settings(2, 5, 60, 4, 1, 4)
+    );
+
+    @Test
+    public void passesSemanticAnalysis() {
+        for (var settings : SETTINGS) {
+            for (long seed = 0; seed < 10; seed++) {
+                var code = ProgramGenerator.generate(new Settings(settings.methods(), settings.locals(),
+                        settings.statements(), settings.loopDepth(), settings.exprDepth(), seed));
+
+                var result = TestUtils.analyse(code);
+                assertFalse("Program with " + settings + " has errors:\n" + code + "\n" + result.getReports(),
+                        TestUtils.getNumErrors(result.getReports()) > 0);
+            }
+        }
+    }
+
+    /**
+     * Compiles and runs the program, which must not fail (e.g. in the verifier), and returns what it printed.
+     */
+    private static String run(String code, Map<String, String> config) {
+        var output = Launcher.compile(code, config).runWithFullOutput();
+        assertEquals("Program failed with " + config + ":\n" + output.getStdErr() + "\n" + code, "",
+                output.getStdErr().strip());
+        return output.getStdOut().strip();
+    }
+
+    @Test
+    public void compilesAndRuns() {
+        for (var settings : SETTINGS) {
+            var code = ProgramGenerator.generate(settings);
+
+            var expected = run(code, Map.of());
+            assertFalse(expected.isEmpty());
+
+            // Optimizations do not change what the program prints
+            assertEquals(expected, run(code, Map.of("optimize", "true")));
+            assertEquals(expected, run(code, Map.of("registerAllocation", "0")));
+            assertEquals(expected, run(code, Map.of("optimize", "true", "registerAllocation", "0")));
+        }
+    }
+
+    @Test
+    public void deterministic() {
+        var settings = Settings.defaults();
+        assertEquals(ProgramGenerator.generate(settings), ProgramGenerator.generate(settings));
+    }
+
+    @Test
+    public void scales() {
+        var small = ProgramGenerator.countLines(Settings.defaults().withStatements(10));
+        var large = ProgramGenerator.countLines(Settings.defaults().withStatements(100));
+        assertTrue(large > 5 * small / 2);
+    }
+}
@@ -0,0 +1,74 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.comp2025.parser.SourceReader;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Source files are read into a buffer that the parser lexes in place, with the same contents and positions as reading
+ * them into a String.
+ */
+public class SourceReaderTest {
+
+    private static File write(byte[] contents) throws IOException {
+        var file = File.createTempFile("source", ".jmm");
+        file.deleteOnExit();
+        Files.write(file.toPath(), contents);
+        return file;
+    }
+
+    @Test
+    public void readsLikeSpecsIo() throws IOException {
+        var files = SpecsIo.getFilesRecursive(new File("test"), "jmm");
+        assertTrue(files.size() > 100);
+
+        for (var file : files) {
+            assertEquals(file.getPath(), SpecsIo.read(file), SourceReader.read(file).toString());
+        }
+
+        // Malformed UTF-8 is replaced, as by SpecsIo
+        var malformed = write(new byte[]{'a', (byte) 0xC3, 'b', (byte) 0xFF});
+        assertEquals(SpecsIo.read(malformed), SourceReader.read(malformed).toString());
+
+        assertEquals("", SourceReader.read(write(new byte[0])).toString());
+    }
+
+    @Test
+    public void parsesInPlaceWithTheSamePositions() throws IOException {
+        var code = "// ção\r\nclass A {\r\n\tpublic int f(int a) {\r\n\t\t/* é */ return a + * 2;\r\n\t}\r\n}\r\n";
+        var file = write(code.getBytes(StandardCharsets.UTF_8));
+
+        for (var parser : new String[]{"antlr", "handwritten"}) {
+            var config = Map.of("parser", parser);
+            var expected = new JmmParserImpl().parse(code, config);
+            var result = new JmmParserImpl().parse(SourceReader.read(file), config);
+
+            assertNull(result.getRootNode());
+            assertEquals(parser, expected.getReports().stream().map(Report::toString).toList(),
+                    result.getReports().stream().map(Report::toString).toList());
+            assertEquals(parser, 4, result.getReports().get(0).getLine());
+        }
+    }
+
+    @Test
+    public void compilesTheBuffer() {
+        var file = new File("test/pt/up/fe/comp/cp2/optimizations/const_prop_fold/PropWithLoop.jmm");
+        assertTrue(file.isFile());
+
+        assertEquals(Launcher.compile(SpecsIo.read(file), Map.of()).getJasminCode(),
+                Launcher.compile(SourceReader.read(file), Map.of()).getJasminCode());
+    }
+}
@@ -0,0 +1,152 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp2025.Launcher;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Temporaries read only by the next instruction stay on the stack instead of going through a local.
+ */
+public class StackTemporariesTest {
+
+    private static final String CODE = """
+            import io;
+            class Temps {
+                public int f(int a, int b, int c) {
+                    int x;
+                    x = a * b + c;
+                    x = 100 - a * b;
+                    return x + this.g(a) * 3;
+                }
+                public int g(int a) {
+                    return a + 1;
+                }
+                public static void main(String[] args) {
+                    Temps t;
+                    int i;
+                    t = new Temps();
+                    io.println(t.f(2, 3, 4));
+                    i = 3;
+                    i = i * 2 + 1;
+                    io.println(i);
+                }
+            }
+            """;
+
+    private static final String SWAPPED = """
+            import io;
+            class Swapped {
+                public int f(int a, int b, int c) {
+                    int x;
+                    int y;
+                    x = a + b * c;
+                    y = a - b * c;
+                    while (a < b * c) {
+                        a = a + 1;
+                    }
+                    return x * 1000 + y * 10 + a;
+                }
+                public static void main(String[] args) {
+                    Swapped s;
+                    s = new Swapped();
+                    io.println(s.f(2, 3, 4));
+                }
+            }
+            """;
+
+    private static final String UPDATES = """
+            import io;
+            class Updates {
+                int calls;
+                public int next() {
+                    calls = calls + 1;
+                    return calls;
+                }
+                public int f(int[] v) {
+                    int[] counts;
+                    int[] totals;
+                    int i;
+                    counts = new int[3];
+                    totals = new int[8];
+                    i = 0;
+                    while (i < v.length) {
+                        counts[v[i]] = counts[v[i]] + 1;
+                        totals[0] = v[i] + totals[0];
+                        totals[this.next()] = totals[this.next()] + 1;
+                        i = i + 1;
+                    }
+                    return counts[1] * 10 + counts[2] + totals[0] * 100 + totals[2] * 1000 + totals[3] * 10000;
+                }
+                public static void main(String[] args) {
+                    Updates u;
+                    u = new Updates();
+                    io.println(u.f([1, 2, 1]));
+                }
+            }
+            """;
+
+    private static final Pattern STORE = Pattern.compile("^\\s*istore", Pattern.MULTILINE);
+
+    private static String run(JasminResult result) {
+        var output = result.runWithFullOutput();
+        assertEquals("", output.getStdErr().strip());
+        return output.getStdOut().strip().replace("\r", "");
+    }
+
+    @Test
+    public void keepsFirstOperandsOnTheStack() {
+        var result = Launcher.compile(CODE, Map.of());
+        var f = CpUtils.getJasminMethodCode(result, "f");
+
+        // Only x (twice) and 'a * b' in '100 - a * b', which cannot be swapped, go through a local
+        assertEquals(f, 3, STORE.matcher(f).results().count());
+        assertTrue(f, f.contains(".limit stack 2"));
+
+        assertEquals("103\n7", run(result));
+    }
+
+    @Test
+    public void computesTheDeeperOperandFirst() {
+        var result = Launcher.compile(SWAPPED, Map.of());
+        var f = CpUtils.getJasminMethodCode(result, "f");
+
+        // 'a + b * c' and 'a < b * c' compute the product first, 'a - b * c' keeps it in a local next to x, y
+        // and 'x * 1000', which is not adjacent to its reader
+        assertEquals(f, 4, STORE.matcher(f).results().count());
+        assertTrue(f, f.contains("if_icmple"));
+
+        // x = 14, y = -10 and the loop stops at 12
+        assertEquals("13912", run(result));
+        assertEquals("13912", run(Launcher.compile(SWAPPED, Map.of("backend", "classfile"))));
+        assertEquals("13912", run(Launcher.compile(SWAPPED, Map.of("registerAllocation", "0"))));
+    }
+
+    @Test
+    public void duplicatesTheUpdatedElement() {
+        var result = Launcher.compile(UPDATES, Map.of());
+        var f = CpUtils.getJasminMethodCode(result, "f");
+
+        // 'counts[v[i]] + 1' and 'v[i] + totals[0]' read the element they store, the calls of 'next' give two
+        // different elements
+        assertEquals(f, 2, Pattern.compile("^\\s*dup2$", Pattern.MULTILINE).matcher(f).results().count());
+
+        assertEquals("10421", run(result));
+        assertEquals("10421", run(Launcher.compile(UPDATES, Map.of("backend", "classfile"))));
+        assertEquals("10421", run(Launcher.compile(UPDATES, Map.of("registerAllocation", "0"))));
+    }
+
+    @Test
+    public void runsWithRegisterAllocation() {
+        var result = Launcher.compile(CODE, Map.of("registerAllocation", "0"));
+        assertEquals("103\n7", run(result));
+
+        var classFile = Launcher.compile(CODE, Map.of("backend", "classfile"));
+        assertEquals("103\n7", run(classFile));
+    }
+}